@@ -0,0 +1,89 @@
+package mcts.nim;
+
+import mcts.core.Move;
+import mcts.core.Node;
+import mcts.core.Playout;
+import mcts.core.SearchProfiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the hot paths of the Nim search: a single rollout (on the allocation-free Playout and on
+ * immutable States), the UCT selection and the choice of the best move at the root, and complete searches at several budgets
+ * (with and without a SearchProfiler).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NimMCTSBenchmark {
+
+    /**
+     * The budgets (iterations) of the complete searches.
+     */
+    @State(Scope.Thread)
+    public static class Budget {
+        @Param({"1000", "10000", "100000"})
+        public int iterations;
+    }
+
+    private mcts.core.State<NimGame> start;
+    private Playout<NimGame> playout;
+    private NimMCTS searched;
+    private Node<NimGame> searchedRoot;
+
+    @Setup
+    public void setup() {
+        start = new NimGame(new SplittableRandom(0L), 3, 4, 5).start();
+        playout = start.playout().orElseThrow();
+        searchedRoot = new NimNode(start);
+        searched = new NimMCTS(searchedRoot, Math.sqrt(2));
+        searched.runSearch(10_000);
+    }
+
+    @Benchmark
+    public int rolloutPlayout() {
+        return playout.simulate(start);
+    }
+
+    @Benchmark
+    public int rolloutStates() {
+        mcts.core.State<NimGame> state = start;
+        while (!state.isTerminal()) {
+            Move<NimGame> move = state.chooseMove(state.player());
+            state = state.next(move);
+        }
+        return state.winner().orElse(-1);
+    }
+
+    @Benchmark
+    public Node<NimGame> selectUCT() {
+        return searched.selectUCT(searchedRoot);
+    }
+
+    @Benchmark
+    public Move<NimGame> bestMove() {
+        return searched.bestMove();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Move<NimGame> runSearch(Budget budget) {
+        NimMCTS mcts = new NimMCTS(new NimNode(start), Math.sqrt(2));
+        mcts.runSearch(budget.iterations);
+        return mcts.bestMove();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Move<NimGame> runSearchProfiled(Budget budget) {
+        NimMCTS mcts = new NimMCTS(new NimNode(start), Math.sqrt(2));
+        mcts.setProfiler(new SearchProfiler());
+        mcts.runSearch(budget.iterations);
+        return mcts.bestMove();
+    }
+}
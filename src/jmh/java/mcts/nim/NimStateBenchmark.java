@@ -0,0 +1,36 @@
+package mcts.nim;
+
+import mcts.core.Move;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the generation of the legal moves of a NimState.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NimStateBenchmark {
+
+    @Param({"3,4,5", "10,20,30"})
+    public String piles;
+
+    private NimState state;
+
+    @Setup
+    public void setup() {
+        int[] sizes = Arrays.stream(piles.split(",")).mapToInt(Integer::parseInt).toArray();
+        state = (NimState) new NimGame(sizes).start();
+    }
+
+    @Benchmark
+    public Collection<Move<NimGame>> moves() {
+        return state.moves(state.player());
+    }
+}
@@ -0,0 +1,87 @@
+package mcts.tictactoe;
+
+import mcts.core.Move;
+import mcts.core.Playout;
+import mcts.core.SearchProfiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the hot paths of the TicTacToe search: a single rollout (on the allocation-free Playout
+ * and on immutable States), the UCT selection and the choice of the best move at the root, and complete searches at several budgets
+ * (with and without a SearchProfiler).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MCTSBenchmark {
+
+    /**
+     * The budgets (iterations) of the complete searches.
+     */
+    @State(Scope.Thread)
+    public static class Budget {
+        @Param({"1000", "10000", "100000"})
+        public int iterations;
+    }
+
+    private TicTacToe.TicTacToeState start;
+    private Playout<TicTacToe> playout;
+    private MCTS searched;
+    private TicTacToeNode searchedRoot;
+
+    @Setup
+    public void setup() {
+        start = new TicTacToe(0L).new TicTacToeState();
+        playout = start.playout().orElseThrow();
+        searchedRoot = new TicTacToeNode(start);
+        searched = new MCTS(searchedRoot, Math.sqrt(2));
+        searched.runSearch(10_000);
+    }
+
+    @Benchmark
+    public int rolloutPlayout() {
+        return playout.simulate(start);
+    }
+
+    @Benchmark
+    public int rolloutStates() {
+        mcts.core.State<TicTacToe> state = start;
+        while (!state.isTerminal()) {
+            Move<TicTacToe> move = state.chooseMove(state.player());
+            state = state.next(move);
+        }
+        return state.winner().orElse(-1);
+    }
+
+    @Benchmark
+    public int selectUCT() {
+        return searched.selectUCT(searchedRoot);
+    }
+
+    @Benchmark
+    public TicTacToe.TicTacToeMove bestMove() {
+        return searched.bestMove();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TicTacToe.TicTacToeMove runSearch(Budget budget) {
+        MCTS mcts = new MCTS(new TicTacToeNode(start), Math.sqrt(2));
+        mcts.runSearch(budget.iterations);
+        return mcts.bestMove();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TicTacToe.TicTacToeMove runSearchProfiled(Budget budget) {
+        MCTS mcts = new MCTS(new TicTacToeNode(start), Math.sqrt(2));
+        mcts.setProfiler(new SearchProfiler());
+        mcts.runSearch(budget.iterations);
+        return mcts.bestMove();
+    }
+}
@@ -0,0 +1,49 @@
+package mcts.tictactoe;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the bitboard operations of Position.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionBenchmark {
+
+    private Position empty;
+    private Position midGame;
+    private Position won;
+
+    @Setup
+    public void setup() {
+        empty = new TicTacToe(0L).new TicTacToeState().position();
+        midGame = Position.parsePosition("X O .\n. X .\nO . .", TicTacToe.O);
+        won = Position.parsePosition("X O .\nO X .\nO . X", TicTacToe.X);
+    }
+
+    @Benchmark
+    public Position moveEmpty() {
+        return empty.move(TicTacToe.X, 1, 1);
+    }
+
+    @Benchmark
+    public Position moveMidGame() {
+        return midGame.move(TicTacToe.X, 2, 2);
+    }
+
+    @Benchmark
+    public Optional<Integer> winnerMidGame() {
+        return midGame.winner();
+    }
+
+    @Benchmark
+    public Optional<Integer> winnerWon() {
+        return won.winner();
+    }
+}
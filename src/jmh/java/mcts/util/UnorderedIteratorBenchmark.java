@@ -0,0 +1,53 @@
+package mcts.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * JMH benchmarks for UnorderedIterator: taking only the first element (as a random choice does)
+ * and iterating over all the elements, with several random sources.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnorderedIteratorBenchmark {
+
+    @Param({"9", "100"})
+    public int size;
+
+    /**
+     * The algorithm of the random source (as named by RandomGeneratorFactory).
+     */
+    @Param({"Random", "SplittableRandom", "L64X128MixRandom"})
+    public String generator;
+
+    private List<Integer> elements;
+    private RandomGenerator random;
+
+    @Setup
+    public void setup() {
+        elements = new ArrayList<>();
+        for (int i = 0; i < size; i++) elements.add(i);
+        random = RandomGeneratorFactory.of(generator).create(0L);
+    }
+
+    @Benchmark
+    public Integer first() {
+        return new UnorderedIterator<>(elements, random).next();
+    }
+
+    @Benchmark
+    public void all(Blackhole blackhole) {
+        UnorderedIterator<Integer> iterator = new UnorderedIterator<>(elements, random);
+        while (iterator.hasNext()) blackhole.consume(iterator.next());
+    }
+}
@@ -0,0 +1,170 @@
+package mcts.core;
+
+import java.util.Arrays;
+
+/**
+ * Class to run a Monte Carlo Tree Search whose nodes are stored in a NodeArena rather than as Node objects.
+ * No State is stored in the tree: each iteration resets a Playout to the root State and replays the (encoded)
+ * moves of the selected path, so the State must support the Playout fast path.
+ *
+ * @param <G> the type of the Game.
+ */
+public class ArenaSearch<G extends Game> {
+
+    /**
+     * Run the MCTS algorithm for the given number of iterations.
+     *
+     * @param iterations the number of iterations.
+     */
+    public void run(int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            // 1. SELECTION
+            playout.reset(rootState);
+            int depth = 0;
+            int node = ROOT;
+            path[0] = node;
+            movers[0] = 1 - playout.player();
+            while (arena.firstChild()[node] != NodeArena.UNEXPANDED && !playout.isTerminal()) {
+                node = selectUCT(node);
+                depth = push(depth, node, playout.player());
+                playout.play(arena.move()[node]);
+            }
+
+            // 2. EXPANSION
+            if (!playout.isTerminal()) {
+                node = expand(node);
+                depth = push(depth, node, playout.player());
+                playout.play(arena.move()[node]);
+            }
+
+            // 3. SIMULATION
+            int result = playout.finish();
+
+            // 4. BACKPROPAGATION
+            int[] wins = arena.wins(), visits = arena.visits();
+            for (int d = 0; d <= depth; d++) {
+                int n = path[d];
+                visits[n]++;
+                if (result < 0) wins[n] += 1;
+                else if (result == movers[d]) wins[n] += 2;
+            }
+        }
+    }
+
+    /**
+     * @return true if the root has been expanded into at least one child (so that bestMove() has a move to return).
+     */
+    public boolean hasBestMove() {
+        return arena.firstChild()[ROOT] != NodeArena.UNEXPANDED && arena.childCount()[ROOT] > 0;
+    }
+
+    /**
+     * After search, pick the most visited child of the root as the best move.
+     *
+     * @return the best Move.
+     */
+    public Move<G> bestMove() {
+        int first = arena.firstChild()[ROOT];
+        if (first == NodeArena.UNEXPANDED) throw new RuntimeException("bestMove: the root has not been expanded");
+        int[] visits = arena.visits();
+        int best = first;
+        for (int c = first; c < first + arena.childCount()[ROOT]; c++)
+            if (visits[c] > visits[best]) best = c;
+        playout.reset(rootState);
+        return playout.decode(arena.move()[best]);
+    }
+
+    /**
+     * @return the State at the root of this search.
+     */
+    public State<G> rootState() {
+        return rootState;
+    }
+
+    /**
+     * @return the arena which holds the nodes of this search.
+     */
+    public NodeArena arena() {
+        return arena;
+    }
+
+    /**
+     * Select the child of 'node' with highest UCT value.
+     */
+    private int selectUCT(int node) {
+        int[] wins = arena.wins(), visits = arena.visits();
+        int first = arena.firstChild()[node], last = first + arena.childCount()[node];
+        double logParent = Math.log(visits[node]);
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int c = first; c < last; c++) {
+            if (visits[c] == 0) return c;
+            double uctValue = (double) wins[c] / visits[c] + Cp * Math.sqrt(logParent / visits[c]);
+            if (uctValue > bestValue) {
+                bestValue = uctValue;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Add the children of 'node' (whose position is that of the playout) to the arena.
+     *
+     * @return the child to be simulated.
+     */
+    private int expand(int node) {
+        int count = playout.moveCount();
+        if (buffer.length < count) buffer = new int[count];
+        playout.moves(buffer);
+        int first = arena.allocate(count);
+        System.arraycopy(buffer, 0, arena.move(), first, count);
+        arena.firstChild()[node] = first;
+        arena.childCount()[node] = count;
+        return first;
+    }
+
+    /**
+     * Add a node to the path.
+     *
+     * @param depth  the current depth of the path.
+     * @param node   the node.
+     * @param mover  the player who moves into the node.
+     * @return the new depth.
+     */
+    private int push(int depth, int node, int mover) {
+        if (++depth == path.length) {
+            path = Arrays.copyOf(path, 2 * path.length);
+            movers = Arrays.copyOf(movers, 2 * movers.length);
+        }
+        path[depth] = node;
+        movers[depth] = mover;
+        return depth;
+    }
+
+    /**
+     * Constructor, which resets the arena and adds the root to it.
+     *
+     * @param rootState the State at the root (it must support the Playout fast path).
+     * @param arena     the arena in which to store the nodes.
+     * @param Cp        the exploration constant.
+     */
+    public ArenaSearch(State<G> rootState, NodeArena arena, double Cp) {
+        this.rootState = rootState;
+        this.arena = arena;
+        this.Cp = Cp;
+        this.playout = rootState.playout().orElseThrow(() -> new RuntimeException("ArenaSearch: no Playout for " + rootState));
+        arena.reset();
+        arena.allocate(1);
+    }
+
+    private static final int ROOT = 0;
+
+    private final State<G> rootState;
+    private final NodeArena arena;
+    private final double Cp;
+    private final Playout<G> playout;
+    private int[] path = new int[64];
+    private int[] movers = new int[64];
+    private int[] buffer = new int[16];
+}
@@ -0,0 +1,88 @@
+package mcts.core;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * This interface defines the extra behavior required of a Node which is shared between the threads
+ * of a tree-parallel search.
+ * All the methods of this interface must be safe to call concurrently.
+ *
+ * @param <G> the type of the Game.
+ */
+public interface ConcurrentNode<G extends Game> extends Node<G> {
+
+    /**
+     * @return true if the children of this Node have been added (and safely published), in which case
+     * they may be read by any thread.
+     */
+    boolean expanded();
+
+    /**
+     * @param i the index of a child (in the order of children()).
+     * @return the i-th child of this Node.
+     */
+    Node<G> child(int i);
+
+    /**
+     * Method to get the number of playouts which went from this Node to its i-th child (including the virtual
+     * losses of the playouts in progress).
+     * By default, that is the child's own playouts (as in a tree).
+     *
+     * @param i the index of a child.
+     * @return the number of playouts through the edge.
+     */
+    default int edgePlayouts(int i) {
+        return child(i).playouts();
+    }
+
+    /**
+     * Record playouts which went from this Node to its i-th child.
+     * A Node whose children may be shared with other parents (in a DAG) must count them, since the statistics
+     * of a shared child also include the playouts which came through its other parents.
+     * By default, nothing is recorded (in a tree, the child's own statistics suffice).
+     *
+     * @param i        the index of a child.
+     * @param playouts the number of playouts (negative to remove a virtual loss).
+     */
+    default void recordEdgePlayouts(int i, int playouts) {
+    }
+
+    /**
+     * Method which adds the immediate children of this Node exactly once, even when called by several threads.
+     * A thread which finds the Node being expanded waits until the expansion is complete.
+     * The children are added in an order drawn from the random source of the State.
+     *
+     * @return true if it was this call which did the expansion.
+     */
+    default boolean exploreOnce() {
+        return exploreOnce(state().random());
+    }
+
+    /**
+     * Method which adds the immediate children of this Node exactly once, even when called by several threads,
+     * in an order drawn from the given random source (that of the calling thread, since the random source
+     * of the State need not be thread-safe).
+     *
+     * @param random the random source of the calling thread.
+     * @return true if it was this call which did the expansion.
+     */
+    boolean exploreOnce(RandomGenerator random);
+
+    /**
+     * Add a virtual loss to this Node, i.e. count some playouts which have started but not yet finished
+     * (and which, until they finish, do not score).
+     * This discourages other threads from selecting the same path.
+     *
+     * @param virtualLoss the number of playouts to be added.
+     */
+    void addVirtualLoss(int virtualLoss);
+
+    /**
+     * Record the result of a playout which went through this Node, removing the virtual loss
+     * which was added when the Node was selected.
+     *
+     * @param winner      0 or 1 for the winner, or -1 for a draw.
+     * @param virtualLoss the virtual loss which was added by {@link #addVirtualLoss(int)}.
+     */
+    void recordResult(int winner, int virtualLoss);
+}
@@ -0,0 +1,99 @@
+package mcts.core;
+
+/**
+ * Rules to stop a search early, once the move which it would choose (the most visited child of the root)
+ * can no longer change, or is very unlikely to.
+ * The statistics passed to a rule are those of the children of the root: their visits (the playouts through the
+ * edges from the root) and their mean scores (a win is worth 1, a draw 1/2, to the player at the root).
+ * In a DAG, a child shared with other parents takes its mean from all its own playouts, which may be more than
+ * the visits through the edge from the root: the visits are used for the choice of the move and for the widths
+ * of the confidence bounds, and the means only for the values.
+ */
+public enum EarlyStop {
+
+    /**
+     * Never stop early.
+     */
+    NONE {
+        public boolean decided(double[] means, int[] visits, int count, int remaining) {
+            return false;
+        }
+    },
+
+    /**
+     * Stop when the lead (in visits) of the most visited child is greater than the number of remaining iterations:
+     * even if they all went to the runner-up, it could not overtake the leader.
+     * This rule never changes the move chosen.
+     */
+    VISIT_LEAD {
+        public boolean decided(double[] means, int[] visits, int count, int remaining) {
+            if (count <= 1) return count == 1;
+            int best = best(visits, count);
+            int second = 0;
+            for (int i = 0; i < count; i++) if (i != best) second = Math.max(second, visits[i]);
+            return visits[best] - second > remaining;
+        }
+    },
+
+    /**
+     * Stop when the lower confidence bound on the mean score of the most visited child is greater than the upper
+     * confidence bound of every other child (using Hoeffding bounds with confidence 1 - DELTA for each child).
+     */
+    CONFIDENCE_BOUND {
+        public boolean decided(double[] means, int[] visits, int count, int remaining) {
+            if (count <= 1) return count == 1;
+            int best = best(visits, count);
+            if (visits[best] == 0) return false;
+            double lower = means[best] - radius(visits[best]);
+            for (int i = 0; i < count; i++)
+                if (i != best && (visits[i] == 0 || means[i] + radius(visits[i]) >= lower)) return false;
+            return true;
+        }
+    };
+
+    /**
+     * Method to decide whether the search may stop.
+     *
+     * @param means     the mean scores (between 0 and 1) of the children of the root (ignored where visits is 0).
+     * @param visits    the visits of the children of the root.
+     * @param count     the number of children (the arrays may be longer).
+     * @param remaining the number of iterations still to be run.
+     * @return true if the search may stop now.
+     */
+    public abstract boolean decided(double[] means, int[] visits, int count, int remaining);
+
+    /**
+     * Method to decide whether the search may stop, from the scores of children whose visits are all their
+     * playouts (as in a tree).
+     *
+     * @param wins      the scores of the children of the root (a win is worth 2 points, a draw 1 point).
+     * @param visits    the visits of the children of the root.
+     * @param count     the number of children (the arrays may be longer).
+     * @param remaining the number of iterations still to be run.
+     * @return true if the search may stop now.
+     */
+    public boolean decided(int[] wins, int[] visits, int count, int remaining) {
+        double[] means = new double[count];
+        for (int i = 0; i < count; i++) if (visits[i] > 0) means[i] = mean(wins[i], visits[i]);
+        return decided(means, visits, count, remaining);
+    }
+
+    /**
+     * The probability that the true mean of a child lies outside its confidence interval.
+     */
+    public static final double DELTA = 0.001;
+
+    private static int best(int[] visits, int count) {
+        int best = 0;
+        for (int i = 1; i < count; i++) if (visits[i] > visits[best]) best = i;
+        return best;
+    }
+
+    private static double mean(int wins, int visits) {
+        return wins / (2.0 * visits);
+    }
+
+    private static double radius(int visits) {
+        return Math.sqrt(Math.log(2 / DELTA) / (2.0 * visits));
+    }
+}
@@ -0,0 +1,27 @@
+package mcts.core;
+
+/**
+ * An exact evaluator of (some of) the States of a Game, which the search consults at the leaf of each iteration:
+ * when it knows the outcome of the leaf, that outcome is backpropagated instead of the result of a rollout
+ * (and, with the solver, the leaf is proven). An evaluator which only knows some States (e.g. endgames)
+ * returns UNKNOWN for the others, which are then simulated as usual.
+ *
+ * @param <G> the type of the Game.
+ */
+@FunctionalInterface
+public interface LeafEvaluator<G extends Game> {
+
+    /**
+     * The value returned by {@link #winner(State)} for a State whose outcome is not known.
+     */
+    int UNKNOWN = -2;
+
+    /**
+     * Method to evaluate a State, which should take (much) less time than a rollout.
+     * It may be called concurrently, so it should be stateless (or thread-safe).
+     *
+     * @param state a State.
+     * @return the winner of the State under perfect play, -1 for a draw, or UNKNOWN.
+     */
+    int winner(State<G> state);
+}
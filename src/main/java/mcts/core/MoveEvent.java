@@ -0,0 +1,61 @@
+package mcts.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for a move of an interactive game, from the moment the player is asked for it
+ * to the moment it has been played (including the search, and advancing the search to the new position).
+ */
+@Name(MoveEvent.NAME)
+@Label("MCTS Move")
+@Category({"MCTS"})
+@Description("A move of an interactive game, from the request to the move played")
+@StackTrace(false)
+public class MoveEvent extends Event {
+
+    /**
+     * Method to end the event and, if it is to be recorded, to fill in its fields and commit it.
+     *
+     * @param game     the name of the game.
+     * @param player   the player who moved.
+     * @param human    true if the move was entered by a human, false if it was chosen by a search.
+     * @param move     the move.
+     * @param playouts the number of playouts carried over to the next search.
+     */
+    public void report(String game, int player, boolean human, Move<?> move, int playouts) {
+        end();
+        if (!shouldCommit()) return;
+        this.game = game;
+        this.player = player;
+        this.human = human;
+        this.move = String.valueOf(move);
+        this.playouts = playouts;
+        commit();
+    }
+
+    /**
+     * The name of the event type.
+     */
+    public static final String NAME = "mcts.Move";
+
+    @Label("Game")
+    String game;
+
+    @Label("Player")
+    int player;
+
+    @Label("Human")
+    boolean human;
+
+    @Label("Move")
+    String move;
+
+    @Label("Carried Playouts")
+    @Description("The number of playouts carried over to the search of the next position")
+    int playouts;
+}
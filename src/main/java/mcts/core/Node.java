@@ -59,19 +59,67 @@ public interface Node<G extends Game> {
      */
     void addChild(State<G> state);
 
+    /**
+     * Method to add a child to this Node, reached by the given Move.
+     * A Node which records the Move of each of its edges can then answer "which move leads to this child?"
+     * without regenerating its moves; by default, the Move is not recorded.
+     *
+     * @param move  the Move from the State of this Node to the State of the new child.
+     * @param state the State for the new child.
+     */
+    default void addChild(Move<G> move, State<G> state) {
+        addChild(state);
+    }
+
+    /**
+     * @param i the index of a child (in the order of children()).
+     * @return the Move which leads from this Node to its i-th child (by default, null: the Moves are not recorded).
+     */
+    default Move<G> move(int i) {
+        return null;
+    }
+
     /**
      * @return the score for this Node and its descendents a win is worth 2 points, a draw is worth 1 point.
      */
     int wins();
 
+    /**
+     * @return the proven value of this Node, for the player who moved to it (by default, UNKNOWN: never proven).
+     */
+    default Proof proof() {
+        return Proof.UNKNOWN;
+    }
+
+    /**
+     * Method to prove this Node, if its value follows from those of its children (see {@link Proof#solve}).
+     *
+     * @return true if it was this call which proved the Node (by default, false: never proven).
+     */
+    default boolean solve() {
+        return false;
+    }
+
+    /**
+     * Method to prove this Node from an exact evaluation of its state (for example, by a LeafEvaluator).
+     *
+     * @param proof the value of this Node, for the player who moved to it.
+     * @return true if it was this call which proved the Node (by default, false: never proven).
+     */
+    default boolean prove(Proof proof) {
+        return false;
+    }
+
     /**
      * @return the number of playouts evaluated (including this node). A leaf node will have a playouts value of 1.
      */
     int playouts();
 
     private void addChildren(final State<G> state) {
-        for (Iterator<Move<G>> it = state.moveIterator(state.player()); it.hasNext(); )
-            addChild(state.next(it.next()));
+        for (Iterator<Move<G>> it = state.moveIterator(state.player()); it.hasNext(); ) {
+            Move<G> move = it.next();
+            addChild(move, state.next(move));
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package mcts.core;
+
+import java.util.Arrays;
+
+/**
+ * Class to store the nodes of a search tree as a structure of arrays, rather than as one object per node.
+ * A node is addressed by its int index; its statistics, the index of its first child, its number of children,
+ * and the (encoded) move which leads to it are held in parallel primitive arrays.
+ * The children of a node occupy consecutive indices.
+ * <p>
+ * An arena grows as needed (by doubling) and may be reset between searches, keeping its arrays.
+ */
+public class NodeArena {
+
+    /**
+     * Method to empty this arena, keeping its capacity.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Method to allocate a block of consecutive, unexpanded nodes.
+     *
+     * @param count the number of nodes.
+     * @return the index of the first node of the block.
+     */
+    public int allocate(int count) {
+        int first = size;
+        ensureCapacity(size + count);
+        Arrays.fill(wins, first, first + count, 0);
+        Arrays.fill(visits, first, first + count, 0);
+        Arrays.fill(firstChild, first, first + count, UNEXPANDED);
+        Arrays.fill(childCount, first, first + count, 0);
+        Arrays.fill(move, first, first + count, NO_MOVE);
+        size += count;
+        return first;
+    }
+
+    /**
+     * @return the number of nodes in this arena.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of nodes for which this arena currently has room.
+     */
+    public int capacity() {
+        return wins.length;
+    }
+
+    /**
+     * @return the number of bytes of the arrays of this arena (excluding the array headers).
+     */
+    public long bytes() {
+        return (long) capacity() * BYTES_PER_NODE;
+    }
+
+    /**
+     * @return the number of bytes allocated per node actually used (at least BYTES_PER_NODE).
+     */
+    public double bytesPerNode() {
+        return size == 0 ? 0 : (double) bytes() / size;
+    }
+
+    /**
+     * The score of each node (a win is worth 2 points, a draw 1 point, to the player who moved into the node).
+     */
+    public int[] wins() {
+        return wins;
+    }
+
+    /**
+     * The number of playouts through each node.
+     */
+    public int[] visits() {
+        return visits;
+    }
+
+    /**
+     * The index of the first child of each node, or UNEXPANDED.
+     */
+    public int[] firstChild() {
+        return firstChild;
+    }
+
+    /**
+     * The number of children of each node.
+     */
+    public int[] childCount() {
+        return childCount;
+    }
+
+    /**
+     * The encoded move which leads to each node (NO_MOVE for a root).
+     */
+    public int[] move() {
+        return move;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity()) return;
+        int capacity = Math.max(required, 2 * capacity());
+        wins = Arrays.copyOf(wins, capacity);
+        visits = Arrays.copyOf(visits, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        childCount = Arrays.copyOf(childCount, capacity);
+        move = Arrays.copyOf(move, capacity);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity the initial number of nodes for which to allocate room.
+     */
+    public NodeArena(int capacity) {
+        wins = new int[capacity];
+        visits = new int[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        move = new int[capacity];
+    }
+
+    public NodeArena() {
+        this(1 << 16);
+    }
+
+    /**
+     * The value of firstChild for a node which has not been expanded.
+     */
+    public static final int UNEXPANDED = -1;
+
+    /**
+     * The value of move for a root node.
+     */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The number of bytes per node: five ints.
+     */
+    public static final int BYTES_PER_NODE = 5 * Integer.BYTES;
+
+    private int[] wins;
+    private int[] visits;
+    private int[] firstChild;
+    private int[] childCount;
+    private int[] move;
+    private int size;
+}
@@ -0,0 +1,176 @@
+package mcts.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * An opening book: the move to play in each of the positions near the starts of a Game, chosen offline by long
+ * searches, so that an engine (see MCTS.setOpeningBook and NimMCTS.setOpeningBook) can answer those positions
+ * without searching.
+ * <p>
+ * The file is a header (MAGIC, VERSION, the number of entries and the CRC32 of the entries), followed by one
+ * 12-byte entry per position, sorted by the Zobrist key of its State: the key, and the code of the move
+ * (see TreeSnapshot.MoveCodec).
+ * The reader maps the file into memory, and a lookup is a binary search of the keys.
+ * An OpeningBook can be shared by any number of threads.
+ *
+ * @param <G> the type of the Game.
+ */
+public class OpeningBook<G extends Game> {
+
+    /**
+     * Method to build an opening book: every position which can be reached from one of the starts in at most
+     * {@code depth} moves (and is not terminal) is searched, and the move chosen by the search is written.
+     * The positions are searched in parallel, on a pool of the given number of workers.
+     *
+     * @param starts  the States from which the positions are reached.
+     * @param depth   the number of moves (plies) after the starts.
+     * @param search  the search of a position, which yields its move (it is called from the workers' threads).
+     * @param codec   the encoding of the moves.
+     * @param file    the file to write (its parent directories are created if need be).
+     * @param workers the number of positions searched at the same time.
+     * @param <G>     the type of the Game.
+     * @return the number of positions in the book.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <G extends Game> int build(Collection<State<G>> starts, int depth, Function<State<G>, Move<G>> search,
+                                             TreeSnapshot.MoveCodec<G> codec, Path file, int workers) throws IOException {
+        List<State<G>> positions = positions(starts, depth);
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        for (State<G> state : positions)
+            tasks.add(() -> new long[]{state.zobristKey(), codec.encode(search.apply(state))});
+        long[][] entries = new long[positions.size()][];
+        try (ForkJoinPool pool = new ForkJoinPool(workers)) {
+            List<Future<long[]>> futures = pool.invokeAll(tasks);
+            for (int i = 0; i < entries.length; i++) entries[i] = futures.get(i).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("OpeningBook: interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("OpeningBook: search failed", e.getCause());
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + ENTRY * entries.length);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(entries.length).putInt(0);
+        for (long[] entry : entries) buffer.putLong(entry[0]).putInt((int) entry[1]);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER, ENTRY * entries.length);
+        buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Files.write(file, buffer.array());
+        return entries.length;
+    }
+
+    /**
+     * Method to open an opening book by mapping its file into memory.
+     *
+     * @param file  the file written by build.
+     * @param codec the encoding of the moves (the same as for build).
+     * @param <G>   the type of the Game.
+     * @return an OpeningBook.
+     * @throws IOException if the file cannot be read, if it is not a book of this version, or if its CRC32
+     *                     does not match its entries.
+     */
+    public static <G extends Game> OpeningBook<G> open(Path file, TreeSnapshot.MoveCodec<G> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER || size > Integer.MAX_VALUE) throw new IOException("not an opening book: " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("not an opening book (version " + VERSION + "): " + file);
+            int entries = buffer.getInt(ENTRIES_OFFSET);
+            if (entries < 0 || size != HEADER + (long) ENTRY * entries)
+                throw new IOException("truncated opening book: " + file);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER, (int) size - HEADER));
+            if ((int) crc.getValue() != buffer.getInt(CRC_OFFSET))
+                throw new IOException("corrupt opening book (CRC32 mismatch): " + file);
+            return new OpeningBook<>(buffer, entries, codec);
+        }
+    }
+
+    /**
+     * @return the number of positions in this book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param state a State.
+     * @return the move of the book for the State, or null if the State is not in the book.
+     */
+    public Move<G> move(State<G> state) {
+        long key = state.zobristKey();
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = buffer.getLong(HEADER + ENTRY * mid);
+            if (midKey < key) low = mid + 1;
+            else if (midKey > key) high = mid - 1;
+            else return codec.decode(state, buffer.getInt(HEADER + ENTRY * mid + 8));
+        }
+        return null;
+    }
+
+    /**
+     * Method to list the positions of a book: the States reached from the starts in at most depth moves
+     * which are not terminal, without duplicates (by Zobrist key), in breadth-first order.
+     *
+     * @param starts the States from which the positions are reached.
+     * @param depth  the number of moves after the starts.
+     * @param <G>    the type of the Game.
+     * @return the positions.
+     */
+    public static <G extends Game> List<State<G>> positions(Collection<State<G>> starts, int depth) {
+        Map<Long, State<G>> positions = new LinkedHashMap<>();
+        List<State<G>> level = new ArrayList<>();
+        for (State<G> start : starts)
+            if (!start.isTerminal() && positions.putIfAbsent(start.zobristKey(), start) == null) level.add(start);
+        for (int d = 0; d < depth; d++) {
+            List<State<G>> next = new ArrayList<>();
+            for (State<G> state : level)
+                for (Move<G> move : state.moves(state.player())) {
+                    State<G> child = state.next(move);
+                    if (!child.isTerminal() && positions.putIfAbsent(child.zobristKey(), child) == null) next.add(child);
+                }
+            level = next;
+        }
+        return new ArrayList<>(positions.values());
+    }
+
+    private OpeningBook(ByteBuffer buffer, int size, TreeSnapshot.MoveCodec<G> codec) {
+        this.buffer = buffer;
+        this.size = size;
+        this.codec = codec;
+    }
+
+    static final int MAGIC = 0x424F4F4B;    // "BOOK"
+    static final int VERSION = 1;
+    static final int ENTRIES_OFFSET = 8;
+    static final int CRC_OFFSET = 12;
+    static final int HEADER = 16;
+    static final int ENTRY = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final TreeSnapshot.MoveCodec<G> codec;
+}
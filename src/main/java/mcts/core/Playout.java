@@ -0,0 +1,104 @@
+package mcts.core;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * This interface defines a mutable "scratch" copy of a State of a game (G), on which random playouts
+ * can be run without allocating.
+ * Moves are encoded as non-negative ints (the encoding is up to the implementation) and are applied in place.
+ * A Playout is not thread-safe: each thread should have its own.
+ *
+ * @param <G> the type of game.
+ */
+public interface Playout<G extends Game> {
+
+    /**
+     * Method to copy the given State into this Playout.
+     * The random source of the State is used for the subsequent choice of moves.
+     *
+     * @param state a State of G.
+     */
+    default void reset(State<G> state) {
+        reset(state, state.random());
+    }
+
+    /**
+     * Method to copy the given State into this Playout, choosing the subsequent moves with the given random source
+     * (e.g. that of the thread which owns this Playout) rather than with that of the State.
+     *
+     * @param state  a State of G.
+     * @param random the random source of the choice of moves.
+     */
+    void reset(State<G> state, RandomGenerator random);
+
+    /**
+     * @return true if the current position is terminal.
+     */
+    boolean isTerminal();
+
+    /**
+     * @return the player who is to move in the current position.
+     */
+    int player();
+
+    /**
+     * Method to choose a random legal move for the player to move, without materializing the moves.
+     * Each legal move has the same probability of being chosen.
+     *
+     * @return an encoded move.
+     */
+    int randomMove();
+
+    /**
+     * Method to apply a move to the current position, in place.
+     *
+     * @param move an encoded move (as returned by randomMove).
+     */
+    void play(int move);
+
+    /**
+     * @return the winner (0 or 1) if the current position is terminal and not a draw; otherwise -1.
+     */
+    int winner();
+
+    /**
+     * @return the number of legal moves in the current position.
+     */
+    int moveCount();
+
+    /**
+     * Method to write the legal moves of the current position, encoded, into the given buffer.
+     *
+     * @param buffer an array of length at least moveCount().
+     */
+    void moves(int[] buffer);
+
+    /**
+     * Method to decode a legal move of the current position.
+     *
+     * @param move an encoded move.
+     * @return the corresponding Move.
+     */
+    Move<G> decode(int move);
+
+    /**
+     * Do a random playout from the current position to a terminal position.
+     *
+     * @return the winner (0 or 1), or -1 for a draw.
+     */
+    default int finish() {
+        while (!isTerminal()) play(randomMove());
+        return winner();
+    }
+
+    /**
+     * Do a random playout from the given state to a terminal state.
+     *
+     * @param state the starting State.
+     * @return the winner (0 or 1), or -1 for a draw.
+     */
+    default int simulate(State<G> state) {
+        reset(state);
+        return finish();
+    }
+}
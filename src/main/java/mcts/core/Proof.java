@@ -0,0 +1,110 @@
+package mcts.core;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The game-theoretic value of a Node, once it has been proven (as in MCTS-Solver),
+ * for the player who moved to the Node (the same player whose wins the Node counts).
+ * A terminal Node is proven when it is created; the value of any other Node follows from the values of its children
+ * (which are for its opponent) by the minimax rules of {@link #solve(Collection)}.
+ */
+public enum Proof {
+
+    /**
+     * Not (yet) proven.
+     */
+    UNKNOWN,
+
+    /**
+     * A proven win for the player who moved to the Node.
+     */
+    WIN,
+
+    /**
+     * A proven draw.
+     */
+    DRAW,
+
+    /**
+     * A proven loss for the player who moved to the Node.
+     */
+    LOSS;
+
+    /**
+     * @return this value for the other player.
+     */
+    public Proof opposite() {
+        return switch (this) {
+            case WIN -> LOSS;
+            case LOSS -> WIN;
+            default -> this;
+        };
+    }
+
+    /**
+     * Method to determine the value of a terminal State, for the player who moved to it.
+     *
+     * @param state a terminal State.
+     * @return WIN or LOSS, or DRAW if there is no winner.
+     */
+    public static Proof terminal(State<?> state) {
+        return of(state, state.winner().orElse(-1));
+    }
+
+    /**
+     * Method to determine the value of a State whose outcome under perfect play is known (e.g. by a LeafEvaluator),
+     * for the player who moved to it.
+     *
+     * @param state  a State.
+     * @param winner the winner of the State under perfect play (-1 for a draw).
+     * @return WIN, LOSS or DRAW.
+     */
+    public static Proof of(State<?> state, int winner) {
+        if (winner < 0) return DRAW;
+        return winner == 1 - state.player() ? WIN : LOSS;
+    }
+
+    /**
+     * Method to apply the minimax rules to the children of an expanded Node.
+     * The player to move at the Node chooses among its children, so the Node is a LOSS (for the player who moved
+     * to it) as soon as one child is a WIN; otherwise, it is proven only when all its children are,
+     * and then its value is the opposite of the best of theirs.
+     *
+     * @param children the children of a Node.
+     * @param <G>      the type of the Game.
+     * @return the value of the Node (UNKNOWN if it does not follow from the children yet, or if there are none).
+     */
+    public static <G extends Game> Proof solve(Collection<Node<G>> children) {
+        if (children.isEmpty()) return UNKNOWN;
+        Proof best = LOSS;
+        for (Node<G> child : children)
+            switch (child.proof()) {
+                case WIN -> {
+                    return LOSS;
+                }
+                case UNKNOWN -> best = UNKNOWN;
+                case DRAW -> {
+                    if (best == LOSS) best = DRAW;
+                }
+                case LOSS -> {
+                }
+            }
+        return best.opposite();
+    }
+
+    /**
+     * Method to prove what can be proven on the path of an iteration, from its end back to the root:
+     * each Node which is not yet proven is solved from its children, and the propagation stops at the first one
+     * which cannot be (since its ancestors' values cannot have changed either).
+     *
+     * @param path the Nodes of the path, from the root.
+     * @param <G>  the type of the Game.
+     */
+    public static <G extends Game> void propagate(List<Node<G>> path) {
+        for (int k = path.size() - 1; k >= 0; k--) {
+            Node<G> node = path.get(k);
+            if (node.proof() == UNKNOWN && !node.solve()) return;
+        }
+    }
+}
@@ -2,12 +2,24 @@ package mcts.core;
 
 import java.util.Objects;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class RandomState {
     public RandomState next() {
         return new RandomState(x, longValue());
     }
 
+    /**
+     * Method to split off a new RandomState, whose random source is independent of this one's
+     * (see {@link #split(RandomGenerator)}).
+     *
+     * @return a new RandomState with the same bound.
+     */
+    public RandomState split() {
+        return new RandomState(x, split(random));
+    }
+
     public int intValue() {
         return random.nextInt(x);
     }
@@ -20,6 +32,28 @@ public class RandomState {
         return random.nextBoolean();
     }
 
+    /**
+     * Method to split a new random source off the given one, e.g. for one of the threads of a parallel search,
+     * so that the threads need not share (and contend for) one source.
+     * The split is deterministic: splitting sources in the same state, in the same order, yields the same sources.
+     * A SplittableGenerator (such as SplittableRandom) is split; any other source (such as a Random)
+     * seeds a SplittableRandom with its next long.
+     *
+     * @param random the random source to split (it is advanced by the split).
+     * @return a new random source, which is not thread-safe.
+     */
+    public static RandomGenerator.SplittableGenerator split(RandomGenerator random) {
+        return random instanceof RandomGenerator.SplittableGenerator splittable ?
+                splittable.split() : new SplittableRandom(random.nextLong());
+    }
+
+    /**
+     * Constructor.
+     * For a given seed, the values are those of a java.util.Random with that seed.
+     *
+     * @param x    the bound of intValue().
+     * @param seed the seed.
+     */
     public RandomState(int x, long seed) {
         this(x, new Random(seed));
     }
@@ -28,6 +62,17 @@ public class RandomState {
         this(x, System.currentTimeMillis());
     }
 
+    /**
+     * Constructor with an explicit random source.
+     *
+     * @param x      the bound of intValue().
+     * @param random the random source (any RandomGenerator).
+     */
+    public RandomState(int x, RandomGenerator random) {
+        this.x = x;
+        this.random = random;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -48,12 +93,7 @@ public class RandomState {
                 '}';
     }
 
-    private RandomState(int x, Random random) {
-        this.x = x;
-        this.random = random;
-    }
-
     private final int x;
-    private final Random random;
+    private final RandomGenerator random;
 
-}
\ No newline at end of file
+}
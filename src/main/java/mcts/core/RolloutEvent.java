@@ -0,0 +1,63 @@
+package mcts.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder event for a rollout (the simulation of an iteration) which took longer than the threshold
+ * of the recording (by default, THRESHOLD).
+ * Only the slow rollouts are recorded, but every rollout is timed while the event is enabled
+ * (which is significant when the rollouts are short): so the event is disabled unless a recording enables it.
+ */
+@Name(RolloutEvent.NAME)
+@Label("MCTS Slow Rollout")
+@Category({"MCTS"})
+@Description("A rollout which took longer than the threshold")
+@Threshold(RolloutEvent.THRESHOLD)
+@Enabled(false)
+@StackTrace(false)
+public class RolloutEvent extends Event {
+
+    /**
+     * Method to end the event and, if it is to be recorded, to fill in its fields and commit it.
+     *
+     * @param game   the name of the game.
+     * @param length the number of moves played by the rollout.
+     * @param winner the winner (0 or 1), or -1 for a draw.
+     */
+    public void report(String game, int length, int winner) {
+        end();
+        if (!shouldCommit()) return;
+        this.game = game;
+        this.length = length;
+        this.winner = winner;
+        commit();
+    }
+
+    /**
+     * The name of the event type.
+     */
+    public static final String NAME = "mcts.Rollout";
+
+    /**
+     * The default threshold.
+     */
+    public static final String THRESHOLD = "1 ms";
+
+    @Label("Game")
+    String game;
+
+    @Label("Length")
+    @Description("The number of moves played")
+    int length;
+
+    @Label("Winner")
+    @Description("The winner (0 or 1), or -1 for a draw")
+    int winner;
+}
@@ -0,0 +1,83 @@
+package mcts.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Java Flight Recorder event for one search (from its start to its end), so that a slow search can be correlated
+ * with the garbage collections and safepoints recorded at the same time.
+ * <p>
+ * A search creates the event and calls begin() when it starts, then calls report() when it ends.
+ * The fields are set (and the chosen move computed) only if the event is going to be recorded:
+ * when no recording is running, the event costs (almost) nothing.
+ */
+@Name(SearchEvent.NAME)
+@Label("MCTS Search")
+@Category({"MCTS"})
+@Description("A Monte Carlo Tree Search, from its start to its end")
+public class SearchEvent extends Event {
+
+    /**
+     * Method to end the event and, if it is to be recorded, to fill in its fields and commit it.
+     *
+     * @param game       the name of the game.
+     * @param mode       the kind of search (for example "sequential" or "tree-parallel").
+     * @param budget     the budget of iterations (0 for a time-limited search).
+     * @param timeLimit  the time allowed (null unless the search is time-limited).
+     * @param iterations the number of iterations actually run.
+     * @param nodes      the number of nodes created by the search.
+     * @param move       the supplier of the move chosen (called only if the event is recorded).
+     */
+    public void report(String game, String mode, long budget, Duration timeLimit, long iterations, long nodes,
+                       Supplier<?> move) {
+        end();
+        if (!shouldCommit()) return;
+        this.game = game;
+        this.mode = mode;
+        this.budget = budget;
+        this.timeLimit = timeLimit == null ? 0 : timeLimit.toNanos();
+        this.iterations = iterations;
+        this.nodes = nodes;
+        this.move = String.valueOf(move.get());
+        commit();
+    }
+
+    /**
+     * The name of the event type.
+     */
+    public static final String NAME = "mcts.Search";
+
+    @Label("Game")
+    String game;
+
+    @Label("Mode")
+    @Description("The kind of search: sequential, time-limited, root-parallel, tree-parallel or arena")
+    String mode;
+
+    @Label("Budget")
+    @Description("The budget of iterations (0 for a time-limited search)")
+    long budget;
+
+    @Label("Time Limit")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeLimit;
+
+    @Label("Iterations")
+    @Description("The number of iterations actually run")
+    long iterations;
+
+    @Label("Nodes")
+    @Description("The number of nodes created by the search")
+    long nodes;
+
+    @Label("Move")
+    @Description("The move chosen at the end of the search")
+    String move;
+}
@@ -0,0 +1,76 @@
+package mcts.core;
+
+/**
+ * A snapshot of the statistics recorded by a SearchProfiler: the time spent in, and the number of calls of,
+ * each of the four phases of an iteration, with the depth of the selections, the length of the rollouts,
+ * and the number of nodes created by the expansions.
+ * Every iteration has one selection, one simulation and one backpropagation; not all have an expansion.
+ *
+ * @param iterations           the number of iterations.
+ * @param selectionNanos       the time spent selecting.
+ * @param selectionDepth       the total depth reached by the selections.
+ * @param expansions           the number of expansions.
+ * @param expansionNanos       the time spent expanding.
+ * @param nodesCreated         the number of nodes created by the expansions.
+ * @param simulationNanos      the time spent in rollouts.
+ * @param rolloutMoves         the total number of moves played by the rollouts.
+ * @param backPropagationNanos the time spent backpropagating.
+ */
+public record SearchMetrics(long iterations, long selectionNanos, long selectionDepth,
+                            long expansions, long expansionNanos, long nodesCreated,
+                            long simulationNanos, long rolloutMoves, long backPropagationNanos) {
+
+    /**
+     * @return the total time recorded, over the four phases.
+     */
+    public long totalNanos() {
+        return selectionNanos + expansionNanos + simulationNanos + backPropagationNanos;
+    }
+
+    /**
+     * @return the average depth of the node reached by a selection (the root has depth 0).
+     */
+    public double averageSelectionDepth() {
+        return iterations == 0 ? 0 : (double) selectionDepth / iterations;
+    }
+
+    /**
+     * @return the average number of moves of a rollout.
+     */
+    public double averageRolloutLength() {
+        return iterations == 0 ? 0 : (double) rolloutMoves / iterations;
+    }
+
+    /**
+     * Method to combine these metrics with others (for example, those of another thread).
+     *
+     * @param other other metrics.
+     * @return the sums of both.
+     */
+    public SearchMetrics plus(SearchMetrics other) {
+        return new SearchMetrics(iterations + other.iterations, selectionNanos + other.selectionNanos,
+                selectionDepth + other.selectionDepth, expansions + other.expansions,
+                expansionNanos + other.expansionNanos, nodesCreated + other.nodesCreated,
+                simulationNanos + other.simulationNanos, rolloutMoves + other.rolloutMoves,
+                backPropagationNanos + other.backPropagationNanos);
+    }
+
+    /**
+     * @return a summary with the share of time of each phase.
+     */
+    public String toString() {
+        double total = Math.max(1, totalNanos());
+        return String.format("%d iterations (%.0f ns each): selection %.1f%% (depth %.2f), "
+                        + "expansion %.1f%% (%d, %d nodes), simulation %.1f%% (length %.2f), backpropagation %.1f%%",
+                iterations, iterations == 0 ? 0 : total / iterations,
+                100 * selectionNanos / total, averageSelectionDepth(),
+                100 * expansionNanos / total, expansions, nodesCreated,
+                100 * simulationNanos / total, averageRolloutLength(),
+                100 * backPropagationNanos / total);
+    }
+
+    /**
+     * Metrics with nothing recorded.
+     */
+    public static final SearchMetrics EMPTY = new SearchMetrics(0, 0, 0, 0, 0, 0, 0, 0, 0);
+}
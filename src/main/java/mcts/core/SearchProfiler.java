@@ -0,0 +1,160 @@
+package mcts.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class to record where the time of a search goes, phase by phase.
+ * Each thread records into its own Recorder (so that the parallel searches do not contend on shared counters),
+ * and snapshot() sums the Recorders of all the threads.
+ * A thread which will record no more (e.g. a worker of a search's pool, which ends with the search) releases its
+ * Recorder, whose metrics are then kept as a sum: a profiler may be reused for any number of searches, without
+ * holding on to the Recorders of the threads which have ended.
+ * <p>
+ * A search records an iteration by taking the time at its start, and then passing it to the method of each phase,
+ * which returns the time at which the next phase starts.
+ * The search engines take a null profiler to mean that nothing is recorded, which costs (almost) nothing.
+ */
+public class SearchProfiler {
+
+    /**
+     * The accumulators of one thread.
+     * The counters are plain fields, written only by their thread: a snapshot is exact once the search has returned.
+     */
+    public static class Recorder {
+
+        /**
+         * @return the current time, to be passed as the start of the selection.
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        /**
+         * @param start the time at which the selection started.
+         * @param depth the depth of the node which it reached.
+         * @return the current time.
+         */
+        public long selection(long start, int depth) {
+            long now = System.nanoTime();
+            iterations++;
+            selectionNanos += now - start;
+            selectionDepth += depth;
+            return now;
+        }
+
+        /**
+         * @param start the time at which the expansion started.
+         * @param nodes the number of nodes which it created.
+         * @return the current time.
+         */
+        public long expansion(long start, int nodes) {
+            long now = System.nanoTime();
+            expansions++;
+            expansionNanos += now - start;
+            nodesCreated += nodes;
+            return now;
+        }
+
+        /**
+         * @param length the number of moves of a rollout.
+         */
+        public void rollout(int length) {
+            rolloutMoves += length;
+        }
+
+        /**
+         * @param start the time at which the simulation started.
+         * @return the current time.
+         */
+        public long simulation(long start) {
+            long now = System.nanoTime();
+            simulationNanos += now - start;
+            return now;
+        }
+
+        /**
+         * @param start the time at which the backpropagation started.
+         * @return the current time.
+         */
+        public long backPropagation(long start) {
+            long now = System.nanoTime();
+            backPropagationNanos += now - start;
+            return now;
+        }
+
+        private SearchMetrics metrics() {
+            return new SearchMetrics(iterations, selectionNanos, selectionDepth, expansions, expansionNanos,
+                    nodesCreated, simulationNanos, rolloutMoves, backPropagationNanos);
+        }
+
+        private void reset() {
+            iterations = selectionNanos = selectionDepth = expansions = expansionNanos = nodesCreated = 0;
+            simulationNanos = rolloutMoves = backPropagationNanos = 0;
+        }
+
+        private long iterations;
+        private long selectionNanos;
+        private long selectionDepth;
+        private long expansions;
+        private long expansionNanos;
+        private long nodesCreated;
+        private long simulationNanos;
+        private long rolloutMoves;
+        private long backPropagationNanos;
+    }
+
+    /**
+     * @return the Recorder of the calling thread.
+     */
+    public Recorder recorder() {
+        return recorders.get();
+    }
+
+    /**
+     * Method for the calling thread to release its Recorder, once it has finished recording: the metrics of the
+     * Recorder are added to those of the released Recorders, and the next call of recorder() on this thread
+     * gets a new Recorder.
+     */
+    public void release() {
+        Recorder recorder = recorders.get();
+        recorders.remove();
+        synchronized (this) {
+            released = released.plus(recorder.metrics());
+            all.remove(recorder);
+        }
+    }
+
+    /**
+     * @return the sum of the metrics recorded so far by all the threads.
+     */
+    public synchronized SearchMetrics snapshot() {
+        SearchMetrics metrics = released;
+        for (Recorder recorder : all) metrics = metrics.plus(recorder.metrics());
+        return metrics;
+    }
+
+    /**
+     * Method to discard everything recorded so far.
+     * It should not be called while a search is recording.
+     */
+    public synchronized void reset() {
+        released = SearchMetrics.EMPTY;
+        for (Recorder recorder : all) recorder.reset();
+    }
+
+    /**
+     * @return the number of Recorders which have not been released.
+     */
+    int recorders() {
+        return all.size();
+    }
+
+    private SearchMetrics released = SearchMetrics.EMPTY;     // the sum of the metrics of the released Recorders
+    private final Queue<Recorder> all = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Recorder> recorders = ThreadLocal.withInitial(() -> {
+        Recorder recorder = new Recorder();
+        all.add(recorder);
+        return recorder;
+    });
+}
@@ -5,7 +5,7 @@ import mcts.util.UnorderedIterator;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Optional;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * This interface defines the behavior of a State of a game (G).
@@ -45,10 +45,12 @@ public interface State<G extends Game> {
 
     /**
      * A random source associated with this State.
+     * It need not be thread-safe: a search which runs on several threads gives each thread its own source
+     * (see {@link RandomState#split(RandomGenerator)}) and passes it to the methods which take one.
      *
-     * @return the appropriate RandomState.
+     * @return the appropriate RandomGenerator.
      */
-    Random random();
+    RandomGenerator random();
 
     /**
      * Get the moves that can be made directly from the given state.
@@ -67,6 +69,28 @@ public interface State<G extends Game> {
      */
     State<G> next(Move<G> move);
 
+    /**
+     * Method to yield a 64-bit hash key of this State, for use by hash-keyed caches such as transposition tables.
+     * Equal States have equal keys. Implementations should update the key incrementally
+     * (e.g. by Zobrist hashing) so that it costs O(1), whatever the size of the State.
+     *
+     * @return a 64-bit key (by default, the hashCode).
+     */
+    default long zobristKey() {
+        return hashCode();
+    }
+
+    /**
+     * Method to yield a new Playout for this type of State, i.e. the optional primitive fast path for random playouts.
+     * Engines which find a Playout use it (reset to each State from which they simulate) instead of
+     * chooseMove and next, so that no objects are allocated per simulated move.
+     *
+     * @return an optional Playout (empty if this State does not support the fast path).
+     */
+    default Optional<Playout<G>> playout() {
+        return Optional.empty();
+    }
+
     /**
      * Method to yield a (random) iterator of moves for the given player.
      *
@@ -74,9 +98,20 @@ public interface State<G extends Game> {
      * @return an Iterator of moves.
      */
     default Iterator<Move<G>> moveIterator(int player) {
+        return moveIterator(player, random());
+    }
+
+    /**
+     * Method to yield a (random) iterator of moves for the given player, using the given random source.
+     *
+     * @param player the player who will be making one of the moves.
+     * @param random the random source which determines the order of the moves.
+     * @return an Iterator of moves.
+     */
+    default Iterator<Move<G>> moveIterator(int player, RandomGenerator random) {
         Collection<Move<G>> moves = moves(player);
         if (moves == null) throw new RuntimeException("moves returned null");
-        else return UnorderedIterator.createDeterministic(moves, random());
+        else return UnorderedIterator.createDeterministic(moves, random);
     }
 
     /**
@@ -87,7 +122,18 @@ public interface State<G extends Game> {
      * @return a move.
      */
     default Move<G> chooseMove(int player) {
-        Iterator<Move<G>> iterator = moveIterator(player);
+        return chooseMove(player, random());
+    }
+
+    /**
+     * Method to choose a move for the given player, using the given random source.
+     *
+     * @param player the player who will be making the move.
+     * @param random the random source of the choice.
+     * @return a move.
+     */
+    default Move<G> chooseMove(int player, RandomGenerator random) {
+        Iterator<Move<G>> iterator = moveIterator(player, random);
         if (iterator.hasNext()) return iterator.next();
         throw new RuntimeException("empty move iterator");
     }
@@ -0,0 +1,100 @@
+package mcts.core;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Class to share Nodes between all the parents whose moves lead to the same State,
+ * turning a search tree into a directed acyclic graph.
+ * The table may be used concurrently.
+ *
+ * @param <G> the type of the Game.
+ */
+public class TranspositionTable<G extends Game> {
+
+    /**
+     * Method to get the Node for the given State, creating it if there is none yet.
+     *
+     * @param state   the State (the hashCode and equals of its key define the entry).
+     * @param factory the function which creates a new Node for a key.
+     * @return the (possibly shared) Node.
+     */
+    public Node<G> lookup(State<G> state, Function<State<G>, Node<G>> factory) {
+        return nodes.computeIfAbsent(key(state), factory);
+    }
+
+    /**
+     * Method to get the key under which the Node for the given State is stored.
+     * All equivalent States (for example, the symmetries of a position) have the same key.
+     *
+     * @param state a State.
+     * @return the representative State of its equivalence class.
+     */
+    public State<G> key(State<G> state) {
+        return keys.apply(state);
+    }
+
+    /**
+     * @return a new, empty table with the same key function as this one.
+     */
+    public TranspositionTable<G> emptyCopy() {
+        return new TranspositionTable<>(keys);
+    }
+
+    /**
+     * @return the number of distinct Nodes in this table.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Method to remove all the Nodes from this table.
+     */
+    public void clear() {
+        nodes.clear();
+    }
+
+    /**
+     * Method to remove all the Nodes which are not reachable from the given Node (for example, a new root),
+     * so that they may be garbage-collected.
+     *
+     * @param root the Node whose descendants are kept.
+     */
+    public void retain(Node<G> root) {
+        Set<Node<G>> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node<G>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<G> node = stack.pop();
+            if (reachable.add(node)) for (Node<G> child : node.children()) stack.push(child);
+        }
+        nodes.values().removeIf(node -> !reachable.contains(node));
+    }
+
+    /**
+     * Constructor for a table in which equivalent States share a Node.
+     *
+     * @param keys the function which maps a State to the representative State of its equivalence class.
+     */
+    public TranspositionTable(UnaryOperator<State<G>> keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Constructor for a table in which only equal States share a Node.
+     */
+    public TranspositionTable() {
+        this(UnaryOperator.identity());
+    }
+
+    private final Map<State<G>, Node<G>> nodes = new ConcurrentHashMap<>();
+    private final UnaryOperator<State<G>> keys;
+}
@@ -0,0 +1,197 @@
+package mcts.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * Class to run a tree-parallel Monte Carlo Tree Search, in which several threads search one shared tree.
+ * Statistics are updated atomically by the nodes, each node is expanded exactly once,
+ * and a virtual loss is applied to every node on a thread's path so that other threads
+ * tend to spread across its siblings.
+ * Each thread has its own random source, split off that of the root's State, for its expansions and rollouts.
+ *
+ * @param <G> the type of the Game.
+ */
+public class TreeParallelSearch<G extends Game> {
+
+    /**
+     * Run the given number of iterations, shared dynamically between the given number of threads.
+     *
+     * @param iterations the total number of iterations.
+     * @param threads    the number of threads.
+     */
+    public void run(int iterations, int threads) {
+        if (threads < 1) throw new RuntimeException("TreeParallelSearch: threads must be positive: " + threads);
+        AtomicInteger remaining = new AtomicInteger(iterations);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            RandomGenerator random = RandomState.split(root.state().random());
+            tasks.add(() -> {
+                Playout<G> playout = root.state().playout().orElse(null);   // one scratch copy per thread
+                SearchProfiler.Recorder recorder = profiler == null ? null : profiler.recorder();
+                while (remaining.getAndDecrement() > 0) iterate(playout, random, recorder);
+                if (profiler != null) profiler.release();      // the threads of the pool end with the search
+                return null;
+            });
+        }
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            for (Future<Void> future : pool.invokeAll(tasks)) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("TreeParallelSearch: interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("TreeParallelSearch: worker failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of nodes created by the expansions of this search.
+     */
+    public long nodesCreated() {
+        return created.sum();
+    }
+
+    /**
+     * One iteration of selection, expansion, simulation and backpropagation.
+     *
+     * @param playout  this thread's Playout, or null if the states have no fast path.
+     * @param random   this thread's random source.
+     * @param recorder this thread's Recorder, or null.
+     */
+    private void iterate(Playout<G> playout, RandomGenerator random, SearchProfiler.Recorder recorder) {
+        long lap = recorder == null ? 0 : recorder.start();
+        // 1. SELECTION (with virtual loss), down to a terminal node or to a node which has not been expanded
+        List<ConcurrentNode<G>> path = new ArrayList<>();
+        int[] edges = new int[EDGES];   // edges[k] is the index of path[k+1] among the children of path[k]
+        ConcurrentNode<G> node = root;
+        node.addVirtualLoss(virtualLoss);
+        path.add(node);
+        while (!node.isLeaf() && node.expanded()) {
+            int edge = selectUCT(node);
+            if (path.size() > edges.length) edges = Arrays.copyOf(edges, 2 * edges.length);
+            edges[path.size() - 1] = edge;
+            node.recordEdgePlayouts(edge, virtualLoss);
+            node = (ConcurrentNode<G>) node.child(edge);
+            node.addVirtualLoss(virtualLoss);
+            path.add(node);
+        }
+        if (recorder != null) lap = recorder.selection(lap, path.size() - 1);
+
+        // 2. EXPANSION (if another thread has just expanded this node, we simulate from the node itself)
+        if (!node.isLeaf() && node.exploreOnce(random)) {
+            created.add(node.children().size());
+            if (recorder != null) lap = recorder.expansion(lap, node.children().size());
+            if (path.size() > edges.length) edges = Arrays.copyOf(edges, 2 * edges.length);
+            edges[path.size() - 1] = 0;
+            node.recordEdgePlayouts(0, virtualLoss);
+            node = (ConcurrentNode<G>) node.child(0);
+            node.addVirtualLoss(virtualLoss);
+            path.add(node);
+        }
+
+        // 3. SIMULATION
+        int result = simulate(node.state(), playout, random, recorder);
+        if (recorder != null) lap = recorder.simulation(lap);
+
+        // 4. BACKPROPAGATION (removing the virtual loss), and each edge taken, in case nodes are shared
+        for (int k = 0; k < path.size(); k++) {
+            path.get(k).recordResult(result, virtualLoss);
+            if (k < path.size() - 1) path.get(k).recordEdgePlayouts(edges[k], 1 - virtualLoss);
+        }
+        if (recorder != null) recorder.backPropagation(lap);
+    }
+
+    /**
+     * Select the child of 'node' with the highest UCT value, as MCTS.selectUCT does:
+     * the exploitation term uses the child's own statistics, and the exploration term the playouts through
+     * the edge from 'node' (which, in a DAG, may be fewer than the child's playouts).
+     * The virtual losses count in both.
+     *
+     * @return the index of the selected child.
+     */
+    int selectUCT(ConcurrentNode<G> node) {
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double parentPlayouts = node.playouts();
+        for (int i = 0; i < node.children().size(); i++) {
+            Node<G> child = node.child(i);
+            double childPlayouts = child.playouts();
+            double edgePlayouts = node.edgePlayouts(i);
+            double uctValue = childPlayouts == 0 || edgePlayouts == 0 ? Double.POSITIVE_INFINITY :
+                    child.wins() / childPlayouts + Cp * Math.sqrt(Math.log(parentPlayouts) / edgePlayouts);
+            if (uctValue > bestValue) {
+                bestValue = uctValue;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private int simulate(State<G> s, Playout<G> playout, RandomGenerator random, SearchProfiler.Recorder recorder) {
+        RolloutEvent event = new RolloutEvent();
+        event.begin();
+        int length = 0;
+        int winner;
+        if (playout != null) {
+            playout.reset(s, random);
+            for (; !playout.isTerminal(); length++) playout.play(playout.randomMove());
+            winner = playout.winner();
+        } else {
+            State<G> cur = s;
+            for (; !cur.isTerminal(); length++) cur = cur.next(cur.chooseMove(cur.player(), random));
+            winner = cur.winner().orElse(-1);
+        }
+        if (recorder != null) recorder.rollout(length);
+        event.report(game, length, winner);
+        return winner;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param root        the (shared) root of the tree.
+     * @param Cp          the exploration constant.
+     * @param virtualLoss the number of (losing) playouts temporarily added to each node on a thread's path.
+     */
+    public TreeParallelSearch(ConcurrentNode<G> root, double Cp, int virtualLoss) {
+        this(root, Cp, virtualLoss, null);
+    }
+
+    /**
+     * Constructor for a search which records the time and statistics of its phases.
+     *
+     * @param root        the (shared) root of the tree.
+     * @param Cp          the exploration constant.
+     * @param virtualLoss the number of (losing) playouts temporarily added to each node on a thread's path.
+     * @param profiler    the SearchProfiler (each thread records into its own Recorder), or null.
+     */
+    public TreeParallelSearch(ConcurrentNode<G> root, double Cp, int virtualLoss, SearchProfiler profiler) {
+        this.root = root;
+        this.Cp = Cp;
+        this.virtualLoss = virtualLoss;
+        this.profiler = profiler;
+        this.game = root.state().game().getClass().getSimpleName();
+    }
+
+    /**
+     * The default virtual loss.
+     */
+    public static final int VIRTUAL_LOSS = 1;
+
+    private static final int EDGES = 16;    // the initial length of the edges of a path (which grows if need be)
+
+    private final ConcurrentNode<G> root;
+    private final double Cp;
+    private final int virtualLoss;
+    private final SearchProfiler profiler;
+    private final String game;      // the name of the game in the RolloutEvents
+    private final LongAdder created = new LongAdder();
+}
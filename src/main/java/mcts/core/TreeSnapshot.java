@@ -0,0 +1,230 @@
+package mcts.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * A snapshot of a searched tree: the statistics of its nodes and the moves of its edges, in a compact binary file,
+ * so that a later search can start from a pre-warmed root.
+ * <p>
+ * The file is a header (MAGIC, VERSION, the Zobrist key of the root's State, the number of nodes and the CRC32
+ * of the records), followed by one fixed-size record per node, in breadth-first order, so that the children of
+ * a node are consecutive: wins, playouts, the code of the move on the edge from its parent (see MoveCodec),
+ * the index of its first child and the number of its children (0 if it was not expanded).
+ * <p>
+ * A snapshot is opened by mapping the file into memory and checking its CRC32; nothing else is read until
+ * a node is needed. A node loaded from a snapshot (e.g. by TicTacToeNode.fromSnapshot) takes its statistics from
+ * its record, and its children are loaded from the snapshot (rather than explored) when it is first expanded;
+ * a node which was not expanded in the snapshot is explored as usual.
+ * Proofs (of the solver) are not saved: they are found again as the search visits the nodes.
+ *
+ * @param <G> the type of the Game.
+ */
+public class TreeSnapshot<G extends Game> {
+
+    /**
+     * The encoding of the moves of a Game as ints, for the edges of a snapshot.
+     *
+     * @param <G> the type of the Game.
+     */
+    public interface MoveCodec<G extends Game> {
+        /**
+         * @param move a Move.
+         * @return its code.
+         */
+        int encode(Move<G> move);
+
+        /**
+         * @param state the State from which the Move is made.
+         * @param code  the code of the Move.
+         * @return the Move.
+         */
+        Move<G> decode(State<G> state, int code);
+    }
+
+    /**
+     * Method to write a snapshot of a tree.
+     * The tree is checked (and its moves encoded) before anything is written; the snapshot is then written to
+     * a temporary file next to 'file', which replaces 'file' (atomically) only once it is complete, so that
+     * a failed write leaves the previous snapshot (if any) as it was.
+     *
+     * @param root  the root of the tree (its nodes must not be shared, and its edges must have moves).
+     * @param codec the encoding of the moves.
+     * @param file  the file to write.
+     * @param <G>   the type of the Game.
+     * @return the number of nodes written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <G extends Game> int write(Node<G> root, MoveCodec<G> codec, Path file) throws IOException {
+        List<Node<G>> nodes = new ArrayList<>();
+        Set<Node<G>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        nodes.add(root);
+        seen.add(root);
+        for (int i = 0; i < nodes.size(); i++)
+            for (Node<G> child : nodes.get(i).children()) {
+                if (!seen.add(child)) throw new RuntimeException("TreeSnapshot: the search graph is not a tree");
+                nodes.add(child);
+            }
+        long length = HEADER + (long) RECORD * nodes.size();
+        if (length > Integer.MAX_VALUE)
+            throw new RuntimeException("TreeSnapshot: the tree is too large for a snapshot: " + nodes.size() + " nodes ("
+                    + length + " bytes, at most " + Integer.MAX_VALUE + ")");
+
+        int[] moves = new int[nodes.size()];
+        moves[0] = -1;
+        int next = 1;
+        for (Node<G> node : nodes) {
+            int children = node.children().size();
+            for (int c = 0; c < children; c++) {
+                Move<G> move = node.move(c);
+                if (move == null) throw new RuntimeException("TreeSnapshot: no move on edge " + c + " of " + node);
+                moves[next + c] = codec.encode(move);
+            }
+            next += children;
+        }
+
+        int size = (int) length;
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(MAGIC).putInt(VERSION).putLong(root.state().zobristKey()).putInt(nodes.size()).putInt(0);
+                next = 1;
+                for (int i = 0; i < nodes.size(); i++) {
+                    Node<G> node = nodes.get(i);
+                    int children = node.children().size();
+                    buffer.putInt(node.wins()).putInt(node.playouts()).putInt(moves[i]).putInt(next).putInt(children);
+                    next += children;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(HEADER, size - HEADER));
+                buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+                buffer.force();
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return nodes.size();
+    }
+
+    /**
+     * Method to open a snapshot by mapping its file into memory.
+     *
+     * @param file  the file written by write.
+     * @param codec the encoding of the moves (the same as for write).
+     * @param <G>   the type of the Game.
+     * @return a TreeSnapshot.
+     * @throws IOException if the file cannot be read, if it is not a snapshot of this version, or if its CRC32
+     *                     does not match its records.
+     */
+    public static <G extends Game> TreeSnapshot<G> open(Path file, MoveCodec<G> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER || size > Integer.MAX_VALUE) throw new IOException("not a tree snapshot: " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("not a tree snapshot (version " + VERSION + "): " + file);
+            int nodes = buffer.getInt(NODES_OFFSET);
+            if (nodes < 1 || size != HEADER + (long) RECORD * nodes)
+                throw new IOException("truncated tree snapshot: " + file);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER, (int) size - HEADER));
+            if ((int) crc.getValue() != buffer.getInt(CRC_OFFSET))
+                throw new IOException("corrupt tree snapshot (CRC32 mismatch): " + file);
+            return new TreeSnapshot<>(buffer, nodes, codec);
+        }
+    }
+
+    /**
+     * @return the number of nodes of this snapshot (the root is node 0).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method to check that a State is that of the root of this snapshot (by its Zobrist key).
+     *
+     * @param state a State.
+     */
+    public void checkRoot(State<G> state) {
+        if (state.zobristKey() != buffer.getLong(KEY_OFFSET))
+            throw new RuntimeException("TreeSnapshot: the snapshot was not taken from " + state);
+    }
+
+    /**
+     * @param node the index of a node.
+     * @return its wins.
+     */
+    public int wins(int node) {
+        return buffer.getInt(offset(node));
+    }
+
+    /**
+     * @param node the index of a node.
+     * @return its playouts.
+     */
+    public int playouts(int node) {
+        return buffer.getInt(offset(node) + 4);
+    }
+
+    /**
+     * @param parent the State of the parent of a node.
+     * @param node   the index of the node (not the root).
+     * @return the Move on the edge from the parent to the node.
+     */
+    public Move<G> move(State<G> parent, int node) {
+        return codec.decode(parent, buffer.getInt(offset(node) + 8));
+    }
+
+    /**
+     * @param node the index of a node.
+     * @return the index of its first child (its children are consecutive).
+     */
+    public int firstChild(int node) {
+        return buffer.getInt(offset(node) + 12);
+    }
+
+    /**
+     * @param node the index of a node.
+     * @return the number of its children (0 if it was not expanded).
+     */
+    public int childCount(int node) {
+        return buffer.getInt(offset(node) + 16);
+    }
+
+    private static int offset(int node) {
+        return HEADER + RECORD * node;
+    }
+
+    private TreeSnapshot(ByteBuffer buffer, int size, MoveCodec<G> codec) {
+        this.buffer = buffer;
+        this.size = size;
+        this.codec = codec;
+    }
+
+    static final int MAGIC = 0x4D435453;    // "MCTS"
+    static final int VERSION = 1;
+    static final int KEY_OFFSET = 8;
+    static final int NODES_OFFSET = 16;
+    static final int CRC_OFFSET = 20;
+    static final int HEADER = 24;
+    static final int RECORD = 20;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final MoveCodec<G> codec;
+}
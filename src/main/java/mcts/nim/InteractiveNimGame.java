@@ -1,8 +1,11 @@
 package mcts.nim;
 
 import mcts.core.Move;
+import mcts.core.MoveEvent;
 import mcts.core.State;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -10,12 +13,13 @@ import java.util.Scanner;
 
 /**
  * Interactive Nim driver: Human vs AI or AI vs Human or Human vs Human.
+ * If the opening book (see NimBook) has been built, the AI answers the positions of the book without searching.
  */
 public class InteractiveNimGame {
 
     private enum PlayerType { HUMAN, AI }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Scanner scanner = new Scanner(System.in);
 
         // Choose control for player 0 and player 1
@@ -33,28 +37,34 @@ public class InteractiveNimGame {
         NimGame game = new NimGame(piles);
         State<NimGame> state = game.start();
         int currentPlayer = game.opener();
+        // one search for the whole game: its root follows the moves played, keeping the relevant statistics
+        NimMCTS mcts = new NimMCTS(new NimNode(state), Math.sqrt(2));
+        if (Files.exists(NimBook.FILE)) mcts.setOpeningBook(NimBook.open(NimBook.FILE));
 
         // Main game loop
         while (!state.isTerminal()) {
             System.out.println("\nCurrent state: " + state);
 
+            // each move (the human's input, or the search) is reported to the flight recorder
+            MoveEvent event = new MoveEvent();
+            event.begin();
             Move<NimGame> move;
             PlayerType type = (currentPlayer == 0 ? p0 : p1);
             if (type == PlayerType.HUMAN) {
                 move = humanMove(scanner, state, currentPlayer);
             } else {
-                System.out.println("AI is thinking...");
+                System.out.printf("AI is thinking... (reusing %d playouts)\n", mcts.root().playouts());
                 // Run MCTS
-                NimNode root = new NimNode(state);
-                NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
-                mcts.runSearch(5_000);
+                int iterations = mcts.runSearch(5_000);
                 move = mcts.bestMove();
                 NimMove nm = (NimMove) move;
-                System.out.printf("AI plays: remove %d from pile %d\n",
+                System.out.printf(iterations == 0 ? "AI plays from the book: remove %d from pile %d\n" :
+                                "AI plays: remove %d from pile %d\n",
                         nm.getRemoveCount(), nm.getPileIndex());
             }
 
             state = state.next(move);
+            event.report(NimMCTS.GAME, currentPlayer, type == PlayerType.HUMAN, move, mcts.advance(move));
             currentPlayer = state.player();
         }
 
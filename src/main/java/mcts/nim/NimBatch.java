@@ -0,0 +1,100 @@
+package mcts.nim;
+
+import mcts.core.Node;
+import mcts.core.State;
+import mcts.util.BatchPipeline;
+import mcts.util.Zobrist;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.ToIntFunction;
+
+/**
+ * Batch analysis of Nim positions: each line of the input is a list of pile sizes (e.g. {@code 3 4 5} or
+ * {@code 3,4,5}), searched by NimMCTS with player 0 to move; one JSON object per position is written
+ * (see BatchPipeline), with the best move as [pile, count], the visits (and the value) of each move,
+ * and the iterations of the search.
+ */
+public class NimBatch {
+
+    /** The default iterations of each search. */
+    public static final int BUDGET = 10_000;
+
+    /**
+     * Analyzes the positions of the input file and writes them to the output file ("-", the default, for the
+     * standard input or output), with the given iterations per search (BUDGET) and workers (one per processor).
+     */
+    public static void main(String[] args) throws IOException {
+        int budget = args.length > 2 ? Integer.parseInt(args[2]) : BUDGET;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        try (BufferedReader input = BatchPipeline.input(args.length > 0 ? args[0] : "-");
+             Writer output = BatchPipeline.output(args.length > 1 ? args[1] : "-")) {
+            BatchPipeline.Totals totals = new BatchPipeline(workers, BatchPipeline.CAPACITY_PER_WORKER * workers)
+                    .run(input, output, line -> analyze(line, budget));
+            System.err.printf("Analyzed %d positions (%d errors) in %.1f s: %.1f positions/s%n",
+                    totals.positions(), totals.errors(), totals.nanos() / 1e9, totals.throughput());
+        }
+    }
+
+    /**
+     * Analyzes a position, in a game of its own seeded by the position (so that the result does not depend on the
+     * worker, nor on the run); throws IllegalArgumentException if the line is not a list of pile sizes.
+     */
+    public static Map<String, Object> analyze(String line, int budget) {
+        return analyze(line, mcts -> mcts.runSearch(budget));
+    }
+
+    /** Analyzes a position as above, with a time limit for the search (e.g. for a request to the MoveServer). */
+    public static Map<String, Object> analyze(String line, Duration timeLimit) {
+        return analyze(line, mcts -> mcts.runSearch(timeLimit));
+    }
+
+    private static Map<String, Object> analyze(String line, ToIntFunction<NimMCTS> search) {
+        int[] piles = parse(line);
+        // seeded by the key of the start State (at which player 1 has moved last)
+        State<NimGame> state = new NimGame(new SplittableRandom(Zobrist.mix(NimState.zobrist(piles, 1))), piles).start();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("piles", piles);
+        if (state.isTerminal()) {
+            result.put("terminal", true);
+            return result;
+        }
+        NimNode root = new NimNode(state);
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        result.put("iterations", search.applyAsInt(mcts));
+        result.put("move", move((NimMove) mcts.bestMove()));
+        List<Map<String, Object>> visits = new ArrayList<>();
+        for (int i = 0; i < root.children().size(); i++) {
+            Node<NimGame> child = root.child(i);
+            Map<String, Object> edge = new LinkedHashMap<>();
+            edge.put("move", move((NimMove) root.move(i)));
+            edge.put("visits", child.playouts());
+            edge.put("value", child.playouts() == 0 ? null : child.wins() / (2.0 * child.playouts()));
+            visits.add(edge);
+        }
+        result.put("visits", visits);
+        return result;
+    }
+
+    /** The pile sizes of a line (separated by spaces or commas). */
+    static int[] parse(String line) {
+        String[] tokens = line.trim().split("[\\s,]+");
+        int[] piles = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            piles[i] = Integer.parseInt(tokens[i]);
+            if (piles[i] < 0) throw new IllegalArgumentException("negative pile: " + line);
+        }
+        return piles;
+    }
+
+    private static int[] move(NimMove move) {
+        return new int[]{move.getPileIndex(), move.getRemoveCount()};
+    }
+}
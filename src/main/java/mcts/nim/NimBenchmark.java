@@ -1,11 +1,26 @@
 package mcts.nim;
 
+import mcts.core.EarlyStop;
 import mcts.core.Move;
+import mcts.core.Node;
+import mcts.core.NodeArena;
+import mcts.core.Proof;
+import mcts.core.SearchProfiler;
 import mcts.core.State;
+import mcts.core.TreeSnapshot;
+import mcts.util.BenchmarkGrid;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 
 /**
  * Benchmarking harness for Nim MCTS.
@@ -16,67 +31,91 @@ public class NimBenchmark {
     private static final double[] CPS = {0.5, 1, Math.sqrt(2), 2.0};
     private static final int GAMES_PER_SETTING = 1000;
     private static final int STABILITY_RUNS = 50;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+    private static final int[] TIME_LIMITS_MS = {1, 10, 50};
+    private static final long SEED = 20_250_101L;
 
     // Example initial piles for the benchmark
     private static final int[] INITIAL_PILES = {3, 4, 5};
+    private static final int[][] SOLVER_PILES = {{1, 2, 4}, {2, 3, 5}, {3, 4, 5}};
+    private static final int SOLVER_BUDGET = 1 << 17;
+    private static final int SOLVER_RUNS = 20;
+    private static final int[][] EVALUATOR_PILES = {{3, 4, 5}, {10, 20, 25}, {100, 200, 300}};
+    private static final int EVALUATOR_BUDGET = 1 << 12;
+    private static final int[] SNAPSHOT_PILES = {10, 20, 25};
+    private static final int[] SNAPSHOT_BUDGETS = {1_000, 10_000, 100_000};
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("=== Nim MCTS Benchmark ===");
         benchmarkWinRates();
         benchmarkStability();
         benchmarkPlayoutTiming(10_000);
+        benchmarkTreeParallelScaling(100_000);
+        benchmarkNodeArena(100_000);
+        benchmarkTimeLimit();
+        benchmarkPhases(100_000);
+        benchmarkSolver();
+        benchmarkLeafEvaluator();
+        benchmarkSnapshot();
     }
 
     /**
      * Run MCTS vs. random over varying budgets and Cp values.
+     * Searches stop early once their move can no longer change (EarlyStop.VISIT_LEAD); the average share of the
+     * budget actually used is reported.
+     * The games run in parallel with seeds derived from (setting, game), so the outcomes are reproducible.
      */
     private static void benchmarkWinRates() {
         System.out.println("\n-- Win/Draw/Loss vs Random (Nim) --");
-        System.out.println("Budget\tCp\tWins\tDraws\tLosses\tAvgMoveTime(ms)");
-        for (int budget : BUDGETS) {
-            for (double cp : CPS) {
-                int wins = 0, draws = 0, losses = 0;
-                long totalMoveTime = 0;
-                long totalMoves = 0;
-                for (int g = 0; g < GAMES_PER_SETTING; g++) {
-                    NimGame game = new NimGame(INITIAL_PILES);
-                    State<NimGame> state = game.start();
-                    int player = game.opener();
-
-                    while (!state.isTerminal()) {
-                        if (player == game.opener()) {
-                            // MCTS move
-                            NimNode root = new NimNode(state);
-                            NimMCTS mcts = new NimMCTS(root, cp);
-                            long t0 = System.nanoTime();
-                            mcts.runSearch(budget);
-                            Move<NimGame> move = mcts.bestMove();
-                            long t1 = System.nanoTime();
-                            totalMoveTime += (t1 - t0);
-                            totalMoves++;
-                            state = state.next(move);
-                        } else {
-                            // random move
-                            Move<NimGame> move = state.chooseMove(player);
-                            state = state.next(move);
-                        }
-                        player = state.player();
+        new BenchmarkGrid("nim-win-rates", SEED).run(settings(), GAMES_PER_SETTING,
+                NimBenchmark::playGame,
+                (setting, games) -> {
+                    int wins = 0, draws = 0, losses = 0;
+                    long totalMoveTime = 0, totalMoves = 0, totalIterations = 0;
+                    for (GameResult game : games) {
+                        if (game.winner() < 0) draws++;
+                        else if (game.winner() == game.opener()) wins++;
+                        else losses++;
+                        totalMoveTime += game.moveTime();
+                        totalMoves += game.moves();
+                        totalIterations += game.iterations();
                     }
+                    return new Object[]{setting.budget(), setting.cp(), wins, draws, losses,
+                            (totalMoveTime / 1e6) / (double) totalMoves,
+                            100.0 * totalIterations / ((double) setting.budget() * totalMoves)};
+                },
+                "Budget", "Cp", "Wins", "Draws", "Losses", "AvgMoveTime(ms)", "BudgetUsed%");
+    }
 
-                    Optional<Integer> winner = state.winner();
-                    if (winner.isEmpty()) {
-                        draws++;
-                    } else if (winner.get() == game.opener()) {
-                        wins++;
-                    } else {
-                        losses++;
-                    }
-                }
-                double avgMoveMs = (totalMoveTime / 1e6) / (double) totalMoves;
-                System.out.printf("%d\t%.2f\t%d\t%d\t%d\t%.3f%n",
-                        budget, cp, wins, draws, losses, avgMoveMs);
+    /** One game: MCTS plays the opener, against random moves. */
+    private static GameResult playGame(Setting setting, long seed) {
+        NimGame game = new NimGame(new SplittableRandom(seed), INITIAL_PILES);
+        State<NimGame> state = game.start();
+        int player = game.opener();
+        long moveTime = 0, iterations = 0;
+        int moves = 0;
+
+        while (!state.isTerminal()) {
+            if (player == game.opener()) {
+                // MCTS move
+                NimNode root = new NimNode(state);
+                NimMCTS mcts = new NimMCTS(root, setting.cp());
+                mcts.setEarlyStop(EarlyStop.VISIT_LEAD);
+                long t0 = System.nanoTime();
+                iterations += mcts.runSearch(setting.budget());
+                Move<NimGame> move = mcts.bestMove();
+                long t1 = System.nanoTime();
+                moveTime += (t1 - t0);
+                moves++;
+                state = state.next(move);
+            } else {
+                // random move
+                Move<NimGame> move = state.chooseMove(player);
+                state = state.next(move);
             }
+            player = state.player();
         }
+        return new GameResult(game.opener(), state.winner().orElse(-1), moves, moveTime, iterations);
     }
 
     /**
@@ -84,30 +123,37 @@ public class NimBenchmark {
      */
     private static void benchmarkStability() {
         System.out.println("\n-- Opening‐Move Stability (Nim) --");
-        System.out.println("Budget\tCp\tMostCommonMove\tFreq%");
-        NimGame game = new NimGame(INITIAL_PILES);
-        State<NimGame> rootState = game.start();
-
-        for (int budget : BUDGETS) {
-            for (double cp : CPS) {
-                Map<String, Integer> counts = new HashMap<>();
-                for (int run = 0; run < STABILITY_RUNS; run++) {
-                    NimNode root = new NimNode(rootState);
-                    NimMCTS mcts = new NimMCTS(root, cp);
-                    mcts.runSearch(budget);
-                    Move<NimGame> m = mcts.bestMove();
-                    String key = m.toString();
-                    counts.merge(key, 1, Integer::sum);
-                }
-                // find most common
-                String bestMove = counts.entrySet().stream()
-                        .max(Map.Entry.comparingByValue())
-                        .map(Map.Entry::getKey).orElse("?");
-                int freq = counts.getOrDefault(bestMove, 0);
-                double pct = 100.0 * freq / STABILITY_RUNS;
-                System.out.printf("%d\t%.2f\t%s\t%.1f%%%n", budget, cp, bestMove, pct);
-            }
-        }
+        new BenchmarkGrid("nim-stability", SEED).run(settings(), STABILITY_RUNS,
+                (setting, seed) -> {
+                    NimNode root = new NimNode(new NimGame(new SplittableRandom(seed), INITIAL_PILES).start());
+                    NimMCTS mcts = new NimMCTS(root, setting.cp());
+                    mcts.runSearch(setting.budget());
+                    return mcts.bestMove().toString();
+                },
+                (setting, moves) -> {
+                    Map<String, Integer> counts = new LinkedHashMap<>();
+                    for (String move : moves) counts.merge(move, 1, Integer::sum);
+                    // find most common
+                    String bestMove = counts.entrySet().stream()
+                            .max(Map.Entry.comparingByValue())
+                            .map(Map.Entry::getKey).orElse("?");
+                    int freq = counts.getOrDefault(bestMove, 0);
+                    return new Object[]{setting.budget(), setting.cp(), bestMove, 100.0 * freq / STABILITY_RUNS};
+                },
+                "Budget", "Cp", "MostCommonMove", "Freq%");
+    }
+
+    /** The cells of the win-rate and stability grids. */
+    private static List<Setting> settings() {
+        List<Setting> settings = new ArrayList<>();
+        for (int budget : BUDGETS) for (double cp : CPS) settings.add(new Setting(budget, cp));
+        return settings;
+    }
+
+    private record Setting(int budget, double cp) {
+    }
+
+    private record GameResult(int opener, int winner, int moves, long moveTime, long iterations) {
     }
 
     /**
@@ -133,4 +179,263 @@ public class NimBenchmark {
         double avgUs = (totalTime / 1e3) / (double) (budget * REPS);
         System.out.printf("%d\t%.3f%n", budget, avgUs);
     }
+
+    /**
+     * Scaling: throughput of the tree-parallel search for varying numbers of threads.
+     */
+    private static void benchmarkTreeParallelScaling(int budget) {
+        System.out.println("\n-- Tree-Parallel Scaling (Nim) --");
+        System.out.println("Threads\tIterations/s\tSpeedup");
+        // warm-up
+        new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2)).runConcurrentSearch(budget, 2);
+
+        final int REPS = 10;
+        double baseline = 0;
+        for (int threads : THREADS) {
+            long totalTime = 0;
+            for (int i = 0; i < REPS; i++) {
+                NimMCTS mcts = new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2));
+                long t0 = System.nanoTime();
+                mcts.runConcurrentSearch(budget, threads);
+                long t1 = System.nanoTime();
+                totalTime += (t1 - t0);
+            }
+            double throughput = (double) budget * REPS / (totalTime / 1e9);
+            if (baseline == 0) baseline = throughput;
+            System.out.printf("%d\t%.0f\t%.2f%n", threads, throughput, throughput / baseline);
+        }
+    }
+
+    /**
+     * Node storage: throughput and footprint of NimNode objects versus a (reused) NodeArena.
+     * The object tree's bytes per node is estimated from the growth of the heap during a search.
+     */
+    private static void benchmarkNodeArena(int budget) {
+        System.out.println("\n-- Node Arena (Nim) --");
+        System.out.println("Storage\tNodes\tBytes/node\tIterations/s");
+        final int REPS = 10;
+        // warm-up
+        new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2)).runSearch(budget);
+        long totalTime = 0, totalNodes = 0, totalBytes = 0;
+        for (int i = 0; i < REPS; i++) {
+            long before = usedHeap();
+            NimNode root = new NimNode(new NimGame(INITIAL_PILES).start());
+            NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+            long t0 = System.nanoTime();
+            mcts.runSearch(budget);
+            long t1 = System.nanoTime();
+            totalTime += (t1 - t0);
+            totalBytes += usedHeap() - before;
+            totalNodes += countNodes(root);
+        }
+        System.out.printf("Objects\t%d\t%.1f\t%.0f%n", totalNodes / REPS, (double) totalBytes / totalNodes,
+                (double) budget * REPS / (totalTime / 1e9));
+
+        NodeArena arena = new NodeArena();
+        new NimMCTS(new NimGame(INITIAL_PILES).start(), arena, Math.sqrt(2)).runSearch(budget); // warm-up
+        totalTime = 0;
+        totalNodes = 0;
+        for (int i = 0; i < REPS; i++) {
+            NimMCTS mcts = new NimMCTS(new NimGame(INITIAL_PILES).start(), arena, Math.sqrt(2));
+            long t0 = System.nanoTime();
+            mcts.runSearch(budget);
+            long t1 = System.nanoTime();
+            totalTime += (t1 - t0);
+            totalNodes += arena.size();
+        }
+        System.out.printf("Arena\t%d\t%.1f\t%.0f%n", totalNodes / REPS, arena.bytesPerNode(),
+                (double) budget * REPS / (totalTime / 1e9));
+    }
+
+    /**
+     * Anytime search: the iterations completed within a time limit, compared with the throughput of a search for
+     * the same number of iterations, and the cost of reading the clock.
+     */
+    private static void benchmarkTimeLimit() {
+        System.out.println("\n-- Time-Limited Search (Nim) --");
+        final int CLOCK_READS = 10_000_000;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < CLOCK_READS; i++) System.nanoTime();
+        long t1 = System.nanoTime();
+        double clockNs = (double) (t1 - t0) / CLOCK_READS;
+        System.out.printf("Clock read: %.1f ns (%.2f ns per iteration)%n", clockNs, clockNs / NimMCTS.CLOCK_CHECK_INTERVAL);
+        System.out.println("Limit(ms)\tIterations\tElapsed(ms)\tIterations/s\tFixedIterations/s");
+        // warm-up
+        new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2)).runSearch(Duration.ofMillis(100));
+
+        final int REPS = 20;
+        for (int limit : TIME_LIMITS_MS) {
+            long totalIterations = 0, totalTime = 0, fixedTime = 0;
+            for (int i = 0; i < REPS; i++) {
+                NimMCTS mcts = new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2));
+                t0 = System.nanoTime();
+                int iterations = mcts.runSearch(Duration.ofMillis(limit));
+                t1 = System.nanoTime();
+                totalIterations += iterations;
+                totalTime += (t1 - t0);
+
+                NimMCTS fixed = new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2));
+                t0 = System.nanoTime();
+                fixed.runSearch(iterations);
+                t1 = System.nanoTime();
+                fixedTime += (t1 - t0);
+            }
+            System.out.printf("%d\t%d\t%.2f\t%.0f\t%.0f%n", limit, totalIterations / REPS, totalTime / 1e6 / REPS,
+                    totalIterations / (totalTime / 1e9), totalIterations / (fixedTime / 1e9));
+        }
+    }
+
+    /**
+     * Phases: where the time of a search goes (sequential, and tree-parallel with 4 threads), as recorded by a
+     * SearchProfiler, and the cost of recording.
+     */
+    private static void benchmarkPhases(int budget) {
+        System.out.println("\n-- Search Phases (Nim) --");
+        // warm-up
+        NimMCTS warm = new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2));
+        warm.setProfiler(new SearchProfiler());
+        warm.runSearch(budget);
+
+        SearchProfiler profiler = new SearchProfiler();
+        NimMCTS mcts = new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2));
+        mcts.setProfiler(profiler);
+        long t0 = System.nanoTime();
+        mcts.runSearch(budget);
+        long t1 = System.nanoTime();
+        System.out.println("Sequential: " + profiler.snapshot());
+
+        NimMCTS plain = new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2));
+        long t2 = System.nanoTime();
+        plain.runSearch(budget);
+        long t3 = System.nanoTime();
+        System.out.printf("Recording overhead: %.1f%%%n", 100.0 * ((t1 - t0) - (t3 - t2)) / (t3 - t2));
+
+        profiler.reset();
+        NimMCTS concurrent = new NimMCTS(new NimNode(new NimGame(INITIAL_PILES).start()), Math.sqrt(2));
+        concurrent.setProfiler(profiler);
+        concurrent.runConcurrentSearch(budget, 4);
+        System.out.println("Tree-parallel (4 threads): " + profiler.snapshot());
+    }
+
+    /**
+     * Solver: the iterations after which the best move is (and stays) a winning one, according to the NimOracle,
+     * with and without the MCTS-Solver, and the iterations after which the solver proves the root
+     * (which stops its search). The move is checked after 1, 2, 4, ... iterations, up to SOLVER_BUDGET;
+     * the medians over the seeds are reported ("-" if not reached in at least half of the runs).
+     */
+    private static void benchmarkSolver() {
+        System.out.println("\n-- Solver (Nim) --");
+        List<SolverSetting> settings = new ArrayList<>();
+        for (int[] piles : SOLVER_PILES)
+            for (boolean solver : new boolean[]{false, true})
+                settings.add(new SolverSetting(piles, solver, false, SOLVER_BUDGET));
+        runSolverGrid("nim-solver", settings);
+    }
+
+    /**
+     * Leaf evaluator: the same measurements, with and without the NimOracle as the leaf evaluator (so that no rollout
+     * is played), for larger piles, together with the average time per iteration.
+     * The budget is smaller, since a search with rollouts expands a new node (with all its children) per iteration.
+     */
+    private static void benchmarkLeafEvaluator() {
+        System.out.println("\n-- Leaf Evaluator (Nim) --");
+        List<SolverSetting> settings = new ArrayList<>();
+        for (int[] piles : EVALUATOR_PILES)
+            for (boolean oracle : new boolean[]{false, true})
+                for (boolean solver : new boolean[]{false, true})
+                    settings.add(new SolverSetting(piles, solver, oracle, EVALUATOR_BUDGET));
+        runSolverGrid("nim-leaf-evaluator", settings);
+    }
+
+    /**
+     * Snapshots: the size of the snapshot of a searched tree, the time to save it, the time to open it (mapping
+     * the file and checking its CRC32) and to load the root with its children, and the time of a warm search
+     * (from the loaded root) compared with that of a cold one, for the same number of further iterations.
+     */
+    private static void benchmarkSnapshot() throws IOException {
+        System.out.println("\n-- Snapshots (Nim) --");
+        System.out.println("Budget\tNodes\tFile(KB)\tSave(ms)\tOpen(ms)\tLoadRoot(µs)\tColdSearch(ms)\tWarmSearch(ms)");
+        final int FURTHER = 10_000;
+        Path file = Files.createTempFile("nim", ".snapshot");
+        try {
+            for (int budget : SNAPSHOT_BUDGETS) {
+                State<NimGame> start = new NimGame(new SplittableRandom(SEED), SNAPSHOT_PILES).start();
+                NimMCTS mcts = new NimMCTS(new NimNode(start), Math.sqrt(2));
+                mcts.runSearch(budget);
+                long t0 = System.nanoTime();
+                int nodes = mcts.saveSnapshot(file);
+                long t1 = System.nanoTime();
+                TreeSnapshot<NimGame> snapshot = TreeSnapshot.open(file, NimMCTS.MOVE_CODEC);
+                long t2 = System.nanoTime();
+                NimNode root = NimNode.fromSnapshot(snapshot, start);
+                root.explore();
+                long t3 = System.nanoTime();
+                new NimMCTS(root, Math.sqrt(2)).runSearch(FURTHER);
+                long t4 = System.nanoTime();
+                new NimMCTS(new NimNode(start), Math.sqrt(2)).runSearch(FURTHER);
+                long t5 = System.nanoTime();
+                System.out.printf("%d\t%d\t%d\t%.1f\t%.2f\t%.1f\t%.1f\t%.1f%n", budget, nodes, Files.size(file) / 1024,
+                        (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e3, (t5 - t4) / 1e6, (t4 - t3) / 1e6);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void runSolverGrid(String name, List<SolverSetting> settings) {
+        new BenchmarkGrid(name, SEED).run(settings, SOLVER_RUNS,
+                NimBenchmark::solve,
+                (setting, runs) -> new Object[]{Arrays.toString(setting.piles()),
+                        (setting.oracle() ? "Oracle" : "Rollout") + (setting.solver() ? "+Solver" : ""),
+                        NimOracle.winningMoves(new NimGame(setting.piles()).start()).size(),
+                        median(runs.stream().mapToInt(SolverResult::settled)),
+                        median(runs.stream().mapToInt(SolverResult::proven)),
+                        runs.stream().mapToLong(SolverResult::nanos).sum() / 1e3
+                                / runs.stream().mapToLong(SolverResult::iterations).sum()},
+                "Piles", "Mode", "WinningMoves", "SettledAfter", "ProvenAfter", "Time/Iteration(µs)");
+    }
+
+    private static SolverResult solve(SolverSetting setting, long seed) {
+        State<NimGame> start = new NimGame(new SplittableRandom(seed), setting.piles()).start();
+        List<Move<NimGame>> winning = NimOracle.winningMoves(start);
+        NimMCTS mcts = new NimMCTS(new NimNode(start), Math.sqrt(2));
+        mcts.setSolver(setting.solver());
+        if (setting.oracle()) mcts.setLeafEvaluator(new NimOracle());
+        int iterations = 0, settled = -1, proven = -1;
+        long nanos = 0;
+        for (int checkpoint = 1; checkpoint <= setting.budget(); checkpoint *= 2) {
+            long t0 = System.nanoTime();
+            iterations += mcts.runSearch(checkpoint - iterations);
+            nanos += System.nanoTime() - t0;
+            if (proven < 0 && mcts.root().proof() != Proof.UNKNOWN) proven = iterations;
+            if (!winning.contains(mcts.bestMove())) settled = -1;
+            else if (settled < 0) settled = iterations;
+        }
+        return new SolverResult(settled, proven, iterations, nanos);
+    }
+
+    /** The median of the values, where -1 (not reached) counts as more than any other; "-" if it is -1. */
+    private static Object median(IntStream values) {
+        int[] sorted = values.map(v -> v < 0 ? Integer.MAX_VALUE : v).sorted().toArray();
+        int median = sorted[(sorted.length - 1) / 2];
+        return median == Integer.MAX_VALUE ? "-" : median;
+    }
+
+    private record SolverSetting(int[] piles, boolean solver, boolean oracle, int budget) {
+    }
+
+    private record SolverResult(int settled, int proven, int iterations, long nanos) {
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static int countNodes(Node<NimGame> node) {
+        int count = 1;
+        for (Node<NimGame> child : node.children()) count += countNodes(child);
+        return count;
+    }
 }
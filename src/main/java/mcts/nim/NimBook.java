@@ -0,0 +1,70 @@
+package mcts.nim;
+
+import mcts.core.Move;
+import mcts.core.OpeningBook;
+import mcts.core.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Opening book of Nim: the move of a long MCTS-Solver search for every position reached in at most DEPTH moves
+ * from one of the STARTS, built offline (by running this class) into FILE.
+ * InteractiveNimGame, and any NimMCTS given the book by setOpeningBook, answer those positions without searching.
+ */
+public class NimBook {
+
+    /** The default file of the book. */
+    public static final Path FILE = Path.of("target", "nim.book");
+    /** The standard starts covered by the book. */
+    public static final int[][] STARTS = {{3, 4, 5}, {1, 2, 3, 4, 5}};
+    /** The default number of moves after the starts. */
+    public static final int DEPTH = 2;
+    /** The default iterations of the search of each position. */
+    public static final int BUDGET = 100_000;
+
+    /**
+     * Builds the book into the file given as the first argument (by default, FILE), with the depth and the budget
+     * given as the second and third arguments (by default, DEPTH and BUDGET).
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Path.of(args[0]) : FILE;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEPTH;
+        int budget = args.length > 2 ? Integer.parseInt(args[2]) : BUDGET;
+        int workers = Runtime.getRuntime().availableProcessors();
+        long t0 = System.nanoTime();
+        int positions = build(file, STARTS, depth, budget, workers);
+        long t1 = System.nanoTime();
+        System.out.printf("Opening book: %d positions (depth %d, %d iterations each, %d workers) searched in %.1f s, " +
+                "written to %s (%d bytes)%n", positions, depth, budget, workers, (t1 - t0) / 1e9, file, Files.size(file));
+    }
+
+    /** Builds a book for the given starts, returning the number of positions (searched by {@code workers} threads). */
+    public static int build(Path file, int[][] starts, int depth, int budget, int workers) throws IOException {
+        List<State<NimGame>> states = new ArrayList<>();
+        for (int[] piles : starts) states.add(new NimGame(piles).start());
+        return OpeningBook.build(states, depth, state -> search(state, budget), NimMCTS.MOVE_CODEC, file, workers);
+    }
+
+    /** Opens a book written by build. */
+    public static OpeningBook<NimGame> open(Path file) throws IOException {
+        return OpeningBook.open(file, NimMCTS.MOVE_CODEC);
+    }
+
+    /**
+     * The MCTS-Solver's move (it stops once the position is proven), searched in a game of its own, seeded by the
+     * position: searches can run in parallel, and the book is the same from one build to the next.
+     */
+    static Move<NimGame> search(State<NimGame> state, int budget) {
+        NimState ns = (NimState) state;
+        NimGame game = new NimGame(new SplittableRandom(state.zobristKey()), ns.piles());
+        NimMCTS mcts = new NimMCTS(new NimNode(new NimState(game, ns.piles(), ns.lastPlayer())), Math.sqrt(2));
+        mcts.setSolver(true);
+        mcts.runSearch(budget);
+        return mcts.bestMove();
+    }
+}
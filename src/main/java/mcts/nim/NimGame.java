@@ -4,7 +4,8 @@ import mcts.core.Game;
 import mcts.core.State;
 
 import java.util.Arrays;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Models the overall Nim game.
@@ -13,14 +14,19 @@ public class NimGame implements Game<NimGame> {
 
     private final int opener = 0;        // player 0 always starts
     private final int[] initialPiles;    // sizes of each pile
-    final Random random;
+    final RandomGenerator random;      // shared by the states of the game: not for concurrent use
 
-    /** Create a Nim game with the given pile sizes and a fresh Random. */
-    public NimGame(int... piles) {
-        this.random = new Random();
+    /** Create a Nim game with the given random source (e.g. a seeded SplittableRandom) and pile sizes. */
+    public NimGame(RandomGenerator random, int... piles) {
+        this.random = random;
         this.initialPiles = Arrays.copyOf(piles, piles.length);
     }
 
+    /** Create a Nim game with the given pile sizes and a fresh (unseeded) SplittableRandom. */
+    public NimGame(int... piles) {
+        this(new SplittableRandom(), piles);
+    }
+
     /** Which player moves first. */
     @Override
     public int opener() {
@@ -1,46 +1,147 @@
 package mcts.nim;
 
+import mcts.core.ArenaSearch;
+import mcts.core.ConcurrentNode;
+import mcts.core.EarlyStop;
+import mcts.core.LeafEvaluator;
 import mcts.core.Move;
 import mcts.core.Node;
+import mcts.core.NodeArena;
+import mcts.core.OpeningBook;
+import mcts.core.Playout;
+import mcts.core.Proof;
+import mcts.core.RandomState;
+import mcts.core.RolloutEvent;
+import mcts.core.SearchEvent;
+import mcts.core.SearchProfiler;
 import mcts.core.State;
+import mcts.core.TreeParallelSearch;
+import mcts.core.TreeSnapshot;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Monte Carlo Tree Search driver specialized for Nim.
  */
 public class NimMCTS {
 
-    private final Node<NimGame> root;
+    /** Iterations between two reads of the clock in a time-limited search. */
+    public static final int CLOCK_CHECK_INTERVAL = 16;
+    /** Iterations between two applications of the early-stop rule. */
+    public static final int STOP_CHECK_INTERVAL = 16;
+    /** The name of the game in the flight recorder events. */
+    public static final String GAME = NimGame.class.getSimpleName();
+    /** The encoding of the moves in snapshots (as in NimPlayout: pile index and remove count). */
+    public static final TreeSnapshot.MoveCodec<NimGame> MOVE_CODEC = new TreeSnapshot.MoveCodec<>() {
+        @Override
+        public int encode(Move<NimGame> move) {
+            NimMove m = (NimMove) move;
+            return NimPlayout.encode(m.getPileIndex(), m.getRemoveCount());
+        }
+
+        @Override
+        public Move<NimGame> decode(State<NimGame> state, int code) {
+            return new NimMove(state.player(), code >>> NimPlayout.PILE_SHIFT, code & NimPlayout.COUNT_MASK);
+        }
+    };
+
+    private Node<NimGame> root;
     private final double Cp;
+    private final Playout<NimGame> playout;   // null if the state has no fast path
+    private ArenaSearch<NimGame> arenaSearch;   // null unless the nodes are kept in a NodeArena
+    private EarlyStop earlyStop = EarlyStop.NONE;
+    private boolean solver;
+    private LeafEvaluator<NimGame> evaluator;
+    private OpeningBook<NimGame> book;
+    private SearchProfiler profiler;              // null: nothing is recorded
+    private long nodesCreated;                    // by the expansions of this NimMCTS's searches
+    private double[] childMeans = new double[0];    // scratch statistics of the root's children
+    private int[] childVisits = new int[0];
 
     public NimMCTS(Node<NimGame> root, double Cp) {
         this.root = root;
         this.Cp   = Cp;
+        this.playout = root.state().playout().orElse(null);
+        this.arenaSearch = null;
+    }
+
+    /**
+     * Search whose nodes live in {@code arena} (reset here, reusable across searches) rather than in NimNodes.
+     * Only runSearch and bestMove are supported.
+     */
+    public NimMCTS(State<NimGame> rootState, NodeArena arena, double Cp) {
+        this.root = null;
+        this.Cp   = Cp;
+        this.playout = null;
+        this.arenaSearch = new ArenaSearch<>(rootState, arena, Cp);
+    }
+
+    /**
+     * Search for at most {@code iterations} iterations, stopping early (checked every
+     * {@link #STOP_CHECK_INTERVAL} iterations) if the early-stop rule considers the best move decided.
+     * Every search is reported to the flight recorder as a SearchEvent.
+     * Nothing is searched if the root is in the opening book (see setOpeningBook).
+     *
+     * @return the number of iterations actually run.
+     */
+    public int runSearch(int iterations) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long nodes = nodesCreated();
+        int done = bookMove() != null ? 0 : search(iterations);
+        event.report(GAME, arenaSearch != null ? "arena" : "sequential", iterations, null, done,
+                nodesCreated() - nodes, this::chosenMove);
+        return done;
     }
 
-    public void runSearch(int iterations) {
+    /** runSearch without the SearchEvent. */
+    private int search(int iterations) {
+        if (arenaSearch != null) {
+            arenaSearch.run(iterations);
+            return iterations;
+        }
+        SearchProfiler.Recorder recorder = profiler == null ? null : profiler.recorder();
         for (int i = 0; i < iterations; i++) {
+            if (solver && root.proof() != Proof.UNKNOWN) return i;
+            if (i > 0 && i % STOP_CHECK_INTERVAL == 0 && decided(iterations - i)) return i;
+            long lap = recorder == null ? 0 : recorder.start();
+
             List<Node<NimGame>> path = new ArrayList<>();
             Node<NimGame> node = root;
             path.add(node);
 
             // 1. Selection
             while (!node.isLeaf() && !node.children().isEmpty()) {
-                node = selectUCT(node);
+                Node<NimGame> next = selectUCT(node);
+                if (next == null) break;  // (solver) all the children have been proven
+                node = next;
                 path.add(node);
             }
+            if (recorder != null) lap = recorder.selection(lap, path.size() - 1);
 
-            // 2. Expansion
-            if (!node.isLeaf() && node.children().isEmpty()) {
+            // 2. Expansion (unless the leaf evaluator knows the outcome of the leaf)
+            // (the root is expanded all the same, to have moves to choose from)
+            int result = node == root ? LeafEvaluator.UNKNOWN : evaluate(node);
+            if (result == LeafEvaluator.UNKNOWN && !node.isLeaf() && node.children().isEmpty()) {
                 node.explore();
+                nodesCreated += node.children().size();
+                if (recorder != null) lap = recorder.expansion(lap, node.children().size());
                 node = node.children().iterator().next();
                 path.add(node);
+                result = evaluate(node);
             }
 
-            // 3. Simulation
-            State<NimGame> st = node.state();
-            int result = simulate(st);
+            // 3. Simulation, unless the leaf evaluator knows the outcome
+            if (result == LeafEvaluator.UNKNOWN) result = simulate(node.state(), recorder);
+            if (recorder != null) lap = recorder.simulation(lap);
 
             // 4. Back‑propagation
             for (Node<NimGame> n : path) {
@@ -48,15 +149,216 @@ public class NimMCTS {
                 nn.recordPlayout();
                 nn.recordWin(result);
             }
+            // (solver) prove the nodes of the path whose values now follow from their children
+            if (solver) Proof.propagate(path);
+            if (recorder != null) recorder.backPropagation(lap);
         }
+        return iterations;
+    }
+
+    /** Early-stop rule for runSearch (default NONE; ignored by the parallel searches and with a NodeArena). */
+    public void setEarlyStop(EarlyStop earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    /**
+     * MCTS-Solver (default off; ignored by the parallel searches and with a NodeArena): terminal nodes, and then
+     * their ancestors by the minimax rules of Proof, are proven; selection skips proven children, the search stops
+     * once the root is proven, and bestMove() then chooses a proven win.
+     */
+    public void setSolver(boolean solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Exact evaluator of the leaves, such as a NimOracle (default null; ignored by the parallel searches and with a
+     * NodeArena): a leaf whose outcome it knows is neither expanded nor simulated, its outcome is backpropagated
+     * instead (and proves the leaf, for the solver).
+     */
+    public void setLeafEvaluator(LeafEvaluator<NimGame> evaluator) {
+        this.evaluator = evaluator;
     }
 
-    private Node<NimGame> selectUCT(Node<NimGame> node) {
+    /**
+     * Opening book (default null) consulted first by runSearch and bestMove (but not by the parallel searches):
+     * if the root is in the book, runSearch searches nothing and bestMove returns the book's move.
+     */
+    public void setOpeningBook(OpeningBook<NimGame> book) {
+        this.book = book;
+    }
+
+    /** The book's move for the root, or null if there is no book or the root is not in it. */
+    private Move<NimGame> bookMove() {
+        if (book == null) return null;
+        return book.move(arenaSearch != null ? arenaSearch.rootState() : root.state());
+    }
+
+    /**
+     * Profiler into which the searches (including the parallel workers, each in its own thread's accumulators)
+     * record the time and statistics of each phase; null, the default, records nothing (nor does a NodeArena search).
+     */
+    public void setProfiler(SearchProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    private boolean decided(int remaining) {
+        if (solver && root.proof() != Proof.UNKNOWN) return true;
+        if (earlyStop == EarlyStop.NONE || root.isLeaf()) return false;
+        int count = root.children().size();
+        if (childVisits.length < count) {
+            childMeans = new double[count];
+            childVisits = new int[count];
+        }
+        int i = 0;
+        for (Node<NimGame> c : root.children()) {
+            childMeans[i] = c.playouts() == 0 ? 0 : c.wins() / (2.0 * c.playouts());
+            childVisits[i++] = c.playouts();
+        }
+        return earlyStop.decided(childMeans, childVisits, count, remaining);
+    }
+
+    /**
+     * Anytime search: runs until {@code timeLimit} has elapsed, reading the clock once every
+     * {@link #CLOCK_CHECK_INTERVAL} iterations (and running at least that many, so that bestMove() has an answer).
+     * The early-stop rule is applied with unbounded remaining iterations, so only CONFIDENCE_BOUND can end it sooner
+     * (or the solver, once the root is proven). Nothing is searched if the root is in the opening book.
+     *
+     * @return the number of iterations completed.
+     */
+    public int runSearch(Duration timeLimit) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long nodes = nodesCreated();
+        long deadline = System.nanoTime() + timeLimit.toNanos();
+        int iterations = 0;
+        if (bookMove() == null) do {
+            iterations += search(CLOCK_CHECK_INTERVAL);
+        } while (System.nanoTime() - deadline < 0 && !terminal() && (arenaSearch != null || !decided(Integer.MAX_VALUE)));
+        event.report(GAME, "time-limited", 0, timeLimit, iterations, nodesCreated() - nodes, this::chosenMove);
+        return iterations;
+    }
+
+    /**
+     * @return true if the game is over at the root (so that there is nothing to search, however much time is left).
+     */
+    private boolean terminal() {
+        return arenaSearch != null ? arenaSearch.rootState().isTerminal() : root.isLeaf();
+    }
+
+    /** Root-parallel search with one worker per available processor. */
+    public void runParallelSearch(int iterations) {
+        runParallelSearch(iterations, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Root-parallel search: the iterations are split across {@code workers} independent trees,
+     * each searched on a fork-join pool with its own random stream.
+     * The root-child statistics of all trees are then merged into this root.
+     */
+    public void runParallelSearch(int iterations, int workers) {
+        if (root == null) throw new RuntimeException("runParallelSearch: not supported with a NodeArena");
+        if (workers < 1) throw new RuntimeException("runParallelSearch: workers must be positive: " + workers);
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long nodes = nodesCreated;
+        NimState rs = (NimState) root.state();
+        List<Callable<Node<NimGame>>> tasks = new ArrayList<>();
+        LongAdder created = new LongAdder();
+        for (int w = 0; w < workers; w++) {
+            int share = iterations / workers + (w < iterations % workers ? 1 : 0);
+            NimGame workerGame = new NimGame(RandomState.split(rs.random()), rs.piles());
+            tasks.add(() -> {
+                NimNode workerRoot = new NimNode(new NimState(workerGame, rs.piles(), rs.lastPlayer()));
+                NimMCTS worker = new NimMCTS(workerRoot, Cp);
+                worker.setProfiler(profiler);
+                worker.search(share);
+                if (profiler != null) profiler.release();      // the threads of the pool end with the search
+                created.add(worker.nodesCreated);
+                return workerRoot;
+            });
+        }
+        try (ForkJoinPool pool = new ForkJoinPool(workers)) {
+            for (Future<Node<NimGame>> f : pool.invokeAll(tasks)) mergeRoot(f.get());
+            nodesCreated += created.sum();
+            event.report(GAME, "root-parallel", iterations, null, iterations, nodesCreated - nodes, this::chosenMove);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("runParallelSearch: interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("runParallelSearch: worker failed", e.getCause());
+        }
+    }
+
+    /**
+     * Tree-parallel search: {@code threads} threads share this tree, with virtual loss applied during selection.
+     */
+    public void runConcurrentSearch(int iterations, int threads) {
+        if (root == null) throw new RuntimeException("runConcurrentSearch: not supported with a NodeArena");
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        TreeParallelSearch<NimGame> search =
+                new TreeParallelSearch<>((ConcurrentNode<NimGame>) root, Cp, TreeParallelSearch.VIRTUAL_LOSS, profiler);
+        search.run(iterations, threads);
+        nodesCreated += search.nodesCreated();
+        event.report(GAME, "tree-parallel", iterations, null, iterations, search.nodesCreated(), this::chosenMove);
+    }
+
+    /**
+     * Advance the root through a move actually played (by either player): the matching child becomes the root,
+     * keeping its statistics, and the rest of the tree is released.
+     * If there is no such child yet, the search continues from a fresh root (as it does with a NodeArena).
+     *
+     * @return the number of playouts carried over to the new root.
+     */
+    public int advance(Move<NimGame> move) {
+        if (arenaSearch != null) {
+            arenaSearch = new ArenaSearch<>(arenaSearch.rootState().next(move), arenaSearch.arena(), Cp);
+            return 0;
+        }
+        State<NimGame> next = root.state().next(move);
+        Node<NimGame> newRoot = null;
+        for (Node<NimGame> c : root.children())
+            if (c.state().equals(next)) newRoot = c;
+        root = newRoot != null ? newRoot : new NimNode(next);
+        return root.playouts();
+    }
+
+    /** The number of nodes created so far by the searches of this NimMCTS (with a NodeArena, the size of the arena). */
+    public long nodesCreated() {
+        return arenaSearch != null ? arenaSearch.arena().size() : nodesCreated;
+    }
+
+    /** The best move, or null if the root has no children (yet). */
+    private Move<NimGame> chosenMove() {
+        boolean expanded = arenaSearch != null ? arenaSearch.hasBestMove() : !root.isLeaf() && !root.children().isEmpty();
+        return expanded || bookMove() != null ? bestMove() : null;
+    }
+
+    /** The root of the search (null if the nodes are stored in a NodeArena). */
+    public Node<NimGame> root() {
+        return root;
+    }
+
+    private void mergeRoot(Node<NimGame> workerRoot) {
+        if (root.isLeaf()) return;
+        if (root.children().isEmpty()) root.explore();
+        Map<State<NimGame>, NimNode> byState = new HashMap<>();
+        for (Node<NimGame> c : root.children()) byState.put(c.state(), (NimNode) c);
+        for (Node<NimGame> wc : workerRoot.children()) {
+            NimNode c = byState.get(wc.state());
+            if (c == null) throw new RuntimeException("mergeRoot: no matching child for " + wc.state());
+            c.recordStatistics(wc.wins(), wc.playouts());
+        }
+        root.backPropagate();
+    }
+
+    Node<NimGame> selectUCT(Node<NimGame> node) {
         Node<NimGame> best = null;
         double bestVal = Double.NEGATIVE_INFINITY;
         double parentPlays = node.playouts();
 
         for (Node<NimGame> c : node.children()) {
+            if (solver && c.proof() != Proof.UNKNOWN) continue;
             double plays = c.playouts();
             double uct = (plays == 0)
                     ? Double.POSITIVE_INFINITY
@@ -71,37 +373,105 @@ public class NimMCTS {
         return best;
     }
 
-    private int simulate(State<NimGame> s) {
-        State<NimGame> cur = s;
-        while (!cur.isTerminal()) {
-            int p = cur.player();
-            Move<NimGame> m = cur.chooseMove(p);
-            cur = cur.next(m);
+    /** Outcome of a leaf according to the evaluator (proving the leaf, with the solver), or LeafEvaluator.UNKNOWN. */
+    private int evaluate(Node<NimGame> node) {
+        if (evaluator == null) return LeafEvaluator.UNKNOWN;
+        int winner = evaluator.winner(node.state());
+        if (solver && winner != LeafEvaluator.UNKNOWN) node.prove(Proof.of(node.state(), winner));
+        return winner;
+    }
+
+    private int simulate(State<NimGame> s, SearchProfiler.Recorder recorder) {
+        RolloutEvent event = new RolloutEvent();
+        event.begin();
+        int length = 0;
+        int winner;
+        if (playout != null) {
+            playout.reset(s);
+            for (; !playout.isTerminal(); length++) playout.play(playout.randomMove());
+            winner = playout.winner();
+        } else {
+            State<NimGame> cur = s;
+            for (; !cur.isTerminal(); length++) {
+                int p = cur.player();
+                Move<NimGame> m = cur.chooseMove(p);
+                cur = cur.next(m);
+            }
+            winner = cur.winner().orElse(-1);
         }
-        return cur.winner().orElse(-1);
+        if (recorder != null) recorder.rollout(length);
+        event.report(GAME, length, winner);
+        return winner;
     }
 
-    /** Return the move (from the root) with the highest visit‐count. */
+    /**
+     * Return the move (from the root) with the highest visit‐count, as recorded on the root's edge
+     * (or the opening book's move, if the root is in the book).
+     */
     public Move<NimGame> bestMove() {
-        State<NimGame> rs = root.state();
-        int player = rs.player();
+        Move<NimGame> move = bookMove();
+        if (move != null) return move;
+        if (arenaSearch != null) return arenaSearch.bestMove();
+        NimNode nn = (NimNode) root;
+        int best = bestChild(nn);
+        if (best < 0) throw new RuntimeException("bestMove: the root has not been expanded");
+        return nn.move(best);
+    }
+
+    /**
+     * Saves a snapshot of the search tree (see NimNode.fromSnapshot), returning the number of nodes saved.
+     */
+    public int saveSnapshot(Path file) throws IOException {
+        if (root == null) throw new RuntimeException("saveSnapshot: not supported with a NodeArena");
+        return TreeSnapshot.write(root, MOVE_CODEC, file);
+    }
+
+    /**
+     * Principal variation: the moves of the most visited edges, followed from the root down to an unexpanded
+     * (or terminal) node. Empty if the root has not been expanded.
+     */
+    public List<Move<NimGame>> principalVariation() {
+        if (root == null) throw new RuntimeException("principalVariation: not supported with a NodeArena");
+        List<Move<NimGame>> moves = new ArrayList<>();
+        NimNode node = (NimNode) root;
+        for (int best = bestChild(node); best >= 0; best = bestChild(node)) {
+            moves.add(node.move(best));
+            node = (NimNode) node.child(best);
+        }
+        return moves;
+    }
 
-        Node<NimGame> bestChild = null;
+    /**
+     * Index of the child to be played, or -1 if there is none: the most visited one, except that, with the solver,
+     * a proven win is chosen at once and proven losses are avoided (unless there is nothing else).
+     */
+    private int bestChild(NimNode node) {
+        if (!solver) return mostVisited(node);
+        int best = -1;
         int maxPlays = -1;
-        for (Node<NimGame> c : root.children()) {
-            if (c.playouts() > maxPlays) {
-                maxPlays = c.playouts();
-                bestChild = c;
+        for (int i = 0; i < node.children().size(); i++) {
+            Node<NimGame> child = node.child(i);
+            if (child.proof() == Proof.WIN) return i;
+            if (child.proof() != Proof.LOSS && child.playouts() > maxPlays) {
+                maxPlays = child.playouts();
+                best = i;
             }
         }
+        return best >= 0 ? best : mostVisited(node);
+    }
 
-        // find which Move leads into bestChild.state()
-        for (Move<NimGame> m : rs.moves(player)) {
-            if (rs.next(m).equals(bestChild.state())) {
-                return m;
+    /** Index of the child with the most playouts, or -1 if there is none. */
+    private static int mostVisited(NimNode node) {
+        int best = -1;
+        int maxPlays = -1;
+        for (int i = 0; i < node.children().size(); i++) {
+            int plays = node.child(i).playouts();
+            if (plays > maxPlays) {
+                maxPlays = plays;
+                best = i;
             }
         }
-        throw new RuntimeException("bestMove: no matching move");
+        return best;
     }
 
     public static void main(String[] args) {
@@ -1,24 +1,74 @@
 package mcts.nim;
 
+import mcts.core.ConcurrentNode;
+import mcts.core.Move;
 import mcts.core.Node;
+import mcts.core.Proof;
 import mcts.core.State;
+import mcts.core.TreeSnapshot;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * MCTS tree node for Nim.
+ * Statistics are updated atomically so that the node can be shared by a tree-parallel search.
+ * Each node keeps the move of each of its edges, so the move leading to a child is known without replaying.
  */
-public class NimNode implements Node<NimGame> {
+public class NimNode implements ConcurrentNode<NimGame> {
     private final State<NimGame> state;
     private final List<Node<NimGame>> children = new ArrayList<>();
-    private int wins, playouts;
+    private final List<Move<NimGame>> moves = new ArrayList<>();   // moves.get(i) leads to children.get(i)
+    private volatile boolean expanded;
+    private volatile int wins, playouts;
+    private volatile Proof proof;                  // a terminal node is proven when it is created
+    private final TreeSnapshot<NimGame> snapshot;  // the snapshot this node was loaded from (or null)
+    private final int record;                      // the index of this node in the snapshot
+
+    private static final VarHandle WINS, PLAYOUTS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            WINS = lookup.findVarHandle(NimNode.class, "wins", int.class);
+            PLAYOUTS = lookup.findVarHandle(NimNode.class, "playouts", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     public NimNode(State<NimGame> state) {
+        this(state, null, -1);
+    }
+
+    private NimNode(State<NimGame> state, TreeSnapshot<NimGame> snapshot, int record) {
         this.state = state;
+        this.snapshot = snapshot;
+        this.record = record;
         initializeLeaf();
+        if (snapshot != null) {
+            wins = snapshot.wins(record);
+            playouts = snapshot.playouts(record);
+        }
+    }
+
+    /** The root of a tree loaded (lazily) from a snapshot of NimNodes, taken from the given state. */
+    public static NimNode fromSnapshot(TreeSnapshot<NimGame> snapshot, State<NimGame> state) {
+        snapshot.checkRoot(state);
+        return new NimNode(state, snapshot, 0);
+    }
+
+    /** The root of a tree loaded (lazily) from a file written by NimMCTS.saveSnapshot. */
+    public static NimNode fromSnapshot(Path file, State<NimGame> state) throws IOException {
+        return fromSnapshot(TreeSnapshot.open(file, NimMCTS.MOVE_CODEC), state);
     }
 
     private void initializeLeaf() {
+        proof = state.isTerminal() ? Proof.terminal(state) : Proof.UNKNOWN;
         if (state.isTerminal()) {
             playouts = 1;
             wins = state.winner().isPresent() ? 2 : 1;
@@ -30,27 +80,118 @@ public class NimNode implements Node<NimGame> {
     @Override public boolean white()                { return state.player() == state.game().opener(); }
     @Override public Collection<Node<NimGame>> children() { return children; }
 
+    /** The i-th child. */
+    public Node<NimGame> child(int i)       { return children.get(i); }
+
+    /** The move leading to the i-th child (null if the child was added without one). */
+    @Override
+    public Move<NimGame> move(int i)        { return moves.get(i); }
+
     @Override
     public void addChild(State<NimGame> s) {
+        addChild(null, s);
+    }
+
+    @Override
+    public void addChild(Move<NimGame> move, State<NimGame> s) {
         children.add(new NimNode(s));
+        moves.add(move);
+    }
+
+    @Override
+    public synchronized void explore() {
+        if (inSnapshot()) loadChildren();
+        else ConcurrentNode.super.explore();
+        expanded = true;
+    }
+
+    @Override public boolean expanded()  { return expanded; }
+
+    /** True if this node was loaded from a snapshot in which it had been expanded (and is not yet expanded). */
+    private boolean inSnapshot() {
+        return snapshot != null && snapshot.childCount(record) > 0 && children.isEmpty();
+    }
+
+    /** Adds the children recorded in the snapshot, with their statistics, instead of exploring. */
+    private void loadChildren() {
+        int first = snapshot.firstChild(record);
+        for (int c = first; c < first + snapshot.childCount(record); c++) {
+            Move<NimGame> move = snapshot.move(state, c);
+            children.add(new NimNode(state.next(move), snapshot, c));
+            moves.add(move);
+        }
+    }
+
+    /**
+     * Adds the children exactly once (in an order drawn from the calling thread's {@code random}),
+     * leaving this node's (concurrently updated) statistics alone.
+     */
+    @Override
+    public boolean exploreOnce(RandomGenerator random) {
+        if (expanded) return false;
+        synchronized (this) {
+            if (expanded || isLeaf()) return false;
+            if (inSnapshot()) loadChildren();
+            else for (Iterator<Move<NimGame>> it = state.moveIterator(state.player(), random); it.hasNext(); ) {
+                Move<NimGame> move = it.next();
+                addChild(move, state.next(move));
+            }
+            expanded = true;
+            return true;
+        }
     }
 
     @Override
     public void backPropagate() {
-        wins = 0;
-        playouts = 0;
+        int w = 0, p = 0;
         for (Node<NimGame> c : children) {
-            wins     += c.wins();
-            playouts += c.playouts();
+            w += c.wins();
+            p += c.playouts();
         }
+        wins = w;
+        playouts = p;
     }
 
     @Override public int wins()      { return wins; }
     @Override public int playouts()  { return playouts; }
+    @Override public Proof proof()   { return proof; }
+
+    /** Proves this node if its value follows from its children's (see {@link Proof#solve}). */
+    @Override
+    public boolean solve() {
+        return proof == Proof.UNKNOWN && prove(Proof.solve(children));
+    }
+
+    /** Proves this node from an exact evaluation of its state (UNKNOWN proves nothing). */
+    @Override
+    public boolean prove(Proof proof) {
+        if (this.proof != Proof.UNKNOWN || proof == Proof.UNKNOWN) return false;
+        this.proof = proof;
+        return true;
+    }
 
     /** Call on every visit. */
     public void recordPlayout() {
-        playouts++;
+        PLAYOUTS.getAndAdd(this, 1);
+    }
+
+    @Override
+    public void addVirtualLoss(int virtualLoss) {
+        PLAYOUTS.getAndAdd(this, virtualLoss);
+    }
+
+    @Override
+    public void recordResult(int winner, int virtualLoss) {
+        PLAYOUTS.getAndAdd(this, 1 - virtualLoss);
+        recordWin(winner);
+    }
+
+    /**
+     * Add statistics gathered elsewhere (e.g. by another tree searched from the same state).
+     */
+    public void recordStatistics(int wins, int playouts) {
+        WINS.getAndAdd(this, wins);
+        PLAYOUTS.getAndAdd(this, playouts);
     }
 
     /**
@@ -58,10 +199,10 @@ public class NimNode implements Node<NimGame> {
      */
     public void recordWin(int winner) {
         if (winner < 0) {
-            wins += 1;       // draw
+            WINS.getAndAdd(this, 1);       // draw
         } else {
             int mover = 1 - state.player();  // who *just* moved
-            if (winner == mover) wins += 2;
+            if (winner == mover) WINS.getAndAdd(this, 2);
         }
     }
 }
@@ -0,0 +1,56 @@
+package mcts.nim;
+
+import mcts.core.LeafEvaluator;
+import mcts.core.Move;
+import mcts.core.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exact evaluator of Nim (normal play: whoever takes the last token wins), by Bouton's theorem:
+ * the player to move loses if and only if the nim-sum (the XOR of the piles) is 0.
+ * Each pile is its own Grundy value, so the nim-sum is the whole "tablebase", computed in O(piles) per State.
+ * <p>
+ * It is a LeafEvaluator for NimMCTS (so that no rollout is played), and it checks the moves chosen by a search.
+ */
+public class NimOracle implements LeafEvaluator<NimGame> {
+
+    /**
+     * @param piles the sizes of the piles.
+     * @return the XOR of the piles.
+     */
+    public static int nimSum(int[] piles) {
+        int sum = 0;
+        for (int pile : piles) sum ^= pile;
+        return sum;
+    }
+
+    /**
+     * @param state a State.
+     * @return true if the player to move wins (with perfect play).
+     */
+    public static boolean isWin(State<NimGame> state) {
+        return nimSum(((NimState) state).piles()) != 0;
+    }
+
+    /**
+     * @param state a State.
+     * @return the moves after which the player to move still wins: those which leave a nim-sum of 0
+     * (none if the State is lost).
+     */
+    public static List<Move<NimGame>> winningMoves(State<NimGame> state) {
+        int[] piles = ((NimState) state).piles();
+        int sum = nimSum(piles);
+        List<Move<NimGame>> moves = new ArrayList<>();
+        if (sum == 0) return moves;
+        for (int i = 0; i < piles.length; i++)
+            if ((piles[i] ^ sum) < piles[i]) moves.add(new NimMove(state.player(), i, piles[i] - (piles[i] ^ sum)));
+        return moves;
+    }
+
+    @Override
+    public int winner(State<NimGame> state) {
+        return isWin(state) ? state.player() : 1 - state.player();
+    }
+}
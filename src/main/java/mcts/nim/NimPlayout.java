@@ -0,0 +1,102 @@
+package mcts.nim;
+
+import mcts.core.Move;
+import mcts.core.Playout;
+import mcts.core.State;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Allocation-free Playout for Nim: the piles are copied into a scratch array which is updated in place.
+ * A move is encoded as {@code pileIndex << 24 | removeCount}, so that it applies only to positions which fit
+ * (see fits): at most MAX_PILES piles, of at most COUNT_MASK tokens each.
+ */
+class NimPlayout implements Playout<NimGame> {
+    static final int PILE_SHIFT = 24;
+    static final int COUNT_MASK = (1 << PILE_SHIFT) - 1;
+    static final int MAX_PILES = 1 << (Integer.SIZE - PILE_SHIFT);
+
+    private int[] piles = new int[0];
+    private int size;
+    private long total;
+    private int lastPlayer;
+    private RandomGenerator random;
+
+    /**
+     * @param piles the piles of a position.
+     * @return true if every move from the position (and from those which follow it) can be encoded.
+     */
+    static boolean fits(int[] piles) {
+        if (piles.length > MAX_PILES) return false;
+        for (int pile : piles) if (pile > COUNT_MASK) return false;
+        return true;
+    }
+
+    static int encode(int pileIndex, int removeCount) {
+        return pileIndex << PILE_SHIFT | removeCount;
+    }
+
+    @Override
+    public void reset(State<NimGame> state, RandomGenerator random) {
+        NimState ns = (NimState) state;
+        int[] source = ns.piles();
+        if (piles.length < source.length) piles = new int[source.length];
+        System.arraycopy(source, 0, piles, 0, source.length);
+        size = source.length;
+        total = 0;
+        for (int i = 0; i < size; i++) total += piles[i];
+        lastPlayer = ns.lastPlayer();
+        this.random = random;
+    }
+
+    @Override
+    public boolean isTerminal() {
+        return total == 0;
+    }
+
+    @Override
+    public int player() {
+        return 1 - lastPlayer;
+    }
+
+    /** Uniform over all legal moves: pick one of the remaining tokens, and take it together with those above it. */
+    @Override
+    public int randomMove() {
+        long r = total <= Integer.MAX_VALUE ? random.nextInt((int) total) : (long) (random.nextDouble() * total);
+        int i = 0;
+        while (r >= piles[i]) r -= piles[i++];
+        return encode(i, (int) r + 1);
+    }
+
+    @Override
+    public void play(int move) {
+        int removeCount = move & COUNT_MASK;
+        piles[move >>> PILE_SHIFT] -= removeCount;
+        total -= removeCount;
+        lastPlayer = 1 - lastPlayer;
+    }
+
+    @Override
+    public int moveCount() {
+        if (total > Integer.MAX_VALUE) throw new RuntimeException("too many moves: " + total);
+        return (int) total;
+    }
+
+    /** Pile by pile, in increasing order of the number of tokens removed. */
+    @Override
+    public void moves(int[] buffer) {
+        int n = 0;
+        for (int i = 0; i < size; i++)
+            for (int r = 1; r <= piles[i]; r++) buffer[n++] = encode(i, r);
+    }
+
+    @Override
+    public Move<NimGame> decode(int move) {
+        return new NimMove(player(), move >>> PILE_SHIFT, move & COUNT_MASK);
+    }
+
+    @Override
+    public int winner() {
+        return total == 0 ? lastPlayer : -1;
+    }
+}
@@ -1,25 +1,49 @@
 package mcts.nim;
 
 import mcts.core.Move;
+import mcts.core.Playout;
 import mcts.core.State;
+import mcts.util.Zobrist;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * A Nim position: an array of pile‐sizes, plus who moved last.
+ * The Zobrist key is the XOR of one key per (pile index, pile size) and one for the last player;
+ * next() updates it in O(1).
  */
 public class NimState implements State<NimGame> {
     private final NimGame game;
     private final int[] piles;
     private final int lastPlayer;
+    private final long zobrist;
 
     /** Construct the root state (lastPlayer=1 so opener=0 moves first). */
     public NimState(NimGame game, int[] piles, int lastPlayer) {
+        this(game, piles, lastPlayer, zobrist(piles, lastPlayer));
+    }
+
+    private NimState(NimGame game, int[] piles, int lastPlayer, long zobrist) {
         this.game = game;
         this.piles = piles;
         this.lastPlayer = lastPlayer;
+        this.zobrist = zobrist;
+    }
+
+    /** The Zobrist key of the piles, with the given player having moved last (as returned by zobristKey()). */
+    static long zobrist(int[] piles, int lastPlayer) {
+        long result = lastPlayer == 1 ? LAST_PLAYER_KEY : 0;
+        for (int i = 0; i < piles.length; i++) result ^= pileKey(i, piles[i]);
+        return result;
     }
 
+    private static long pileKey(int pileIndex, int size) {
+        return Zobrist.key(pileIndex, size);
+    }
+
+    private static final long LAST_PLAYER_KEY = Zobrist.key(-1, 1);
+
     @Override
     public NimGame game() {
         return game;
@@ -44,8 +68,8 @@ public class NimState implements State<NimGame> {
     }
 
     @Override
-    public Random random() {
-        return game.random;  // reuse game’s Random for shuffling
+    public RandomGenerator random() {
+        return game.random;  // reuse game’s random source for shuffling
     }
 
     @Override
@@ -69,20 +93,49 @@ public class NimState implements State<NimGame> {
             throw new RuntimeException("invalid removal: " + r + " from pile " + i);
         int[] nextPiles = Arrays.copyOf(piles, piles.length);
         nextPiles[i] -= r;
-        return new NimState(game, nextPiles, m.player());
+        long key = zobrist ^ pileKey(i, piles[i]) ^ pileKey(i, nextPiles[i]);
+        if (m.player() != lastPlayer) key ^= LAST_PLAYER_KEY;
+        return new NimState(game, nextPiles, m.player(), key);
+    }
+
+    /**
+     * @return the allocation-free Playout, unless the piles are too many or too large for its encoding of the moves
+     * (in which case the playouts go through the States).
+     */
+    @Override
+    public Optional<Playout<NimGame>> playout() {
+        return NimPlayout.fits(piles) ? Optional.of(new NimPlayout()) : Optional.empty();
+    }
+
+    /** The pile sizes of this position (not to be mutated). */
+    int[] piles() {
+        return piles;
+    }
+
+    /** The player who made the move into this position. */
+    int lastPlayer() {
+        return lastPlayer;
+    }
+
+    /** The Zobrist key of this position. */
+    @Override
+    public long zobristKey() {
+        return zobrist;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof NimState)) return false;
-        return Arrays.equals(piles, ((NimState)o).piles)
-                && lastPlayer == ((NimState)o).lastPlayer;
+        NimState that = (NimState) o;
+        return zobrist == that.zobrist
+                && lastPlayer == that.lastPlayer
+                && Arrays.equals(piles, that.piles);
     }
 
     @Override
     public int hashCode() {
-        return 31 * Arrays.hashCode(piles) + lastPlayer;
+        return Zobrist.fold(zobrist);
     }
 
     @Override
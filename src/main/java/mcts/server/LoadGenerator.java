@@ -0,0 +1,203 @@
+package mcts.server;
+
+import mcts.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load generator for the MoveServer: a number of clients, each on a virtual thread of its own, play games against the
+ * server at the same time, choosing their own moves at random and asking the server for the others.
+ * It reports the throughput and the p50 and p99 of the latencies seen by the clients, and the server's statistics.
+ */
+public class LoadGenerator {
+
+    /**
+     * Run the load generator.
+     *
+     * @param args the URL of the server (by default, http://localhost:PORT), the game ("tictactoe", the default,
+     *             or "nim"), the number of clients (100), the number of games per client (10) and the time budget
+     *             of each move (in milliseconds, 10).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        URI server = URI.create(args.length > 0 ? args[0] : "http://localhost:" + MoveServer.PORT);
+        String game = args.length > 1 ? args[1] : "tictactoe";
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        long millis = args.length > 4 ? Long.parseLong(args[4]) : 10;
+        Report report = run(server, game, clients, games, millis, System.nanoTime());
+        System.out.println(report);
+        if (report.firstError() != null) System.out.println("First error: " + report.firstError());
+        HttpClient client = HttpClient.newHttpClient();
+        System.out.println("Server: " + client.send(HttpRequest.newBuilder(server.resolve("/stats")).build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+    }
+
+    /**
+     * The outcome of a run.
+     *
+     * @param games      the number of games completed.
+     * @param requests   the number of move requests answered (with status 200).
+     * @param errors     the number of requests which failed (the game of a failed request is abandoned).
+     * @param nanos      the elapsed time of the run.
+     * @param latencies  the latencies of the requests answered, as seen by the clients.
+     * @param firstError the first failure (the status and body of the response, or the exception), or null.
+     */
+    public record Report(long games, long requests, long errors, long nanos, LatencyHistogram latencies, String firstError) {
+        @Override
+        public String toString() {
+            return String.format("%d games, %d requests (%d errors) in %.1f s: %.0f requests/s, p50 %.2f ms, p99 %.2f ms",
+                    games, requests, errors, nanos / 1e9, requests / (nanos / 1e9),
+                    latencies.percentile(50) / 1e3, latencies.percentile(99) / 1e3);
+        }
+    }
+
+    /**
+     * Method to play games against a server.
+     *
+     * @param server  the URL of the server.
+     * @param game    "tictactoe" or "nim" (from the piles {3, 4, 5}).
+     * @param clients the number of clients (each plays its games one after another).
+     * @param games   the number of games per client.
+     * @param millis  the time budget of each move.
+     * @param seed    the seed of the clients' random moves.
+     * @return the Report of the run.
+     */
+    public static Report run(URI server, String game, int clients, int games, long millis, long seed) {
+        if (!game.equals("tictactoe") && !game.equals("nim")) throw new RuntimeException("LoadGenerator: unknown game: " + game);
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong completed = new AtomicLong(), requests = new AtomicLong(), errors = new AtomicLong();
+        AtomicReference<String> firstError = new AtomicReference<>();
+        long t0 = System.nanoTime();
+        try (HttpClient http = HttpClient.newHttpClient();
+             ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int c = 0; c < clients; c++) {
+                Client client = new Client(http, server, millis, random.split(), latencies, requests);
+                threads.execute(() -> {
+                    for (int g = 0; g < games; g++) {
+                        try {
+                            if (game.equals("tictactoe")) client.playTicTacToe();
+                            else client.playNim(3, 4, 5);
+                            completed.incrementAndGet();
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                            firstError.compareAndSet(null, e.toString());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }   // closing the executor waits for the clients
+        return new Report(completed.get(), requests.get(), errors.get(), System.nanoTime() - t0, latencies, firstError.get());
+    }
+
+    /**
+     * A client, which plays its games one after another.
+     */
+    private static class Client {
+
+        /**
+         * Method to play a game of TicTacToe, in which the client moves first in every other game.
+         */
+        void playTicTacToe() throws IOException, InterruptedException {
+            char[] board = ".........".toCharArray();
+            boolean serverToMove = random.nextBoolean();
+            for (int stones = 0; stones < 9; stones++) {
+                char mark = stones % 2 == 0 ? 'X' : 'O';
+                int cell;
+                if (serverToMove) {
+                    String position = new String(board, 0, 3) + "/" + new String(board, 3, 3) + "/" + new String(board, 6, 3);
+                    int[] move = move("/tictactoe/move?position=" + position);
+                    cell = 3 * move[0] + move[1];
+                } else {
+                    do cell = random.nextInt(9); while (board[cell] != '.');
+                }
+                board[cell] = mark;
+                if (wins(board, mark)) return;
+                serverToMove = !serverToMove;
+            }
+        }
+
+        /**
+         * Method to play a game of Nim.
+         *
+         * @param piles the initial piles.
+         */
+        void playNim(int... piles) throws IOException, InterruptedException {
+            piles = piles.clone();
+            boolean serverToMove = random.nextBoolean();
+            while (Arrays.stream(piles).sum() > 0) {
+                if (serverToMove) {
+                    StringBuilder query = new StringBuilder("/nim/move?piles=");
+                    for (int i = 0; i < piles.length; i++) query.append(i > 0 ? "," : "").append(piles[i]);
+                    int[] move = move(query.toString());
+                    piles[move[0]] -= move[1];
+                } else {
+                    int pile;
+                    do pile = random.nextInt(piles.length); while (piles[pile] == 0);
+                    piles[pile] -= 1 + random.nextInt(piles[pile]);
+                }
+                serverToMove = !serverToMove;
+            }
+        }
+
+        /**
+         * Method to ask the server for a move.
+         *
+         * @param path the path and query of the request (without the time budget).
+         * @return the two numbers of the move.
+         * @throws IOException if the request fails, or is not answered with a move.
+         */
+        private int[] move(String path) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(server.resolve(path + "&millis=" + millis)).build();
+            long t0 = System.nanoTime();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            long nanos = System.nanoTime() - t0;
+            Matcher move = MOVE.matcher(response.body());
+            if (response.statusCode() != 200 || !move.find())
+                throw new IOException("request " + path + ": " + response.statusCode() + " " + response.body());
+            latencies.record(nanos);
+            requests.incrementAndGet();
+            return new int[]{Integer.parseInt(move.group(1)), Integer.parseInt(move.group(2))};
+        }
+
+        private static boolean wins(char[] board, char mark) {
+            for (int[] line : LINES)
+                if (board[line[0]] == mark && board[line[1]] == mark && board[line[2]] == mark) return true;
+            return false;
+        }
+
+        Client(HttpClient http, URI server, long millis, SplittableRandom random, LatencyHistogram latencies, AtomicLong requests) {
+            this.http = http;
+            this.server = server;
+            this.millis = millis;
+            this.random = random;
+            this.latencies = latencies;
+            this.requests = requests;
+        }
+
+        private static final int[][] LINES = {{0, 1, 2}, {3, 4, 5}, {6, 7, 8}, {0, 3, 6}, {1, 4, 7}, {2, 5, 8}, {0, 4, 8}, {2, 4, 6}};
+        private static final Pattern MOVE = Pattern.compile("\"move\":\\[(\\d+),(\\d+)]");
+
+        private final HttpClient http;
+        private final URI server;
+        private final long millis;
+        private final SplittableRandom random;
+        private final LatencyHistogram latencies;
+        private final AtomicLong requests;
+    }
+}
@@ -0,0 +1,224 @@
+package mcts.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import mcts.nim.NimBatch;
+import mcts.tictactoe.TicTacToeBatch;
+import mcts.util.BatchPipeline;
+import mcts.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * A move server over HTTP (using only the JDK's HttpServer), for many simultaneous games: a client sends
+ * a position, and gets the move of a search of that position within its time budget.
+ * <ul>
+ *     <li>{@code GET /tictactoe/move?position=XX./OO./...&millis=100} (a position as for TicTacToeBatch),</li>
+ *     <li>{@code GET /nim/move?piles=3,4,5&millis=100} (a position as for NimBatch),</li>
+ *     <li>{@code GET /stats}: the requests served so far, and the p50, p99 and maximum of their latencies.</li>
+ * </ul>
+ * The response to a move request is the JSON object of the analysis of the position (the move, the visits, the
+ * iterations), with the time the request waited for a search thread ({@code queueNanos}) and its total time
+ * ({@code nanos}); a position which is not valid gets the status 400, and a request which finds the queue of
+ * searches full gets 503.
+ * <p>
+ * Each request is handled on a virtual thread of its own, which parses the request, and then waits (without
+ * holding a platform thread) for its search to run on a fixed pool of platform threads, one per processor by default:
+ * the searches are CPU-bound, so they never run on (and pin) the carriers of the virtual threads, and there are never
+ * more searches at a time than processors, however many requests are waiting.
+ * The time budget ({@code millis}, DEFAULT_MILLIS if absent, at most MAX_MILLIS) runs from the arrival of the request,
+ * so the time spent waiting for a search thread is deducted from the search
+ * (which still runs a few iterations, so that it has a move).
+ */
+public class MoveServer implements AutoCloseable {
+
+    /**
+     * Run a server until it is killed.
+     * Unless it is set on the command line, the property sun.net.httpserver.nodelay is set to true (see the
+     * constructor) before the server is created.
+     *
+     * @param args the port (by default, PORT) and the number of search threads (by default, one per processor).
+     */
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty(NODELAY) == null) System.setProperty(NODELAY, "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        MoveServer server = new MoveServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), threads, QUEUE);
+        System.out.printf("Move server on http://localhost:%d (%d search threads)%n", server.port(), threads);
+    }
+
+    /**
+     * @return the port on which the server listens (e.g. when it was created for port 0).
+     */
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    /**
+     * @return the latencies of the move requests served so far.
+     */
+    public LatencyHistogram latencies() {
+        return latencies;
+    }
+
+    /**
+     * Method to stop the server: it stops accepting requests, and waits at most a second for those in progress.
+     */
+    @Override
+    public void close() {
+        http.stop(1);
+        requests.close();
+        searches.shutdownNow();
+    }
+
+    /**
+     * Method to handle a move request (on its virtual thread).
+     *
+     * @param exchange the request and its response.
+     * @param analysis the analysis of the position with a time limit.
+     * @param key      the name of the parameter which holds the position.
+     */
+    private void move(HttpExchange exchange, BiFunction<String, Duration, Map<String, Object>> analysis, String key) throws IOException {
+        long t0 = System.nanoTime();
+        Map<String, String> query = query(exchange);
+        String position = query.get(key);
+        int status = 200;
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            if (position == null) throw new IllegalArgumentException("missing parameter: " + key);
+            long millis = Math.min(MAX_MILLIS, Long.parseLong(query.getOrDefault("millis", String.valueOf(DEFAULT_MILLIS))));
+            if (millis < 0) throw new IllegalArgumentException("negative time budget: " + millis);
+            long deadline = t0 + TimeUnit.MILLISECONDS.toNanos(millis);
+            long[] started = new long[1];
+            Future<Map<String, Object>> search = searches.submit(() -> {
+                started[0] = System.nanoTime();
+                return analysis.apply(position, Duration.ofNanos(Math.max(0, deadline - started[0])));
+            });
+            result.putAll(search.get());
+            result.put("queueNanos", started[0] - t0);
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            result.put("error", String.valueOf(e.getMessage()));
+        } catch (ExecutionException e) {
+            status = e.getCause() instanceof IllegalArgumentException ? 400 : 500;
+            result.put("error", String.valueOf(e.getCause().getMessage()));
+        } catch (RejectedExecutionException e) {
+            status = 503;
+            result.put("error", "too many searches waiting");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = 503;
+            result.put("error", "interrupted");
+        }
+        result.put("nanos", System.nanoTime() - t0);
+        respond(exchange, status, result);
+        if (status == 200) latencies.record(System.nanoTime() - t0);
+        else errors.incrementAndGet();
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", latencies.count());
+        result.put("errors", errors.get());
+        result.put("p50Micros", latencies.percentile(50));
+        result.put("p99Micros", latencies.percentile(99));
+        result.put("maxMicros", latencies.percentile(100));
+        result.put("searchThreads", searches.getMaximumPoolSize());
+        result.put("searchesWaiting", searches.getQueue().size());
+        respond(exchange, 200, result);
+    }
+
+    private static void respond(HttpExchange exchange, int status, Map<String, Object> result) throws IOException {
+        byte[] body = BatchPipeline.json(result).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return query;
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Constructor: the server starts at once.
+     * <p>
+     * The HttpServer writes the headers and the body of a response separately, so that without TCP_NODELAY the
+     * body waits for the client's delayed ACK (some 40 ms on Linux, four times a typical time budget).
+     * TCP_NODELAY is set by the JVM-wide property sun.net.httpserver.nodelay, which is read when the first
+     * HttpServer of the JVM is created: it is not set here (since it would change every other HttpServer of the
+     * JVM), but by main, or else by {@code -Dsun.net.httpserver.nodelay=true} on the command line.
+     *
+     * @param address the address on which to listen (port 0 for any free port).
+     * @param threads the number of search threads.
+     * @param queue   the number of searches which may wait for a search thread (beyond which requests get 503).
+     * @throws IOException if the address cannot be bound.
+     */
+    public MoveServer(InetSocketAddress address, int threads, int queue) throws IOException {
+        searches = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue));
+        requests = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpServer.create(address, BACKLOG);
+        http.setExecutor(requests);
+        http.createContext("/tictactoe/move", exchange -> move(exchange, TicTacToeBatch::analyze, "position"));
+        http.createContext("/nim/move", exchange -> move(exchange, NimBatch::analyze, "piles"));
+        http.createContext("/stats", this::stats);
+        http.start();
+    }
+
+    /**
+     * The default port.
+     */
+    public static final int PORT = 8080;
+
+    /**
+     * The default time budget of a move (in milliseconds).
+     */
+    public static final long DEFAULT_MILLIS = 100;
+
+    /**
+     * The largest time budget of a move (in milliseconds).
+     */
+    public static final long MAX_MILLIS = 10_000;
+
+    /**
+     * The default number of searches which may wait for a search thread.
+     */
+    public static final int QUEUE = 10_000;
+
+    private static final int BACKLOG = 1_024;
+    private static final String NODELAY = "sun.net.httpserver.nodelay";
+
+    private final HttpServer http;
+    private final ExecutorService requests;
+    private final ThreadPoolExecutor searches;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+}
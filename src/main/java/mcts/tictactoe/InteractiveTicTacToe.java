@@ -1,49 +1,67 @@
 package mcts.tictactoe;
 
 import mcts.core.Move;
+import mcts.core.MoveEvent;
 import mcts.core.State;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Optional;
 import java.util.Scanner;
 
 /**
  * Interactive TicTacToe driver allowing Human vs MCTS, MCTS vs Human, or Human vs Human.
+ * A player may also be the Tablebase, which answers instantly with a perfect move.
+ * If the opening book (see TicTacToeBook) has been built, the AI answers the positions of the book without searching.
  */
 public class InteractiveTicTacToe {
 
-    private enum PlayerType { HUMAN, MCTS }
+    private enum PlayerType { HUMAN, MCTS, TABLEBASE }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Scanner scanner = new Scanner(System.in);
         // choose types for X (1) and O (0)
-        System.out.print("Select X player (H = Human, A = AI): ");
+        System.out.print("Select X player (H = Human, A = AI, T = Tablebase): ");
         PlayerType xType = promptType(scanner);
-        System.out.print("Select O player (H = Human, A = AI): ");
+        System.out.print("Select O player (H = Human, A = AI, T = Tablebase): ");
         PlayerType oType = promptType(scanner);
+        // the tablebase is generated (in a few milliseconds) the first time it is needed
+        Tablebase tablebase = xType == PlayerType.TABLEBASE || oType == PlayerType.TABLEBASE ?
+                Tablebase.openOrGenerate(Tablebase.FILE) : null;
 
         TicTacToe game = new TicTacToe();
         State<TicTacToe> state = game.start();
         int currentPlayer = game.opener();  // X starts
+        // one search for the whole game: its root follows the moves played, keeping the relevant statistics
+        MCTS mcts = new MCTS(new TicTacToeNode(state), Math.sqrt(2));
+        if (Files.exists(TicTacToeBook.FILE)) mcts.setOpeningBook(TicTacToeBook.open(TicTacToeBook.FILE));
 
         // loop until terminal
         while (!state.isTerminal()) {
             System.out.println("\nCurrent board:");
             System.out.println(((TicTacToe.TicTacToeState)state).position().render());
 
+            // each move (the human's input, or the search) is reported to the flight recorder
+            MoveEvent event = new MoveEvent();
+            event.begin();
+            PlayerType type = playerType(currentPlayer, xType, oType);
+            boolean human = type == PlayerType.HUMAN;
             Move<TicTacToe> move;
-            if (playerType(currentPlayer, xType, oType) == PlayerType.HUMAN) {
+            if (human) {
                 move = humanMove(scanner, state, currentPlayer);
+            } else if (type == PlayerType.TABLEBASE) {
+                move = tablebase.bestMove(state);
+                System.out.printf("Tablebase plays: %d,%d\n", ((TicTacToe.TicTacToeMove)move).move()[0], ((TicTacToe.TicTacToeMove)move).move()[1]);
             } else {
-                System.out.println("AI is thinking...");
+                System.out.printf("AI is thinking... (reusing %d playouts)\n", mcts.root().playouts());
                 // simple MCTS with fixed iterations
-                TicTacToeNode root = new TicTacToeNode(state);
-                MCTS mcts = new MCTS(root, Math.sqrt(2));
-                mcts.runSearch(100_000);
+                int iterations = mcts.runSearch(100_000);
                 move = mcts.bestMove();
-                System.out.printf("AI plays: %d,%d\n", ((TicTacToe.TicTacToeMove)move).move()[0], ((TicTacToe.TicTacToeMove)move).move()[1]);
+                System.out.printf(iterations == 0 ? "AI plays from the book: %d,%d\n" : "AI plays: %d,%d\n", ((TicTacToe.TicTacToeMove)move).move()[0], ((TicTacToe.TicTacToeMove)move).move()[1]);
             }
 
             state = state.next(move);
+            event.report(MCTS.GAME, currentPlayer, human, move, mcts.advance(move));
             currentPlayer = 1 - currentPlayer;
         }
 
@@ -64,7 +82,8 @@ public class InteractiveTicTacToe {
             String line = scanner.nextLine().trim().toUpperCase();
             if (line.startsWith("H")) return PlayerType.HUMAN;
             if (line.startsWith("A")) return PlayerType.MCTS;
-            System.out.print("Please enter H or A: ");
+            if (line.startsWith("T")) return PlayerType.TABLEBASE;
+            System.out.print("Please enter H, A or T: ");
         }
     }
 
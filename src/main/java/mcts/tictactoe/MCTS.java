@@ -1,12 +1,37 @@
 package mcts.tictactoe;
 
+import mcts.core.ArenaSearch;
+import mcts.core.ConcurrentNode;
+import mcts.core.EarlyStop;
+import mcts.core.LeafEvaluator;
 import mcts.core.Move;
 import mcts.core.Node;
+import mcts.core.NodeArena;
+import mcts.core.OpeningBook;
+import mcts.core.Playout;
+import mcts.core.Proof;
+import mcts.core.RandomState;
+import mcts.core.RolloutEvent;
+import mcts.core.SearchEvent;
+import mcts.core.SearchProfiler;
 import mcts.core.State;
+import mcts.core.TranspositionTable;
+import mcts.core.TreeParallelSearch;
+import mcts.core.TreeSnapshot;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Class to represent a Monte Carlo Tree Search for TicTacToe.
@@ -23,114 +48,577 @@ public class MCTS {
     }
 
     /**
-     * Run the MCTS algorithm for the given number of iterations.
+     * Run the MCTS algorithm for (at most) the given number of iterations.
+     * Unless the rule set by setEarlyStop is NONE, it is checked every STOP_CHECK_INTERVAL iterations,
+     * and the search stops as soon as the rule considers the best move decided.
+     * If the root is in the opening book (see setOpeningBook), nothing is searched.
+     * Like the other searches, it is reported to the flight recorder as a SearchEvent.
+     *
+     * @param iterations the budget of iterations.
+     * @return the number of iterations actually run (the rest of the budget was saved by stopping early).
      */
-    public void runSearch(int iterations) {
+    public int runSearch(int iterations) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long nodes = nodesCreated();
+        int done = bookMove() != null ? 0 : search(iterations);
+        event.report(GAME, arenaSearch != null ? "arena" : "sequential", iterations, null, done,
+                nodesCreated() - nodes, this::chosenMove);
+        return done;
+    }
+
+    /**
+     * Run the MCTS algorithm for (at most) the given number of iterations, without reporting a SearchEvent.
+     *
+     * @param iterations the budget of iterations.
+     * @return the number of iterations actually run.
+     */
+    private int search(int iterations) {
+        if (arenaSearch != null) {
+            arenaSearch.run(iterations);
+            return iterations;
+        }
+        SearchProfiler.Recorder recorder = profiler == null ? null : profiler.recorder();
         for (int i = 0; i < iterations; i++) {
+            if (solver && root.proof() != Proof.UNKNOWN) return i;
+            if (i > 0 && i % STOP_CHECK_INTERVAL == 0 && decided(iterations - i)) return i;
+            long lap = recorder == null ? 0 : recorder.start();
+
             // 1. SELECTION
             List<Node<TicTacToe>> path = new ArrayList<>();
+            int[] edges = new int[MAX_DEPTH]; // edges[k] is the index of path[k+1] among the children of path[k]
             Node<TicTacToe> node = root;
             path.add(node);
             while (!node.isLeaf() && !node.children().isEmpty()) {
-                node = selectUCT(node);
+                int edge = selectUCT((TicTacToeNode) node);
+                if (edge < 0) break;      // (solver) all the children have been proven, through other parents
+                edges[path.size() - 1] = edge;
+                node = ((TicTacToeNode) node).child(edge);
                 path.add(node);
             }
+            if (recorder != null) lap = recorder.selection(lap, path.size() - 1);
 
-            // 2. EXPANSION
-            if (!node.isLeaf() && node.children().isEmpty()) {
+            // 2. EXPANSION (unless the leaf evaluator knows the outcome of the leaf)
+            // (the root is expanded all the same, to have moves to choose from)
+            int result = node == root ? LeafEvaluator.UNKNOWN : evaluate(node);
+            if (result == LeafEvaluator.UNKNOWN && !node.isLeaf() && node.children().isEmpty()) {
                 node.explore();           // adds all immediate children
+                nodesCreated += node.children().size();
+                if (recorder != null) lap = recorder.expansion(lap, node.children().size());
                 // pick one child to simulate
+                edges[path.size() - 1] = 0;
                 node = node.children().iterator().next();
                 path.add(node);
+                result = evaluate(node);
             }
 
-            // 3. SIMULATION (rollout)
-            State<TicTacToe> state = node.state();
-            int result = simulate(state);
+            // 3. SIMULATION (rollout), unless the leaf evaluator knows the outcome
+            if (result == LeafEvaluator.UNKNOWN) result = simulate(node.state(), recorder);
+            if (recorder != null) lap = recorder.simulation(lap);
 
-            // 4. BACKPROPAGATION
-            for (Node<TicTacToe> n : path) {
-                TicTacToeNode tn = (TicTacToeNode)n;
+            // 4. BACKPROPAGATION (each node on the path once, and each edge taken, in case nodes are shared)
+            for (int k = 0; k < path.size(); k++) {
+                TicTacToeNode tn = (TicTacToeNode) path.get(k);
                 tn.recordPlayout();
                 tn.recordWin(result);
+                if (k < path.size() - 1) tn.recordEdgePlayouts(edges[k], 1);
             }
+            // (solver) prove the nodes of the path whose values now follow from their children
+            if (solver) Proof.propagate(path);
+            if (recorder != null) recorder.backPropagation(lap);
+        }
+        return iterations;
+    }
+
+    /**
+     * Method to set the rule by which runSearch may stop before its budget is exhausted
+     * (not applied to the parallel searches, nor with a NodeArena).
+     *
+     * @param earlyStop the rule (EarlyStop.NONE, the default, to always run the whole budget).
+     */
+    public void setEarlyStop(EarlyStop earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    /**
+     * Method to turn on (or off) the MCTS-Solver: the nodes whose game-theoretic values are known (terminal nodes,
+     * and then their ancestors, by the minimax rules of Proof) are proven, and selection skips the proven children.
+     * The search stops as soon as the root is proven, and bestMove() then chooses a proven win (or draw).
+     * It is not applied to the parallel searches, nor with a NodeArena.
+     *
+     * @param solver true to prove nodes (false, the default, for plain MCTS).
+     */
+    public void setSolver(boolean solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Method to set an exact evaluator of the leaves: a leaf whose outcome it knows is neither expanded nor simulated,
+     * its outcome is backpropagated instead (and, with the solver, proves the leaf).
+     * It is not applied to the parallel searches, nor with a NodeArena.
+     *
+     * @param evaluator the LeafEvaluator (null, the default, to simulate every leaf).
+     */
+    public void setLeafEvaluator(LeafEvaluator<TicTacToe> evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Method to set the opening book which runSearch and bestMove consult first: if the root is in the book,
+     * runSearch searches nothing, and bestMove returns the move of the book.
+     * It is not consulted by the parallel searches.
+     *
+     * @param book the OpeningBook (null, the default, to always search).
+     */
+    public void setOpeningBook(OpeningBook<TicTacToe> book) {
+        this.book = book;
+    }
+
+    /**
+     * @return the move of the opening book for the root, or null if there is no book or the root is not in it.
+     */
+    private Move<TicTacToe> bookMove() {
+        if (book == null) return null;
+        return book.move(arenaSearch != null ? arenaSearch.rootState() : root.state());
+    }
+
+    /**
+     * Method to set the profiler into which the searches record the time and the statistics of each phase
+     * (the root-parallel workers and the tree-parallel threads each record into their own thread's accumulators;
+     * a search in a NodeArena records nothing).
+     *
+     * @param profiler the SearchProfiler, or null (the default) to record nothing.
+     */
+    public void setProfiler(SearchProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Method to apply the early-stop rule to the children of the root: the visits are the playouts through the
+     * root's edges, but the mean of each child comes from its own statistics (in a DAG, a child may also have
+     * been reached through other parents, e.g. before advance() made it a child of the root).
+     *
+     * @param remaining the number of iterations left in the budget.
+     * @return true if the search may stop.
+     */
+    private boolean decided(int remaining) {
+        if (solver && root.proof() != Proof.UNKNOWN) return true;
+        if (earlyStop == EarlyStop.NONE || root.isLeaf()) return false;
+        TicTacToeNode tn = (TicTacToeNode) root;
+        int count = tn.children().size();
+        for (int i = 0; i < count; i++) {
+            Node<TicTacToe> child = tn.child(i);
+            childMeans[i] = child.playouts() == 0 ? 0 : child.wins() / (2.0 * child.playouts());
+            childVisits[i] = tn.edgePlayouts(i);
+        }
+        return earlyStop.decided(childMeans, childVisits, count, remaining);
+    }
+
+    /**
+     * Run the MCTS algorithm until the given time has elapsed (an "anytime" search).
+     * The clock is read only once every CLOCK_CHECK_INTERVAL iterations, and at least that many iterations
+     * are run, so that bestMove() always has a move to return when time runs out.
+     * The early-stop rule is applied between two reads of the clock, with an unbounded number of remaining
+     * iterations (so that only EarlyStop.CONFIDENCE_BOUND can stop such a search); with the solver,
+     * the search also stops once the root is proven. If the root is in the opening book, nothing is searched.
+     *
+     * @param timeLimit the wall-clock time allowed for the search.
+     * @return the number of iterations completed.
+     */
+    public int runSearch(Duration timeLimit) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long nodes = nodesCreated();
+        long deadline = System.nanoTime() + timeLimit.toNanos();
+        int iterations = 0;
+        if (bookMove() == null) do {
+            iterations += search(CLOCK_CHECK_INTERVAL);
+        } while (System.nanoTime() - deadline < 0 && !terminal() && (arenaSearch != null || !decided(Integer.MAX_VALUE)));
+        event.report(GAME, "time-limited", 0, timeLimit, iterations, nodesCreated() - nodes, this::chosenMove);
+        return iterations;
+    }
+
+    /**
+     * @return true if the game is over at the root (so that there is nothing to search, however much time is left).
+     */
+    private boolean terminal() {
+        return arenaSearch != null ? arenaSearch.rootState().isTerminal() : root.isLeaf();
+    }
+
+    /**
+     * Run the MCTS algorithm in root-parallel mode, using one worker per available processor.
+     *
+     * @param iterations the total number of iterations, split across the workers.
+     */
+    public void runParallelSearch(int iterations) {
+        runParallelSearch(iterations, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Run the MCTS algorithm in root-parallel mode.
+     * Each worker searches its own independent tree (with its own random stream) on a fork-join pool.
+     * When all workers are done, the statistics of their root children are merged into the children of this root,
+     * so that {@link #bestMove()} picks from the combined visits.
+     *
+     * @param iterations the total number of iterations, split (as evenly as possible) across the workers.
+     * @param workers    the number of independent trees to search.
+     */
+    public void runParallelSearch(int iterations, int workers) {
+        if (root == null) throw new RuntimeException("runParallelSearch: not supported with a NodeArena");
+        if (workers < 1) throw new RuntimeException("runParallelSearch: workers must be positive: " + workers);
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long nodes = nodesCreated;
+        TicTacToe.TicTacToeState rootState = (TicTacToe.TicTacToeState) root.state();
+        List<Callable<Node<TicTacToe>>> tasks = new ArrayList<>();
+        LongAdder created = new LongAdder();
+        for (int w = 0; w < workers; w++) {
+            int share = iterations / workers + (w < iterations % workers ? 1 : 0);
+            // each worker gets its own game (and so its own random source), split off the root's random source.
+            TicTacToe workerGame = new TicTacToe(RandomState.split(rootState.random()));
+            TranspositionTable<TicTacToe> table = ((TicTacToeNode) root).table();
+            tasks.add(() -> {
+                TicTacToeNode workerRoot = new TicTacToeNode(workerGame.new TicTacToeState(rootState.position()),
+                        table == null ? null : table.emptyCopy());
+                MCTS worker = new MCTS(workerRoot, Cp);
+                worker.setProfiler(profiler);
+                worker.search(share);
+                if (profiler != null) profiler.release();      // the threads of the pool end with the search
+                created.add(worker.nodesCreated);
+                return workerRoot;
+            });
+        }
+        try (ForkJoinPool pool = new ForkJoinPool(workers)) {
+            for (Future<Node<TicTacToe>> future : pool.invokeAll(tasks)) mergeRoot(future.get());
+            nodesCreated += created.sum();
+            event.report(GAME, "root-parallel", iterations, null, iterations, nodesCreated - nodes, this::chosenMove);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("runParallelSearch: interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("runParallelSearch: worker failed", e.getCause());
+        }
+    }
+
+    /**
+     * Run the MCTS algorithm in tree-parallel mode: the given number of threads search this (shared) tree,
+     * using virtual loss to spread themselves across siblings.
+     *
+     * @param iterations the total number of iterations, shared between the threads.
+     * @param threads    the number of threads.
+     */
+    public void runConcurrentSearch(int iterations, int threads) {
+        if (root == null) throw new RuntimeException("runConcurrentSearch: not supported with a NodeArena");
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        TreeParallelSearch<TicTacToe> search =
+                new TreeParallelSearch<>((ConcurrentNode<TicTacToe>) root, Cp, TreeParallelSearch.VIRTUAL_LOSS, profiler);
+        search.run(iterations, threads);
+        nodesCreated += search.nodesCreated();
+        event.report(GAME, "tree-parallel", iterations, null, iterations, search.nodesCreated(), this::chosenMove);
+    }
+
+    /**
+     * Advance the root through a move actually played (by either player).
+     * The child reached by the move becomes the new root, keeping its statistics for the next search,
+     * and the rest of the tree (including the entries of the transposition table, if any) is released.
+     * If the move leads to a node which has not been created yet, or to a node shared by a symmetric position
+     * (whose State is not the one actually reached), the search continues from a fresh root.
+     * With a NodeArena, the arena is reset for the new root.
+     *
+     * @param move the Move played from the current root.
+     * @return the number of playouts carried over to the new root.
+     */
+    public int advance(Move<TicTacToe> move) {
+        if (arenaSearch != null) {
+            arenaSearch = new ArenaSearch<>(arenaSearch.rootState().next(move), arenaSearch.arena(), Cp);
+            return 0;
         }
+        State<TicTacToe> next = root.state().next(move);
+        TranspositionTable<TicTacToe> table = ((TicTacToeNode) root).table();
+        Node<TicTacToe> newRoot = null;
+        for (Node<TicTacToe> child : root.children())
+            if (child.state().equals(next)) newRoot = child;
+        if (newRoot == null) {
+            if (table != null) table.clear();
+            newRoot = new TicTacToeNode(next, table);
+        } else if (table != null) table.retain(newRoot);
+        root = newRoot;
+        return root.playouts();
+    }
+
+    /**
+     * @return the number of nodes created so far by the searches of this MCTS (the size of the arena, with a NodeArena).
+     */
+    public long nodesCreated() {
+        return arenaSearch != null ? arenaSearch.arena().size() : nodesCreated;
+    }
+
+    /**
+     * @return the best move, or null if the root has no children (yet).
+     */
+    private TicTacToe.TicTacToeMove chosenMove() {
+        boolean expanded = arenaSearch != null ? arenaSearch.hasBestMove() : !root.isLeaf() && !root.children().isEmpty();
+        return expanded || bookMove() != null ? bestMove() : null;
+    }
+
+    /**
+     * @return the root of the search (null if the nodes are stored in a NodeArena).
+     */
+    public Node<TicTacToe> root() {
+        return root;
+    }
+
+    /**
+     * Add the statistics of the children of a worker's root to the matching children of this root.
+     *
+     * @param workerRoot the root of a tree searched independently from the same state as this root.
+     */
+    private void mergeRoot(Node<TicTacToe> workerRoot) {
+        if (root.isLeaf()) return;
+        if (root.children().isEmpty()) root.explore();
+        TicTacToeNode tn = (TicTacToeNode) root, wn = (TicTacToeNode) workerRoot;
+        Map<State<TicTacToe>, Integer> children = new HashMap<>();
+        for (int i = 0; i < tn.children().size(); i++) children.put(tn.child(i).state(), i);
+        for (int j = 0; j < wn.children().size(); j++) {
+            Node<TicTacToe> wc = wn.child(j);
+            Integer i = children.get(wc.state());
+            if (i == null) throw new RuntimeException("mergeRoot: no matching child for " + wc.state());
+            ((TicTacToeNode) tn.child(i)).recordStatistics(wc.wins(), wc.playouts());
+            tn.recordEdgePlayouts(i, wn.edgePlayouts(j));
+        }
+        if (tn.table() == null) root.backPropagate();
+        else tn.recordStatistics(workerRoot.wins(), workerRoot.playouts());
     }
 
     /**
      * Select the child of 'node' with highest UCT value.
+     * The exploitation term uses the child's own statistics; the exploration term uses the playouts through
+     * the edge from 'node' (which, in a DAG, may be fewer than the child's playouts).
+     * With the solver, the proven children are skipped.
+     *
+     * @return the index of the selected child (-1 if every child is skipped).
      */
-    private Node<TicTacToe> selectUCT(Node<TicTacToe> node) {
-        Node<TicTacToe> best = null;
+    int selectUCT(TicTacToeNode node) {
+        int best = -1;
         double bestValue = Double.NEGATIVE_INFINITY;
         double parentPlayouts = node.playouts();
-        for (Node<TicTacToe> child : node.children()) {
+        for (int i = 0; i < node.children().size(); i++) {
+            Node<TicTacToe> child = node.child(i);
+            if (solver && child.proof() != Proof.UNKNOWN) continue;
             double childPlayouts = child.playouts();
+            double edgePlayouts = node.edgePlayouts(i);
             double uctValue;
-            if (childPlayouts == 0) {
+            if (childPlayouts == 0 || edgePlayouts == 0) {
                 uctValue = Double.POSITIVE_INFINITY;
             } else {
                 double winRate = (double) child.wins() / childPlayouts;
-                uctValue = winRate + Cp * Math.sqrt(Math.log(parentPlayouts) / childPlayouts);
+                uctValue = winRate + Cp * Math.sqrt(Math.log(parentPlayouts) / edgePlayouts);
             }
             if (uctValue > bestValue) {
                 bestValue = uctValue;
-                best = child;
+                best = i;
             }
         }
         return best;
     }
 
+    /**
+     * @param node the leaf of an iteration.
+     * @return the outcome of the leaf according to the evaluator (which, with the solver, proves the leaf),
+     * or LeafEvaluator.UNKNOWN.
+     */
+    private int evaluate(Node<TicTacToe> node) {
+        if (evaluator == null) return LeafEvaluator.UNKNOWN;
+        int winner = evaluator.winner(node.state());
+        if (solver && winner != LeafEvaluator.UNKNOWN) node.prove(Proof.of(node.state(), winner));
+        return winner;
+    }
+
     /**
      * Do a random playout from the given state to a terminal state.
+     * If the state supports it, the playout is run in place on the scratch Playout.
+     * @param recorder the Recorder of the length of the rollout (or null).
      * @return the winner (0 or 1), or -1 for a draw.
      */
-    private int simulate(State<TicTacToe> s) {
-        State<TicTacToe> cur = s;
-        while (!cur.isTerminal()) {
-            int player = cur.player();
-            Move<TicTacToe> m = cur.chooseMove(player);
-            cur = cur.next(m);
+    private int simulate(State<TicTacToe> s, SearchProfiler.Recorder recorder) {
+        RolloutEvent event = new RolloutEvent();
+        event.begin();
+        int length = 0;
+        int winner;
+        if (playout != null) {
+            playout.reset(s);
+            for (; !playout.isTerminal(); length++) playout.play(playout.randomMove());
+            winner = playout.winner();
+        } else {
+            State<TicTacToe> cur = s;
+            for (; !cur.isTerminal(); length++) {
+                int player = cur.player();
+                Move<TicTacToe> m = cur.chooseMove(player);
+                cur = cur.next(m);
+            }
+            Optional<Integer> w = cur.winner();
+            winner = w.orElse(-1);
         }
-        Optional<Integer> winner = cur.winner();
-        return winner.orElse(-1);
+        if (recorder != null) recorder.rollout(length);
+        event.report(GAME, length, winner);
+        return winner;
     }
 
     /**
      * After search, pick the most visited child as the best move.
+     * The move is the one recorded on the edge to that child (which, if the child is shared by symmetric
+     * positions, is the move actually available from the root, rather than one leading to the canonical state).
+     * If the root is in the opening book, the move of the book is returned instead.
      */
     public TicTacToe.TicTacToeMove bestMove() {
-        State<TicTacToe> rootState = root.state();
-        int player = rootState.player();
+        Move<TicTacToe> move = bookMove();
+        if (move != null) return (TicTacToe.TicTacToeMove) move;
+        if (arenaSearch != null) return (TicTacToe.TicTacToeMove) arenaSearch.bestMove();
+        TicTacToeNode tn = (TicTacToeNode) root;
+        int best = bestChild(tn);
+        if (best < 0) throw new RuntimeException("bestMove: the root has not been expanded");
+        return (TicTacToe.TicTacToeMove) tn.move(best);
+    }
 
-        // 1. pick the most‑visited child
-        Node<TicTacToe> bestChild = null;
+    /**
+     * Method to save a snapshot of the search tree, from which a later search can start
+     * (see TicTacToeNode.fromSnapshot).
+     * The tree must not share nodes (i.e. it must not use a TranspositionTable).
+     *
+     * @param file the file to write.
+     * @return the number of nodes saved.
+     * @throws IOException if the file cannot be written.
+     */
+    public int saveSnapshot(Path file) throws IOException {
+        if (root == null) throw new RuntimeException("saveSnapshot: not supported with a NodeArena");
+        return TreeSnapshot.write(root, MOVE_CODEC, file);
+    }
+
+    /**
+     * Method to extract the principal variation: the moves obtained by following, from the root,
+     * the most visited edge of each node, down to a node which has not been expanded (or is terminal).
+     * If symmetric positions share a Node, each move after the first applies to the (canonical) State of its Node,
+     * which may be a symmetry of the position actually reached by the previous moves.
+     *
+     * @return the list of Moves (empty if the root has not been expanded).
+     */
+    public List<TicTacToe.TicTacToeMove> principalVariation() {
+        if (root == null) throw new RuntimeException("principalVariation: not supported with a NodeArena");
+        List<TicTacToe.TicTacToeMove> moves = new ArrayList<>();
+        TicTacToeNode node = (TicTacToeNode) root;
+        for (int best = bestChild(node); best >= 0; best = bestChild(node)) {
+            moves.add((TicTacToe.TicTacToeMove) node.move(best));
+            node = (TicTacToeNode) node.child(best);
+        }
+        return moves;
+    }
+
+    /**
+     * Method to choose the child of a node to be played: the most visited child, except that, with the solver,
+     * a proven win is chosen at once, and proven losses are avoided (unless there is nothing else).
+     *
+     * @param node a Node.
+     * @return the index of the child (-1 if there is no child).
+     */
+    private int bestChild(TicTacToeNode node) {
+        if (!solver) return mostVisited(node);
+        int best = -1;
         int maxPlayouts = -1;
-        for (Node<TicTacToe> c : root.children()) {
-            if (c.playouts() > maxPlayouts) {
-                maxPlayouts = c.playouts();
-                bestChild = c;
+        for (int i = 0; i < node.children().size(); i++) {
+            Proof proof = node.child(i).proof();
+            if (proof == Proof.WIN) return i;
+            if (proof != Proof.LOSS && node.edgePlayouts(i) > maxPlayouts) {
+                maxPlayouts = node.edgePlayouts(i);
+                best = i;
             }
         }
+        return best >= 0 ? best : mostVisited(node);
+    }
 
-        // 2. find which Move actually transitions from rootState → bestChild.state()
-        for (Move<TicTacToe> m : rootState.moves(player)) {
-            State<TicTacToe> s2 = rootState.next(m);
-            if (s2.equals(bestChild.state())) {
-                // this is the move you want
-                return (TicTacToe.TicTacToeMove) m;
+    /**
+     * @param node a Node.
+     * @return the index of the child of node with the most playouts through its edge (-1 if there is no child).
+     */
+    private static int mostVisited(TicTacToeNode node) {
+        int best = -1;
+        int maxPlayouts = -1;
+        for (int i = 0; i < node.children().size(); i++) {
+            if (node.edgePlayouts(i) > maxPlayouts) {
+                maxPlayouts = node.edgePlayouts(i);
+                best = i;
             }
         }
-
-        throw new RuntimeException("bestMove: no matching move found");
+        return best;
     }
 
 
     public MCTS(Node<TicTacToe> root, double Cp) {
         this.root = root;
         this.Cp = Cp;
+        this.playout = root.state().playout().orElse(null);
+        this.arenaSearch = null;
     }
 
-    private final Node<TicTacToe> root;
+    /**
+     * Constructor for a search whose nodes are stored in the given arena (which is reset) rather than as Nodes.
+     * Only runSearch and bestMove are supported.
+     *
+     * @param rootState the State at the root.
+     * @param arena     the NodeArena (which may be reused from one search to the next).
+     * @param Cp        the exploration constant.
+     */
+    public MCTS(State<TicTacToe> rootState, NodeArena arena, double Cp) {
+        this.root = null;
+        this.Cp = Cp;
+        this.playout = null;
+        this.arenaSearch = new ArenaSearch<>(rootState, arena, Cp);
+    }
+
+    /**
+     * The number of iterations between two reads of the clock in a time-limited search.
+     */
+    public static final int CLOCK_CHECK_INTERVAL = 16;
+
+    /**
+     * The number of iterations between two applications of the early-stop rule.
+     */
+    public static final int STOP_CHECK_INTERVAL = 16;
+
+    /**
+     * The name of the game in the flight recorder events.
+     */
+    public static final String GAME = TicTacToe.class.getSimpleName();
+
+    /**
+     * The encoding of the moves in snapshots: the cell, 3 * row + column.
+     */
+    public static final TreeSnapshot.MoveCodec<TicTacToe> MOVE_CODEC = new TreeSnapshot.MoveCodec<>() {
+        @Override
+        public int encode(Move<TicTacToe> move) {
+            int[] cell = ((TicTacToe.TicTacToeMove) move).move();
+            return 3 * cell[0] + cell[1];
+        }
+
+        @Override
+        public Move<TicTacToe> decode(State<TicTacToe> state, int code) {
+            return new TicTacToe.TicTacToeMove(state.player(), code / 3, code % 3);
+        }
+    };
+
+    private static final int MAX_DEPTH = 9;
+    private static final int MAX_CHILDREN = 9;   // the most moves of a position (that of the empty board)
+
+    private Node<TicTacToe> root;
     private final double Cp;
+    private final Playout<TicTacToe> playout;
+    private ArenaSearch<TicTacToe> arenaSearch;
+    private EarlyStop earlyStop = EarlyStop.NONE;
+    private boolean solver;
+    private LeafEvaluator<TicTacToe> evaluator;
+    private OpeningBook<TicTacToe> book;
+    private SearchProfiler profiler;
+    private long nodesCreated;
+    private final double[] childMeans = new double[MAX_CHILDREN];  // scratch statistics of the root's children
+    private final int[] childVisits = new int[MAX_CHILDREN];
 }
\ No newline at end of file
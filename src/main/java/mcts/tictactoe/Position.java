@@ -1,13 +1,19 @@
 package mcts.tictactoe;
 
+import mcts.util.Zobrist;
+
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * This class represents the board of the Tic-tac-toe game.
- * It is a 3x3 matrix of 0s, 1s, and -1s for O, X, and . respectively.
+ * Conceptually, it is a 3x3 matrix of 0s, 1s, and -1s for O, X, and . respectively.
+ * <p>
+ * The matrix is stored as a bitboard: cell (i, j) has the index k = 3i + j,
+ * and bit k (for O) or bit 9 + k (for X) is set when the player has a stone there.
+ * Moves and the detection of three in a row are therefore simple bit operations.
+ * A Zobrist key (one random key per bit of the bitboard) is updated incrementally by each move.
  */
 public class Position {
 
@@ -58,11 +64,9 @@ public class Position {
     public Position move(int player, int x, int y) {
         if (full()) throw new RuntimeException("Position is full");
         if (player == last) throw new RuntimeException("consecutive moves by same player: " + player);
-        int[][] matrix = copyGrid();
-        if (matrix[x][y] < 0) {
-            matrix[x][y] = player;
-            return new Position(matrix, count + 1, player);
-        }
+        int k = x * gridSize + y;
+        if (isEmpty(board, k))
+            return new Position(place(board, player, k), count + 1, player, zobrist ^ ZOBRIST[player * cells + k]);
         throw new RuntimeException("Position is occupied: " + x + ", " + y);
     }
 
@@ -74,48 +78,46 @@ public class Position {
     public List<int[]> moves(int player) {
         if (player == last) throw new RuntimeException("consecutive moves by same player: " + player);
         List<int[]> result = new ArrayList<>();
-        for (int i = 0; i < gridSize; i++)
-            for (int j = 0; j < gridSize; j++)
-                if (grid[i][j] < 0)
-                    result.add(new int[]{i, j});
+        for (int k = 0; k < cells; k++)
+            if (isEmpty(board, k))
+                result.add(new int[]{k / gridSize, k % gridSize});
         return result;
     }
 
     /**
      * Method to yield a copy of this Position but reflected.
-     * <p>
-     * TESTME
      *
      * @param axis the axis about which to reflect.
      * @return a new Position.
      */
     public Position reflect(int axis) {
-        int[][] matrix = copyGrid();
-        switch (axis) {
-            case 0:
-                for (int j = 0; j < gridSize; j++) swap(matrix, 0, j, 2, j); // middle row
-                break;
-            case 1:
-                for (int i = 0; i < gridSize; i++) swap(matrix, i, 0, i, 2); // middle column
-                break;
-            default:
-                throw new RuntimeException("reflect not implemented for " + axis);
-        }
-        return new Position(matrix, count, last);
+        return switch (axis) {
+            case 0 -> new Position(permute(board, REFLECT_ROWS), count, last); // middle row
+            case 1 -> new Position(permute(board, REFLECT_COLUMNS), count, last); // middle column
+            default -> throw new RuntimeException("reflect not implemented for " + axis);
+        };
     }
 
     /**
-     * Method to rotate this Position by 90 degrees clockwise.
-     * TESTME
+     * Method to rotate this Position by 90 degrees anticlockwise.
      *
      * @return a new Position which is rotated from this.
      */
     public Position rotate() {
-        int[][] matrix = new int[gridSize][gridSize];
-        for (int i = 0; i < gridSize; i++)
-            for (int j = 0; j < gridSize; j++)
-                matrix[i][j] = grid[j][gridSize - i - 1];
-        return new Position(matrix, count, last);
+        return new Position(permute(board, ROTATE), count, last);
+    }
+
+    /**
+     * Method to yield the canonical form of this Position under the eight symmetries of the square
+     * (four rotations, each with or without a reflection).
+     * Two Positions are symmetric if and only if they have the same canonical form.
+     *
+     * @return the symmetric Position with the smallest bitboard (possibly this).
+     */
+    public Position canonical() {
+        int best = board;
+        for (int[] table : SYMMETRIES) best = Math.min(best, permute(board, table));
+        return best == board ? this : new Position(best, count, last);
     }
 
     /**
@@ -131,26 +133,12 @@ public class Position {
 
     /**
      * Method to determine if this Position has three in a row (i.e. a winning position).
-     * Don't forget to check for columns and diagonals as well.
-     * <p>
-     * NOTE: you may find the instance field xxx to be useful, as well as the projectRow, projectCol, etc. private methods.
+     * Each of the eight lines (rows, columns and diagonals) is checked against a precomputed mask.
      *
      * @return true if there are three cells in a line that are the same and equal to the last player.
      */
     boolean threeInARow() {
-        for (int i = 0; i < gridSize; i++)
-            if (allEqual(projectRow(i), last)) return true;
-        for (int j = 0; j < gridSize; j++)
-            if (allEqual(projectCol(j), last)) return true;
-        if (allEqual(projectDiag(true), last)) return true;
-        if (allEqual(projectDiag(false), last)) return true;
-        return false;
-    }
-
-    private boolean allEqual(int[] arr, int player) {
-        for (int v : arr)
-            if (v != player) return false;
-        return true;
+        return threeInARow(cellsEqualTo(last));
     }
 
     /**
@@ -160,7 +148,10 @@ public class Position {
      * @return an array of three ints.
      */
     int[] projectRow(int i) {
-        return grid[i];
+        int[] result = new int[gridSize];
+        for (int j = 0; j < gridSize; j++)
+            result[j] = cell(i * gridSize + j);
+        return result;
     }
 
     /**
@@ -172,7 +163,7 @@ public class Position {
     int[] projectCol(int j) {
         int[] result = new int[gridSize];
         for (int i = 0; i < gridSize; i++)
-            result[i] = grid[i][j];
+            result[i] = cell(i * gridSize + j);
         return result;
     }
 
@@ -186,7 +177,7 @@ public class Position {
         int[] result = new int[gridSize];
         for (int j = 0; j < gridSize; j++) {
             int i = b ? j : gridSize - j - 1;
-            result[j] = grid[i][j];
+            result[j] = cell(i * gridSize + j);
         }
         return result;
     }
@@ -207,7 +198,7 @@ public class Position {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
-                sb.append(render(grid[i][j]));
+                sb.append(render(cell(i * gridSize + j)));
                 if (j < gridSize - 1) sb.append(' ');
             }
             if (i < gridSize - 1) sb.append('\n');
@@ -220,7 +211,7 @@ public class Position {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < gridSize; i++) {
             for (int j = 0; j < gridSize; j++) {
-                sb.append(grid[i][j]);
+                sb.append(cell(i * gridSize + j));
                 if (j < gridSize - 1) sb.append(',');
             }
             if (i < gridSize - 1) sb.append('\n');
@@ -232,26 +223,129 @@ public class Position {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Position position)) return false;
-        return Arrays.deepEquals(grid, position.grid);
+        return board == position.board;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(grid);
+        return Zobrist.fold(zobrist);
+    }
+
+    /**
+     * @return the Zobrist key of this Position (which, like equals, depends only on the stones).
+     */
+    public long zobrist() {
+        return zobrist;
     }
 
     Position(int[][] grid, int count, int last) {
-        this.grid = grid;
+        this(toBoard(grid), count, last);
+    }
+
+    private Position(int board, int count, int last) {
+        this(board, count, last, zobrist(board));
+    }
+
+    private Position(int board, int count, int last, long zobrist) {
+        this.board = board;
         this.count = count;
         this.last = last;
-        xxx = new int[]{last, last, last};
+        this.zobrist = zobrist;
     }
 
-    private int[][] copyGrid() {
-        int[][] result = new int[gridSize][gridSize];
-        for (int i = 0; i < gridSize; i++)
-            result[i] = Arrays.copyOf(grid[i], gridSize);
-        return result;
+    /**
+     * @return the bitboard of this Position.
+     */
+    int board() {
+        return board;
+    }
+
+    /**
+     * @return the number of stones on this Position.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Method to yield the base-3 code of this Position (an index into a table of all the Positions):
+     * the sum over the cells k of c * 3^k, where c is 0 for a blank, 1 for O and 2 for X.
+     *
+     * @return a code between 0 and 3^9 - 1.
+     */
+    int code() {
+        int code = 0;
+        for (int k = cells - 1; k >= 0; k--) code = 3 * code + cell(k) + 1;
+        return code;
+    }
+
+    /**
+     * Method to place a stone on a bitboard.
+     *
+     * @param board  the bitboard.
+     * @param player the player (0: O, 1: X).
+     * @param k      the index of an empty cell.
+     * @return the new bitboard.
+     */
+    static int place(int board, int player, int k) {
+        return board | 1 << (player * cells + k);
+    }
+
+    /**
+     * @param board the bitboard.
+     * @param k     the index of a cell.
+     * @return true if cell k of the board is empty.
+     */
+    static boolean isEmpty(int board, int k) {
+        return (board & (1 << k | 1 << (cells + k))) == 0;
+    }
+
+    /**
+     * @param board the bitboard.
+     * @return a 9-bit mask of the empty cells of the board.
+     */
+    static int empties(int board) {
+        return ~(board | board >>> cells) & CELL_MASK;
+    }
+
+    /**
+     * @param board  the bitboard.
+     * @param player the player (0: O, 1: X).
+     * @return a 9-bit mask of the player's stones.
+     */
+    static int stones(int board, int player) {
+        return board >>> (player * cells) & CELL_MASK;
+    }
+
+    /**
+     * @param stones a 9-bit mask of cells.
+     * @return true if the cells include one of the eight lines.
+     */
+    static boolean threeInARow(int stones) {
+        for (int mask : WIN_MASKS)
+            if ((stones & mask) == mask) return true;
+        return false;
+    }
+
+    /**
+     * @param value the cell value (0: O, 1: X, -1: blank).
+     * @return a 9-bit mask of the cells which have the given value.
+     */
+    private int cellsEqualTo(int value) {
+        return switch (value) {
+            case 0, 1 -> stones(board, value);
+            default -> empties(board);
+        };
+    }
+
+    /**
+     * @param k the index of a cell.
+     * @return the value of the cell (0: O, 1: X, -1: blank).
+     */
+    private int cell(int k) {
+        if ((board & 1 << k) != 0) return 0;
+        if ((board & 1 << (cells + k)) != 0) return 1;
+        return -1;
     }
 
     private char render(int x) {
@@ -262,24 +356,96 @@ public class Position {
         };
     }
 
+    private static long zobrist(int board) {
+        long result = 0;
+        for (int b = board; b != 0; b &= b - 1) result ^= ZOBRIST[Integer.numberOfTrailingZeros(b)];
+        return result;
+    }
+
+    private static int toBoard(int[][] grid) {
+        int result = 0;
+        for (int i = 0; i < gridSize; i++)
+            for (int j = 0; j < gridSize; j++)
+                if (grid[i][j] >= 0) result = place(result, grid[i][j], i * gridSize + j);
+        return result;
+    }
+
     /**
-     * TESTME
+     * Apply a permutation of the cells to both halves of a bitboard.
      *
-     * @param matrix the matrix to be operated on.
-     * @param i1     first row.
-     * @param j1     first column.
-     * @param i2     second row.
-     * @param j2     second column.
+     * @param board the bitboard.
+     * @param table the lookup table of the permutation, indexed by a 9-bit mask.
+     * @return the permuted bitboard.
      */
-    private void swap(int[][] matrix, int i1, int j1, int i2, int j2) {
-        int temp = matrix[i1][j1];
-        matrix[i1][j1] = matrix[i2][j2];
-        matrix[i2][j2] = temp;
+    private static int permute(int board, int[] table) {
+        return table[board & CELL_MASK] | table[board >>> cells & CELL_MASK] << cells;
     }
 
-    private final int[][] grid;
+    /**
+     * Build a lookup table which applies a permutation to every 9-bit mask.
+     *
+     * @param source source[k] is the cell whose contents move to cell k.
+     * @return an array of 512 masks.
+     */
+    private static int[] permutationTable(int[] source) {
+        int[] table = new int[1 << cells];
+        for (int mask = 0; mask < table.length; mask++)
+            for (int k = 0; k < cells; k++)
+                if ((mask & 1 << source[k]) != 0) table[mask] |= 1 << k;
+        return table;
+    }
+
+    private final int board;
     final int last;
     private final int count;
+    private final long zobrist;
     private final static int gridSize = 3;
-    private final int[] xxx;
-}
\ No newline at end of file
+    private final static int cells = gridSize * gridSize;
+    private final static int CELL_MASK = (1 << cells) - 1;
+
+    /**
+     * The rows, columns and diagonals, as 9-bit masks.
+     */
+    private final static int[] WIN_MASKS = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000, // rows
+            0b001_001_001, 0b010_010_010, 0b100_100_100, // columns
+            0b100_010_001, 0b001_010_100                 // diagonals
+    };
+
+    /**
+     * The Zobrist keys of the bits of the bitboard.
+     */
+    private final static long[] ZOBRIST = new long[2 * cells];
+
+    static {
+        for (int b = 0; b < ZOBRIST.length; b++) ZOBRIST[b] = Zobrist.key(0, b);
+    }
+
+    private final static int[] REFLECT_ROWS_SOURCE = {6, 7, 8, 3, 4, 5, 0, 1, 2};
+    // cell (i, j) of the rotated matrix comes from cell (j, 2 - i).
+    private final static int[] ROTATE_SOURCE = {2, 5, 8, 1, 4, 7, 0, 3, 6};
+
+    private final static int[] REFLECT_ROWS = permutationTable(REFLECT_ROWS_SOURCE);
+    private final static int[] REFLECT_COLUMNS = permutationTable(new int[]{2, 1, 0, 5, 4, 3, 8, 7, 6});
+    private final static int[] ROTATE = permutationTable(ROTATE_SOURCE);
+
+    /**
+     * The lookup tables of the seven symmetries other than the identity.
+     */
+    private final static int[][] SYMMETRIES = symmetries();
+
+    private static int[][] symmetries() {
+        int[][] result = new int[7][];
+        int[] rotation = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+        for (int r = 0; r < 4; r++) {
+            int[] reflection = new int[cells];
+            for (int k = 0; k < cells; k++) reflection[k] = rotation[REFLECT_ROWS_SOURCE[k]];
+            if (r > 0) result[2 * r - 1] = permutationTable(rotation);
+            result[2 * r] = permutationTable(reflection);
+            int[] next = new int[cells];
+            for (int k = 0; k < cells; k++) next[k] = rotation[ROTATE_SOURCE[k]];
+            rotation = next;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,213 @@
+package mcts.tictactoe;
+
+import mcts.core.LeafEvaluator;
+import mcts.core.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Perfect-play tablebase of TicTacToe: the value and a best move of every Position which can be reached from the start
+ * (with X to open), solved exactly by negamax.
+ * <p>
+ * The file is an 8-byte header (MAGIC and VERSION) followed by one byte per Position, indexed by the base-3 code
+ * of the Position (see Position.code()), i.e. 3^9 = 19683 bytes in all:
+ * bits 4-5 hold the value for the player to move (0 if the Position cannot be reached, then WIN, DRAW or LOSS),
+ * and bits 0-3 the cell (3 * row + column) of a best move (NO_MOVE if the Position is terminal).
+ * Among the best moves, the generator chooses the quickest win, or the slowest loss.
+ * <p>
+ * The reader maps the file into memory: there is nothing to parse at startup, and each lookup reads one byte.
+ * A Tablebase can be shared by any number of threads.
+ * It is an oracle for the benchmark, a LeafEvaluator for MCTS, and an instant player for InteractiveTicTacToe.
+ */
+public class Tablebase implements LeafEvaluator<TicTacToe> {
+
+    /**
+     * Generate the tablebase into the file given as the first argument (by default, FILE).
+     *
+     * @param args the path of the file (optional).
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Path.of(args[0]) : FILE;
+        long t0 = System.nanoTime();
+        int positions = generate(file);
+        long t1 = System.nanoTime();
+        System.out.printf("Tablebase: %d positions solved in %.1f ms, written to %s (%d bytes)%n",
+                positions, (t1 - t0) / 1e6, file, Files.size(file));
+        Tablebase tablebase = open(file);
+        int winner = tablebase.winner(TicTacToe.startingPosition());
+        System.out.println("The start is " + (winner < 0 ? "a draw" : "a win for " + (winner == TicTacToe.X ? "X" : "O")));
+    }
+
+    /**
+     * Method to solve every reachable Position and to write the tablebase to a file.
+     *
+     * @param file the file (its parent directories are created if need be).
+     * @return the number of reachable Positions.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int generate(Path file) throws IOException {
+        byte[] entries = solve();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION).put(entries);
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        Files.write(file, buffer.array());
+        int positions = 0;
+        for (byte entry : entries) if (entry != 0) positions++;
+        return positions;
+    }
+
+    /**
+     * Method to open a tablebase file by mapping it into memory.
+     *
+     * @param file the file written by generate.
+     * @return a Tablebase.
+     * @throws IOException if the file cannot be read, or if it is not a tablebase of this version.
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER + SIZE) throw new IOException("not a TicTacToe tablebase: " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER + SIZE);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                throw new IOException("not a TicTacToe tablebase (version " + VERSION + "): " + file);
+            return new Tablebase(buffer);
+        }
+    }
+
+    /**
+     * Method to open a tablebase file, generating it first if it does not exist.
+     *
+     * @param file the file.
+     * @return a Tablebase.
+     * @throws IOException if the file cannot be written or read.
+     */
+    public static Tablebase openOrGenerate(Path file) throws IOException {
+        if (!Files.exists(file)) generate(file);
+        return open(file);
+    }
+
+    /**
+     * @param position a Position.
+     * @return true if the Position can be reached from the start (and so is in this tablebase).
+     */
+    public boolean contains(Position position) {
+        return entry(position) != 0;
+    }
+
+    /**
+     * @param position a Position reached from the start.
+     * @return the winner under perfect play, -1 for a draw, or UNKNOWN if the Position cannot be reached.
+     */
+    public int winner(Position position) {
+        int entry = entry(position);
+        int player = toMove(position);
+        return switch (entry >> VALUE_SHIFT) {
+            case WIN -> player;
+            case DRAW -> -1;
+            case LOSS -> 1 - player;
+            default -> UNKNOWN;
+        };
+    }
+
+    /**
+     * @param position a Position reached from the start.
+     * @return the cell (3 * row + column) of a best move, or -1 if the Position is terminal or cannot be reached.
+     */
+    public int bestMove(Position position) {
+        int entry = entry(position);
+        int cell = entry & CELL_MASK;
+        return entry == 0 || cell == NO_MOVE ? -1 : cell;
+    }
+
+    /**
+     * @param state a State reached from the start.
+     * @return a best move for the player to move, or null if the State is terminal or cannot be reached.
+     */
+    public TicTacToe.TicTacToeMove bestMove(State<TicTacToe> state) {
+        int cell = bestMove(((TicTacToe.TicTacToeState) state).position());
+        return cell < 0 ? null : new TicTacToe.TicTacToeMove(state.player(), cell / 3, cell % 3);
+    }
+
+    @Override
+    public int winner(State<TicTacToe> state) {
+        return winner(((TicTacToe.TicTacToeState) state).position());
+    }
+
+    private int entry(Position position) {
+        return buffer.get(HEADER + position.code());
+    }
+
+    private static int toMove(Position position) {
+        return position.count() % 2 == 0 ? TicTacToe.X : TicTacToe.O;
+    }
+
+    /**
+     * Method to solve every Position reachable from the start.
+     *
+     * @return the entries of the tablebase, indexed by the codes of the Positions.
+     */
+    static byte[] solve() {
+        byte[] entries = new byte[SIZE];
+        int[] scores = new int[SIZE];
+        Arrays.fill(scores, Integer.MIN_VALUE);
+        negamax(TicTacToe.startingPosition(), entries, scores);
+        return entries;
+    }
+
+    /**
+     * Method to solve a Position (and, recursively, those which follow it), memoized by code.
+     * A Position lost by the player to move, after {@code count} stones, scores {@code count - 10},
+     * so that a quicker win scores more and a slower loss scores less badly.
+     *
+     * @return the score of the Position for the player to move (positive: win, 0: draw, negative: loss).
+     */
+    private static int negamax(Position position, byte[] entries, int[] scores) {
+        int code = position.code();
+        if (scores[code] != Integer.MIN_VALUE) return scores[code];
+        int best;
+        int bestCell = NO_MOVE;
+        if (position.winner().isPresent()) best = position.count() - 10;
+        else if (position.full()) best = 0;
+        else {
+            best = Integer.MIN_VALUE;
+            int player = toMove(position);
+            for (int[] move : position.moves(player)) {
+                int score = -negamax(position.move(player, move[0], move[1]), entries, scores);
+                if (score > best) {
+                    best = score;
+                    bestCell = 3 * move[0] + move[1];
+                }
+            }
+        }
+        scores[code] = best;
+        int value = best > 0 ? WIN : best == 0 ? DRAW : LOSS;
+        entries[code] = (byte) (value << VALUE_SHIFT | bestCell);
+        return best;
+    }
+
+    private Tablebase(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * The default file of the tablebase.
+     */
+    public static final Path FILE = Path.of("target", "tictactoe.tablebase");
+
+    static final int MAGIC = 0x54545442;    // "TTTB"
+    static final int VERSION = 1;
+    static final int HEADER = 8;
+    static final int SIZE = 19_683;         // 3^9
+    static final int WIN = 1, DRAW = 2, LOSS = 3;
+    static final int VALUE_SHIFT = 4;
+    static final int CELL_MASK = 0xF;
+    static final int NO_MOVE = 0xF;
+
+    private final ByteBuffer buffer;
+}
@@ -2,9 +2,12 @@ package mcts.tictactoe;
 
 import mcts.core.Game;
 import mcts.core.Move;
+import mcts.core.Playout;
 import mcts.core.State;
+import mcts.core.TranspositionTable;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * Class which models the game of TicTacToe.
@@ -50,6 +53,15 @@ public class TicTacToe implements Game<TicTacToe> {
         return state;
     }
 
+    /**
+     * Method to create a TranspositionTable in which all the symmetries of a position share one Node.
+     *
+     * @return a new TranspositionTable keyed by canonical position.
+     */
+    public static TranspositionTable<TicTacToe> symmetryTable() {
+        return new TranspositionTable<>(state -> ((TicTacToeState) state).canonical());
+    }
+
     /**
      * This method determines the opening player (the "white" by analogy with chess).
      * NOTE this should agree with
@@ -72,19 +84,19 @@ public class TicTacToe implements Game<TicTacToe> {
     /**
      * Primary constructor.
      *
-     * @param random a random source.
+     * @param random a random source (shared by the states of this game, so not to be used concurrently).
      */
-    public TicTacToe(Random random) {
+    public TicTacToe(RandomGenerator random) {
         this.random = random;
     }
 
     /**
      * Secondary constructor.
      *
-     * @param seed a seed for the random source.
+     * @param seed a seed for the random source (a SplittableRandom).
      */
     public TicTacToe(long seed) {
-        this(new Random(seed));
+        this(new SplittableRandom(seed));
     }
 
     /**
@@ -94,7 +106,7 @@ public class TicTacToe implements Game<TicTacToe> {
         this(System.currentTimeMillis());
     }
 
-    private final Random random;
+    private final RandomGenerator random;
 
     /**
      * Inner class to define a Move of TicTacToe.
@@ -127,6 +139,11 @@ public class TicTacToe implements Game<TicTacToe> {
             return new int[]{i, j};
         }
 
+        @Override
+        public String toString() {
+            return String.format("P%d: %d,%d", player, i, j);
+        }
+
         private final int player;
         private final int i;
         private final int j;
@@ -166,6 +183,14 @@ public class TicTacToe implements Game<TicTacToe> {
             return this.position;
         }
 
+        /**
+         * @return this State if its Position is canonical, else a State of the canonical Position.
+         */
+        public TicTacToeState canonical() {
+            Position canonical = position.canonical();
+            return canonical == position ? this : new TicTacToeState(canonical);
+        }
+
         /**
          * Method to determine if this State represents the end of the game?
          *
@@ -182,7 +207,7 @@ public class TicTacToe implements Game<TicTacToe> {
          *
          * @return the appropriate RandomState.
          */
-        public Random random() {
+        public RandomGenerator random() {
             return random;
         }
 
@@ -212,6 +237,13 @@ public class TicTacToe implements Game<TicTacToe> {
             return new TicTacToeState(position.move(move.player(), ints[0], ints[1]));
         }
 
+        /**
+         * @return a TicTacToePlayout, which works directly on the bitboard.
+         */
+        public Optional<Playout<TicTacToe>> playout() {
+            return Optional.of(new TicTacToePlayout());
+        }
+
         /**
          * Is the game over?
          *
@@ -241,6 +273,14 @@ public class TicTacToe implements Game<TicTacToe> {
             return position().hashCode();
         }
 
+        /**
+         * @return the Zobrist key of the Position.
+         */
+        @Override
+        public long zobristKey() {
+            return position.zobrist();
+        }
+
         public TicTacToeState(Position position) {
             this.position = position;
         }
@@ -0,0 +1,131 @@
+package mcts.tictactoe;
+
+import mcts.core.Node;
+import mcts.core.State;
+import mcts.util.BatchPipeline;
+import mcts.util.Zobrist;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Batch analysis of TicTacToe positions: each line of the input is a position, given as its three rows separated
+ * by '/' (e.g. {@code X.O/.X./...}, or {@code X . O/. X ./. . .}), which is searched by MCTS;
+ * one JSON object per position is written (see BatchPipeline), with the best move, the visits (and the value)
+ * of each move from the position, and the iterations of the search.
+ * The player to move follows from the numbers of X and O (X opens).
+ */
+public class TicTacToeBatch {
+
+    /**
+     * Analyze the positions of a file.
+     *
+     * @param args the input file and the output file ("-", the default, for the standard input or output),
+     *             the iterations of each search (by default, BUDGET) and the number of workers
+     *             (by default, one per available processor).
+     */
+    public static void main(String[] args) throws IOException {
+        int budget = args.length > 2 ? Integer.parseInt(args[2]) : BUDGET;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        try (BufferedReader input = BatchPipeline.input(args.length > 0 ? args[0] : "-");
+             Writer output = BatchPipeline.output(args.length > 1 ? args[1] : "-")) {
+            BatchPipeline.Totals totals = new BatchPipeline(workers, BatchPipeline.CAPACITY_PER_WORKER * workers)
+                    .run(input, output, line -> analyze(line, budget));
+            System.err.printf("Analyzed %d positions (%d errors) in %.1f s: %.1f positions/s%n",
+                    totals.positions(), totals.errors(), totals.nanos() / 1e9, totals.throughput());
+        }
+    }
+
+    /**
+     * Method to analyze a position.
+     * The search has its own game, seeded by the position, so that the analysis of a position is the same from
+     * one run to the next (whatever the worker which runs it).
+     *
+     * @param line   a position, as three rows separated by '/'.
+     * @param budget the iterations of the search.
+     * @return the values of the result: the position, and either its winner (if it is terminal)
+     * or the best move, its visits and the iterations of the search.
+     * @throws IllegalArgumentException if the line is not a valid position.
+     */
+    public static Map<String, Object> analyze(String line, int budget) {
+        return analyze(line, mcts -> mcts.runSearch(budget));
+    }
+
+    /**
+     * Method to analyze a position with a time limit (e.g. for a request to the MoveServer), rather than a budget.
+     *
+     * @param line      a position, as three rows separated by '/'.
+     * @param timeLimit the time allowed for the search (see MCTS.runSearch(Duration)).
+     * @return the values of the result, as for analyze(String, int).
+     * @throws IllegalArgumentException if the line is not a valid position.
+     */
+    public static Map<String, Object> analyze(String line, Duration timeLimit) {
+        return analyze(line, mcts -> mcts.runSearch(timeLimit));
+    }
+
+    private static Map<String, Object> analyze(String line, ToIntFunction<MCTS> search) {
+        Position position = parse(line);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("position", line);
+        State<TicTacToe> state = new TicTacToe(Zobrist.mix(position.zobrist())).new TicTacToeState(position);
+        if (state.isTerminal()) {
+            result.put("terminal", true);
+            result.put("winner", state.winner().map(w -> w == TicTacToe.X ? "X" : "O").orElse(null));
+            return result;
+        }
+        TicTacToeNode root = new TicTacToeNode(state);
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        result.put("iterations", search.applyAsInt(mcts));
+        result.put("move", mcts.bestMove().move());
+        List<Map<String, Object>> visits = new ArrayList<>();
+        for (int i = 0; i < root.children().size(); i++) {
+            Node<TicTacToe> child = root.child(i);
+            Map<String, Object> edge = new LinkedHashMap<>();
+            edge.put("move", ((TicTacToe.TicTacToeMove) root.move(i)).move());
+            edge.put("visits", child.playouts());
+            edge.put("value", child.playouts() == 0 ? null : child.wins() / (2.0 * child.playouts()));
+            visits.add(edge);
+        }
+        result.put("visits", visits);
+        return result;
+    }
+
+    /**
+     * Method to parse a position given as three rows separated by '/', each of three cells (X, O or .),
+     * which may be separated by spaces.
+     *
+     * @param line the position.
+     * @return the Position.
+     * @throws IllegalArgumentException if the line is not a position which can be reached with X to open.
+     */
+    static Position parse(String line) {
+        String[] rows = line.split("/");
+        if (rows.length != 3) throw new IllegalArgumentException("not three rows: " + line);
+        StringBuilder grid = new StringBuilder();
+        int xs = 0, os = 0;
+        for (String row : rows) {
+            String cells = row.replace(" ", "").toUpperCase();
+            if (!cells.matches("[XO.]{3}")) throw new IllegalArgumentException("not a row of three cells (X, O or .): " + row);
+            for (char c : cells.toCharArray()) {
+                if (c == 'X') xs++;
+                if (c == 'O') os++;
+            }
+            if (!grid.isEmpty()) grid.append('\n');
+            grid.append(cells.charAt(0)).append(' ').append(cells.charAt(1)).append(' ').append(cells.charAt(2));
+        }
+        if (xs != os && xs != os + 1) throw new IllegalArgumentException("not a position with X to open: " + line);
+        return Position.parsePosition(grid.toString(), xs == os ? TicTacToe.O : TicTacToe.X);
+    }
+
+    /**
+     * The default iterations of each search.
+     */
+    public static final int BUDGET = 10_000;
+}
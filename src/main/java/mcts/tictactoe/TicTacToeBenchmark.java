@@ -1,9 +1,22 @@
 package mcts.tictactoe;
 
+import mcts.core.EarlyStop;
 import mcts.core.Move;
+import mcts.core.Node;
+import mcts.core.NodeArena;
+import mcts.core.OpeningBook;
+import mcts.core.Proof;
+import mcts.core.SearchProfiler;
 import mcts.core.State;
+import mcts.core.TranspositionTable;
+import mcts.util.BenchmarkGrid;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * Benchmarking harness for TicTacToe MCTS.
@@ -14,94 +27,128 @@ public class TicTacToeBenchmark {
     private static final double[] CPS = {0.5, 1, Math.sqrt(2), 2.0};
     private static final int GAMES_PER_SETTING = 1000;
     private static final int STABILITY_RUNS = 50;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+    private static final int[] TIME_LIMITS_MS = {1, 10, 50};
+    private static final long SEED = 20_250_101L;
+    private static final int SOLVER_BUDGET = 1 << 17;
+    private static final int SOLVER_RUNS = 20;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("=== TicTacToe MCTS Benchmark ===");
         benchmarkWinRates();
         benchmarkStability();
         benchmarkPlayoutTiming(10_000);
+        benchmarkTreeParallelScaling(100_000);
+        benchmarkTranspositions(100_000);
+        benchmarkNodeArena(100_000);
+        benchmarkTimeLimit();
+        benchmarkPhases(100_000);
+        Tablebase tablebase = Tablebase.openOrGenerate(Tablebase.FILE);
+        benchmarkSolver(tablebase);
+        benchmarkTablebase(tablebase);
+        benchmarkOpeningBook(tablebase);
     }
 
-    /** Run MCTS vs. random over varying budgets and Cp values. */
+    /**
+     * Run MCTS vs. random over varying budgets and Cp values.
+     * The search advances its root through the moves of both players, so each search starts with the playouts
+     * carried over from the previous one (their average is reported).
+     * Each search stops as soon as its move can no longer change (EarlyStop.VISIT_LEAD), and the average share
+     * of the budget actually used is reported.
+     * The games are played in parallel, each with its own seed, so the outcomes are reproducible (the times are not).
+     */
     private static void benchmarkWinRates() {
         System.out.println("\n-- Win/Draw/Loss vs Random --");
-        System.out.println("Budget\tCp\tWins\tDraws\tLosses\tAvgMoveTime(ms)");
-        for (int budget : BUDGETS) {
-            for (double cp : CPS) {
-                int wins = 0, draws = 0, losses = 0;
-                long totalMoveTime = 0, totalMoves = 0;
-                for (int g = 0; g < GAMES_PER_SETTING; g++) {
-                    // play one game: MCTS is X (1), random is O (0)
-                    TicTacToe game = new TicTacToe();
-                    State<TicTacToe> state = game.start();
-                    int player = game.opener();  // X starts
-                    TicTacToe.TicTacToeMove lastMctsMove = null;
-
-                    while (!state.isTerminal()) {
-                        if (player == TicTacToe.X) {
-                            // MCTS move
-                            TicTacToeNode root = new TicTacToeNode(state);
-                            MCTS mcts = new MCTS(root, cp);
-                            long t0 = System.nanoTime();
-                            mcts.runSearch(budget);
-                            lastMctsMove = mcts.bestMove();
-                            long t1 = System.nanoTime();
-                            totalMoveTime += (t1 - t0);
-                            totalMoves++;
-                            state = state.next(lastMctsMove);
-                        } else {
-                            // random move
-                            Move<TicTacToe> m = state.chooseMove(player);
-                            state = state.next(m);
-                        }
-                        player = 1 - player;
+        new BenchmarkGrid("tictactoe-win-rates", SEED).run(settings(), GAMES_PER_SETTING,
+                TicTacToeBenchmark::playGame,
+                (setting, games) -> {
+                    int wins = 0, draws = 0, losses = 0;
+                    long totalMoveTime = 0, totalMoves = 0, totalCarried = 0, totalIterations = 0;
+                    for (GameResult game : games) {
+                        if (game.winner() == TicTacToe.X) wins++;
+                        else if (game.winner() < 0) draws++;
+                        else losses++;
+                        totalMoveTime += game.moveTime();
+                        totalMoves += game.moves();
+                        totalCarried += game.carried();
+                        totalIterations += game.iterations();
                     }
+                    return new Object[]{setting.budget(), setting.cp(), wins, draws, losses,
+                            (totalMoveTime / 1e6) / (double) totalMoves, (double) totalCarried / totalMoves,
+                            100.0 * totalIterations / ((double) setting.budget() * totalMoves)};
+                },
+                "Budget", "Cp", "Wins", "Draws", "Losses", "AvgMoveTime(ms)", "AvgCarriedPlayouts", "BudgetUsed%");
+    }
 
-                    Optional<Integer> winner = state.winner();
-                    if (winner.isEmpty()) {
-                        draws++;
-                    } else if (winner.get() == TicTacToe.X) {
-                        wins++;
-                    } else {
-                        losses++;
-                    }
-                }
-                double avgMoveMs = (totalMoveTime / 1e6) / (double) totalMoves;
-                System.out.printf(
-                        "%d\t%.2f\t%d\t%d\t%d\t%.3f%n",
-                        budget, cp, wins, draws, losses, avgMoveMs
-                );
+    /**
+     * Play one game: MCTS is X (1), random is O (0).
+     */
+    private static GameResult playGame(Setting setting, long seed) {
+        TicTacToe game = new TicTacToe(seed);
+        State<TicTacToe> state = game.start();
+        int player = game.opener();  // X starts
+        MCTS mcts = new MCTS(new TicTacToeNode(state), setting.cp());
+        mcts.setEarlyStop(EarlyStop.VISIT_LEAD);
+        long moveTime = 0, carried = 0, iterations = 0;
+        int moves = 0;
+
+        while (!state.isTerminal()) {
+            if (player == TicTacToe.X) {
+                // MCTS move
+                carried += mcts.root().playouts();
+                long t0 = System.nanoTime();
+                iterations += mcts.runSearch(setting.budget());
+                TicTacToe.TicTacToeMove m = mcts.bestMove();
+                long t1 = System.nanoTime();
+                moveTime += (t1 - t0);
+                moves++;
+                state = state.next(m);
+                mcts.advance(m);
+            } else {
+                // random move
+                Move<TicTacToe> m = state.chooseMove(player);
+                state = state.next(m);
+                mcts.advance(m);
             }
+            player = 1 - player;
         }
+        return new GameResult(state.winner().orElse(-1), moves, moveTime, carried, iterations);
     }
 
     /** Stability: measure how often the opening move repeats. */
     private static void benchmarkStability() {
         System.out.println("\n-- Opening‐Move Stability --");
-        System.out.println("Budget\tCp\tMostCommonMove\tFreq%");
-        State<TicTacToe> rootState = new TicTacToe().start();
-        int opener = rootState.game().opener();
-
-        for (int budget : BUDGETS) {
-            for (double cp : CPS) {
-                Map<String, Integer> counts = new HashMap<>();
-                for (int run = 0; run < STABILITY_RUNS; run++) {
-                    TicTacToeNode root = new TicTacToeNode(rootState);
-                    MCTS mcts = new MCTS(root, cp);
-                    mcts.runSearch(budget);
+        new BenchmarkGrid("tictactoe-stability", SEED).run(settings(), STABILITY_RUNS,
+                (setting, seed) -> {
+                    MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(seed).start()), setting.cp());
+                    mcts.runSearch(setting.budget());
                     TicTacToe.TicTacToeMove m = mcts.bestMove();
-                    String key = m.move()[0] + "," + m.move()[1];
-                    counts.merge(key, 1, Integer::sum);
-                }
-                // find most common
-                String bestMove = counts.entrySet().stream()
-                        .max(Map.Entry.comparingByValue())
-                        .map(Map.Entry::getKey).orElse("?");
-                int freq = counts.getOrDefault(bestMove, 0);
-                double pct = 100.0 * freq / STABILITY_RUNS;
-                System.out.printf("%d\t%.2f\t%s\t%.1f%%%n", budget, cp, bestMove, pct);
-            }
-        }
+                    return m.move()[0] + "," + m.move()[1];
+                },
+                (setting, moves) -> {
+                    Map<String, Integer> counts = new LinkedHashMap<>();
+                    for (String move : moves) counts.merge(move, 1, Integer::sum);
+                    // find most common
+                    String bestMove = counts.entrySet().stream()
+                            .max(Map.Entry.comparingByValue())
+                            .map(Map.Entry::getKey).orElse("?");
+                    int freq = counts.getOrDefault(bestMove, 0);
+                    return new Object[]{setting.budget(), setting.cp(), bestMove, 100.0 * freq / STABILITY_RUNS};
+                },
+                "Budget", "Cp", "MostCommonMove", "Freq%");
+    }
+
+    /** The cells of the win-rate and stability grids. */
+    private static List<Setting> settings() {
+        List<Setting> settings = new ArrayList<>();
+        for (int budget : BUDGETS) for (double cp : CPS) settings.add(new Setting(budget, cp));
+        return settings;
+    }
+
+    private record Setting(int budget, double cp) {
+    }
+
+    private record GameResult(int winner, int moves, long moveTime, long carried, long iterations) {
     }
 
     /** Microbenchmark: average time per simulation for a single runSearch call. */
@@ -126,4 +173,362 @@ public class TicTacToeBenchmark {
         double avgUs = (totalTime / 1e3) / (double) totalPlayouts;
         System.out.printf("%d\t%.3f%n", budget, avgUs);
     }
+
+    /** Scaling: throughput of the tree-parallel search for varying numbers of threads. */
+    private static void benchmarkTreeParallelScaling(int budget) {
+        System.out.println("\n-- Tree-Parallel Scaling --");
+        System.out.println("Threads\tIterations/s\tSpeedup");
+        // warm‑up
+        new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2)).runConcurrentSearch(budget, 2);
+
+        final int REPS = 10;
+        double baseline = 0;
+        for (int threads : THREADS) {
+            long totalTime = 0;
+            for (int i = 0; i < REPS; i++) {
+                MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2));
+                long t0 = System.nanoTime();
+                mcts.runConcurrentSearch(budget, threads);
+                long t1 = System.nanoTime();
+                totalTime += (t1 - t0);
+            }
+            double throughput = (double) budget * REPS / (totalTime / 1e9);
+            if (baseline == 0) baseline = throughput;
+            System.out.printf("%d\t%.0f\t%.2f%n", threads, throughput, throughput / baseline);
+        }
+    }
+
+    /** Transpositions: size of the search graph and throughput, with and without a (symmetric) transposition table. */
+    private static void benchmarkTranspositions(int budget) {
+        System.out.println("\n-- Transposition Table --");
+        System.out.println("Mode\tNodes\tIterations/s");
+        final int REPS = 10;
+        for (String mode : new String[]{"Tree", "DAG", "Symmetric"}) {
+            // warm‑up
+            new MCTS(newRoot(mode), Math.sqrt(2)).runSearch(budget);
+            long totalTime = 0, totalNodes = 0;
+            for (int i = 0; i < REPS; i++) {
+                TicTacToeNode root = newRoot(mode);
+                MCTS mcts = new MCTS(root, Math.sqrt(2));
+                long t0 = System.nanoTime();
+                mcts.runSearch(budget);
+                long t1 = System.nanoTime();
+                totalTime += (t1 - t0);
+                totalNodes += countNodes(root);
+            }
+            double throughput = (double) budget * REPS / (totalTime / 1e9);
+            System.out.printf("%s\t%d\t%.0f%n", mode, totalNodes / REPS, throughput);
+        }
+    }
+
+    /**
+     * Node storage: throughput and memory footprint of a tree of Node objects versus a (reused) NodeArena.
+     * The bytes per node of the object tree is estimated from the growth of the heap during a search.
+     */
+    private static void benchmarkNodeArena(int budget) {
+        System.out.println("\n-- Node Arena --");
+        System.out.println("Storage\tNodes\tBytes/node\tIterations/s");
+        final int REPS = 10;
+        // warm‑up
+        new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2)).runSearch(budget);
+        long totalTime = 0, totalNodes = 0, totalBytes = 0;
+        for (int i = 0; i < REPS; i++) {
+            long before = usedHeap();
+            TicTacToeNode root = new TicTacToeNode(new TicTacToe().start());
+            MCTS mcts = new MCTS(root, Math.sqrt(2));
+            long t0 = System.nanoTime();
+            mcts.runSearch(budget);
+            long t1 = System.nanoTime();
+            totalTime += (t1 - t0);
+            totalBytes += usedHeap() - before;
+            totalNodes += countNodes(root);
+        }
+        System.out.printf("Objects\t%d\t%.1f\t%.0f%n", totalNodes / REPS, (double) totalBytes / totalNodes,
+                (double) budget * REPS / (totalTime / 1e9));
+
+        NodeArena arena = new NodeArena();
+        new MCTS(new TicTacToe().start(), arena, Math.sqrt(2)).runSearch(budget); // warm‑up (and sizes the arena)
+        totalTime = 0;
+        totalNodes = 0;
+        for (int i = 0; i < REPS; i++) {
+            MCTS mcts = new MCTS(new TicTacToe().start(), arena, Math.sqrt(2));
+            long t0 = System.nanoTime();
+            mcts.runSearch(budget);
+            long t1 = System.nanoTime();
+            totalTime += (t1 - t0);
+            totalNodes += arena.size();
+        }
+        System.out.printf("Arena\t%d\t%.1f\t%.0f%n", totalNodes / REPS, arena.bytesPerNode(),
+                (double) budget * REPS / (totalTime / 1e9));
+    }
+
+    /**
+     * Anytime search: the iterations completed within a time limit, compared with the throughput of a search for
+     * the same number of iterations, and the cost of reading the clock.
+     */
+    private static void benchmarkTimeLimit() {
+        System.out.println("\n-- Time-Limited Search --");
+        final int CLOCK_READS = 10_000_000;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < CLOCK_READS; i++) System.nanoTime();
+        long t1 = System.nanoTime();
+        double clockNs = (double) (t1 - t0) / CLOCK_READS;
+        System.out.printf("Clock read: %.1f ns (%.2f ns per iteration)%n", clockNs, clockNs / MCTS.CLOCK_CHECK_INTERVAL);
+        System.out.println("Limit(ms)\tIterations\tElapsed(ms)\tIterations/s\tFixedIterations/s");
+        // warm‑up
+        new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2)).runSearch(Duration.ofMillis(100));
+
+        final int REPS = 20;
+        for (int limit : TIME_LIMITS_MS) {
+            long totalIterations = 0, totalTime = 0, fixedTime = 0;
+            for (int i = 0; i < REPS; i++) {
+                MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2));
+                t0 = System.nanoTime();
+                int iterations = mcts.runSearch(Duration.ofMillis(limit));
+                t1 = System.nanoTime();
+                totalIterations += iterations;
+                totalTime += (t1 - t0);
+
+                MCTS fixed = new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2));
+                t0 = System.nanoTime();
+                fixed.runSearch(iterations);
+                t1 = System.nanoTime();
+                fixedTime += (t1 - t0);
+            }
+            System.out.printf("%d\t%d\t%.2f\t%.0f\t%.0f%n", limit, totalIterations / REPS, totalTime / 1e6 / REPS,
+                    totalIterations / (totalTime / 1e9), totalIterations / (fixedTime / 1e9));
+        }
+    }
+
+    /**
+     * Phases: where the time of a search goes (sequential, and tree-parallel with 4 threads), as recorded by a
+     * SearchProfiler, and the cost of recording.
+     */
+    private static void benchmarkPhases(int budget) {
+        System.out.println("\n-- Search Phases --");
+        // warm‑up
+        MCTS warm = new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2));
+        warm.setProfiler(new SearchProfiler());
+        warm.runSearch(budget);
+
+        SearchProfiler profiler = new SearchProfiler();
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2));
+        mcts.setProfiler(profiler);
+        long t0 = System.nanoTime();
+        mcts.runSearch(budget);
+        long t1 = System.nanoTime();
+        System.out.println("Sequential: " + profiler.snapshot());
+
+        MCTS plain = new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2));
+        long t2 = System.nanoTime();
+        plain.runSearch(budget);
+        long t3 = System.nanoTime();
+        System.out.printf("Recording overhead: %.1f%%%n", 100.0 * ((t1 - t0) - (t3 - t2)) / (t3 - t2));
+
+        profiler.reset();
+        MCTS concurrent = new MCTS(new TicTacToeNode(new TicTacToe().start()), Math.sqrt(2));
+        concurrent.setProfiler(profiler);
+        concurrent.runConcurrentSearch(budget, 4);
+        System.out.println("Tree-parallel (4 threads): " + profiler.snapshot());
+    }
+
+    /**
+     * Solver: the iterations after which the best move is (and stays) a correct one, according to the tablebase,
+     * with and without the MCTS-Solver, and the iterations after which the solver proves the root (which stops its
+     * search). The move is checked after 1, 2, 4, ... iterations, up to SOLVER_BUDGET; the medians over the seeds are
+     * reported ("-" if the move is not settled, or the root not proven, in at least half of the runs).
+     */
+    private static void benchmarkSolver(Tablebase tablebase) {
+        System.out.println("\n-- Solver --");
+        runSolverGrid("tictactoe-solver", tablebase, false);
+    }
+
+    /**
+     * Tablebase: the time to open (map) the tablebase and to look up a move, compared with the time of a move by MCTS
+     * (100,000 iterations, as in InteractiveTicTacToe); then the solver measurements with the tablebase as the leaf
+     * evaluator, together with the average time per iteration.
+     */
+    private static void benchmarkTablebase(Tablebase tablebase) throws IOException {
+        System.out.println("\n-- Tablebase --");
+        final int REPS = 100;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < REPS; i++) Tablebase.open(Tablebase.FILE);
+        long t1 = System.nanoTime();
+        System.out.printf("Open: %.1f µs%n", (t1 - t0) / 1e3 / REPS);
+
+        // the states of random games
+        List<State<TicTacToe>> states = new ArrayList<>();
+        TicTacToe game = new TicTacToe(SEED);
+        while (states.size() < 1_000) {
+            State<TicTacToe> state = game.start();
+            while (!state.isTerminal()) {
+                states.add(state);
+                state = state.next(state.chooseMove(state.player()));
+            }
+        }
+        final int LOOKUPS = 10_000_000;
+        int cells = 0;
+        for (int i = 0; i < LOOKUPS; i++) cells += tablebase.bestMove(states.get(i % states.size())).move()[0];  // warm-up
+        t0 = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) cells += tablebase.bestMove(states.get(i % states.size())).move()[0];
+        t1 = System.nanoTime();
+        System.out.printf("Lookup: %.1f ns (checksum %d)%n", (double) (t1 - t0) / LOOKUPS, cells);
+        new MCTS(new TicTacToeNode(game.start()), Math.sqrt(2)).runSearch(100_000);  // warm-up
+        t0 = System.nanoTime();
+        for (int i = 0; i < 10; i++) new MCTS(new TicTacToeNode(game.start()), Math.sqrt(2)).runSearch(100_000);
+        t1 = System.nanoTime();
+        System.out.printf("MCTS move (100,000 iterations): %.1f ms%n", (t1 - t0) / 1e6 / 10);
+
+        runSolverGrid("tictactoe-tablebase", tablebase, true);
+    }
+
+    /**
+     * Opening book: the time to build the book (with its default depth and budget), to open it and to look up a
+     * position, and the time of an MCTS move with the book compared with one without it; the book's moves are
+     * checked against the tablebase (a move is perfect if it keeps the value of the position).
+     */
+    private static void benchmarkOpeningBook(Tablebase tablebase) throws IOException {
+        System.out.println("\n-- Opening Book --");
+        Path file = Files.createTempFile("tictactoe", ".book");
+        try {
+            int workers = Runtime.getRuntime().availableProcessors();
+            long t0 = System.nanoTime();
+            int size = TicTacToeBook.build(file, TicTacToeBook.DEPTH, TicTacToeBook.BUDGET, workers);
+            long t1 = System.nanoTime();
+            System.out.printf("Build: %d positions (depth %d, %d iterations each, %d workers) in %.1f s, %d bytes%n",
+                    size, TicTacToeBook.DEPTH, TicTacToeBook.BUDGET, workers, (t1 - t0) / 1e9, Files.size(file));
+            final int REPS = 100;
+            t0 = System.nanoTime();
+            for (int i = 0; i < REPS; i++) TicTacToeBook.open(file);
+            t1 = System.nanoTime();
+            System.out.printf("Open: %.1f µs%n", (t1 - t0) / 1e3 / REPS);
+
+            OpeningBook<TicTacToe> book = TicTacToeBook.open(file);
+            List<State<TicTacToe>> positions =
+                    OpeningBook.positions(List.of(new TicTacToe(SEED).start()), TicTacToeBook.DEPTH);
+            int perfect = 0;
+            for (State<TicTacToe> state : positions)
+                if (tablebase.winner(state.next(book.move(state))) == tablebase.winner(state)) perfect++;
+            System.out.printf("Perfect moves: %d of %d%n", perfect, positions.size());
+            final int LOOKUPS = 10_000_000;
+            int codes = 0;
+            for (int i = 0; i < LOOKUPS; i++) codes += MCTS.MOVE_CODEC.encode(book.move(positions.get(i % positions.size())));  // warm-up
+            t0 = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) codes += MCTS.MOVE_CODEC.encode(book.move(positions.get(i % positions.size())));
+            t1 = System.nanoTime();
+            System.out.printf("Lookup: %.1f ns (checksum %d)%n", (double) (t1 - t0) / LOOKUPS, codes);
+
+            State<TicTacToe> start = new TicTacToe(SEED).start();
+            t0 = System.nanoTime();
+            for (int i = 0; i < REPS; i++) {
+                MCTS mcts = new MCTS(new TicTacToeNode(start), Math.sqrt(2));
+                mcts.setOpeningBook(book);
+                mcts.runSearch(100_000);
+                mcts.bestMove();
+            }
+            t1 = System.nanoTime();
+            long t2 = System.nanoTime();
+            for (int i = 0; i < 10; i++) {
+                MCTS mcts = new MCTS(new TicTacToeNode(start), Math.sqrt(2));
+                mcts.runSearch(100_000);
+                mcts.bestMove();
+            }
+            long t3 = System.nanoTime();
+            System.out.printf("MCTS move from the start (100,000 iterations): %.1f µs with the book, %.1f ms without%n",
+                    (t1 - t0) / 1e3 / REPS, (t3 - t2) / 1e6 / 10);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void runSolverGrid(String name, Tablebase tablebase, boolean evaluator) {
+        Map<String, Position> positions = new LinkedHashMap<>();
+        positions.put("corner opening", Position.parsePosition("X . .\n. . .\n. . .", TicTacToe.X));
+        positions.put("opposite corners", Position.parsePosition("X . .\n. O .\n. . X", TicTacToe.X));
+        positions.put("X to win", Position.parsePosition("X . .\n. . O\n. . .", TicTacToe.O));
+        List<SolverSetting> settings = new ArrayList<>();
+        for (Map.Entry<String, Position> position : positions.entrySet()) {
+            Set<String> correct = correctMoves(tablebase, new TicTacToe(0L).new TicTacToeState(position.getValue()));
+            for (boolean solver : new boolean[]{false, true})
+                settings.add(new SolverSetting(position.getKey(), position.getValue(), correct, solver, evaluator));
+        }
+        new BenchmarkGrid(name, SEED).run(settings, SOLVER_RUNS,
+                (setting, seed) -> solve(setting, seed, tablebase),
+                (setting, runs) -> new Object[]{setting.name(),
+                        (setting.evaluator() ? "Tablebase" : "Rollout") + (setting.solver() ? "+Solver" : ""),
+                        setting.correct().size(), median(runs.stream().mapToInt(SolverResult::settled)),
+                        median(runs.stream().mapToInt(SolverResult::proven)),
+                        runs.stream().mapToLong(SolverResult::nanos).sum() / 1e3
+                                / runs.stream().mapToLong(SolverResult::iterations).sum()},
+                "Position", "Mode", "CorrectMoves", "SettledAfter", "ProvenAfter", "Time/Iteration(µs)");
+    }
+
+    private static SolverResult solve(SolverSetting setting, long seed, Tablebase tablebase) {
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(seed).new TicTacToeState(setting.position())), Math.sqrt(2));
+        mcts.setSolver(setting.solver());
+        if (setting.evaluator()) mcts.setLeafEvaluator(tablebase);
+        int iterations = 0, settled = -1, proven = -1;
+        long nanos = 0;
+        for (int checkpoint = 1; checkpoint <= SOLVER_BUDGET; checkpoint *= 2) {
+            long t0 = System.nanoTime();
+            iterations += mcts.runSearch(checkpoint - iterations);
+            nanos += System.nanoTime() - t0;
+            if (proven < 0 && mcts.root().proof() != Proof.UNKNOWN) proven = iterations;
+            int[] move = mcts.bestMove().move();
+            if (!setting.correct().contains(move[0] + "," + move[1])) settled = -1;
+            else if (settled < 0) settled = iterations;
+        }
+        return new SolverResult(settled, proven, iterations, nanos);
+    }
+
+    /** The moves ("row,column") which keep the value of a state for its player, according to the tablebase. */
+    private static Set<String> correctMoves(Tablebase tablebase, State<TicTacToe> state) {
+        Set<String> correct = new TreeSet<>();
+        for (Move<TicTacToe> m : state.moves(state.player())) {
+            int[] move = ((TicTacToe.TicTacToeMove) m).move();
+            if (tablebase.winner(state.next(m)) == tablebase.winner(state)) correct.add(move[0] + "," + move[1]);
+        }
+        return correct;
+    }
+
+    /** The median of the values, where -1 (not reached) counts as more than any other; "-" if it is -1. */
+    private static Object median(IntStream values) {
+        int[] sorted = values.map(v -> v < 0 ? Integer.MAX_VALUE : v).sorted().toArray();
+        int median = sorted[(sorted.length - 1) / 2];
+        return median == Integer.MAX_VALUE ? "-" : median;
+    }
+
+    private record SolverSetting(String name, Position position, Set<String> correct, boolean solver,
+                                 boolean evaluator) {
+    }
+
+    private record SolverResult(int settled, int proven, int iterations, long nanos) {
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static TicTacToeNode newRoot(String mode) {
+        State<TicTacToe> state = new TicTacToe().start();
+        return switch (mode) {
+            case "DAG" -> new TicTacToeNode(state, new TranspositionTable<>());
+            case "Symmetric" -> new TicTacToeNode(state, TicTacToe.symmetryTable());
+            default -> new TicTacToeNode(state);
+        };
+    }
+
+    /** Count the distinct nodes reachable from the root (shared nodes are counted once). */
+    private static int countNodes(Node<TicTacToe> root) {
+        Set<Node<TicTacToe>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node<TicTacToe>> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<TicTacToe> node = stack.pop();
+            if (seen.add(node)) for (Node<TicTacToe> child : node.children()) stack.push(child);
+        }
+        return seen.size();
+    }
 }
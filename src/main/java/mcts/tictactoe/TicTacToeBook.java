@@ -0,0 +1,95 @@
+package mcts.tictactoe;
+
+import mcts.core.Move;
+import mcts.core.OpeningBook;
+import mcts.core.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The opening book of TicTacToe: the move of a long MCTS-Solver search for every Position reached from the start
+ * in at most DEPTH moves, built offline (by running this class) into FILE.
+ * InteractiveTicTacToe, and any MCTS given the book by setOpeningBook, answer those Positions without searching.
+ */
+public class TicTacToeBook {
+
+    /**
+     * Build the opening book into the file given as the first argument (by default, FILE),
+     * with the depth and the budget given as the second and third arguments (by default, DEPTH and BUDGET).
+     *
+     * @param args the path of the file, the depth and the budget (all optional).
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Path.of(args[0]) : FILE;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : DEPTH;
+        int budget = args.length > 2 ? Integer.parseInt(args[2]) : BUDGET;
+        int workers = Runtime.getRuntime().availableProcessors();
+        long t0 = System.nanoTime();
+        int positions = build(file, depth, budget, workers);
+        long t1 = System.nanoTime();
+        System.out.printf("Opening book: %d positions (depth %d, %d iterations each, %d workers) searched in %.1f s, " +
+                "written to %s (%d bytes)%n", positions, depth, budget, workers, (t1 - t0) / 1e9, file, Files.size(file));
+    }
+
+    /**
+     * Method to build the opening book.
+     *
+     * @param file    the file to write.
+     * @param depth   the number of moves after the start.
+     * @param budget  the iterations of the search of each Position.
+     * @param workers the number of Positions searched at the same time.
+     * @return the number of Positions in the book.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int build(Path file, int depth, int budget, int workers) throws IOException {
+        return OpeningBook.build(List.of(new TicTacToe(0L).start()), depth, state -> search(state, budget),
+                MCTS.MOVE_CODEC, file, workers);
+    }
+
+    /**
+     * Method to open an opening book of TicTacToe.
+     *
+     * @param file a file written by build.
+     * @return the OpeningBook.
+     * @throws IOException if the file cannot be read, or is not a valid book.
+     */
+    public static OpeningBook<TicTacToe> open(Path file) throws IOException {
+        return OpeningBook.open(file, MCTS.MOVE_CODEC);
+    }
+
+    /**
+     * Method to search a Position with the MCTS-Solver (which stops as soon as the Position is proven).
+     * The search has its own game, seeded by the Position, so that searches can run in parallel and the book
+     * is the same from one build to the next.
+     *
+     * @param state  a State.
+     * @param budget the iterations of the search.
+     * @return the best move.
+     */
+    static Move<TicTacToe> search(State<TicTacToe> state, int budget) {
+        TicTacToe game = new TicTacToe(state.zobristKey());
+        MCTS mcts = new MCTS(new TicTacToeNode(game.new TicTacToeState(((TicTacToe.TicTacToeState) state).position())),
+                Math.sqrt(2));
+        mcts.setSolver(true);
+        mcts.runSearch(budget);
+        return mcts.bestMove();
+    }
+
+    /**
+     * The default file of the opening book.
+     */
+    public static final Path FILE = Path.of("target", "tictactoe.book");
+
+    /**
+     * The default number of moves after the start.
+     */
+    public static final int DEPTH = 3;
+
+    /**
+     * The default iterations of the search of each Position (as for a move of InteractiveTicTacToe).
+     */
+    public static final int BUDGET = 100_000;
+}
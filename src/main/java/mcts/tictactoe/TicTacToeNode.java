@@ -1,13 +1,36 @@
 package mcts.tictactoe;
 
+import mcts.core.ConcurrentNode;
+import mcts.core.Move;
 import mcts.core.Node;
+import mcts.core.Proof;
 import mcts.core.State;
+import mcts.core.TranspositionTable;
+import mcts.core.TreeSnapshot;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.random.RandomGenerator;
 
-public class TicTacToeNode implements Node<TicTacToe> {
+/**
+ * Class to represent a Node of the MCTS tree for TicTacToe.
+ * The statistics are updated atomically, so a Node may be shared between the threads of a tree-parallel search.
+ * <p>
+ * If the Node has a TranspositionTable, its children are looked up in the table, so that all parents
+ * whose moves lead to the same Position share one child Node (the tree becomes a DAG).
+ * Since a shared child's statistics include playouts which came through other parents,
+ * each parent also keeps the number of its own playouts which went through each of its edges,
+ * and the Move of each edge (a shared child may be reached by different moves from different parents).
+ * If the table is keyed by canonical position (see {@link TicTacToe#symmetryTable()}), symmetric positions
+ * also share a Node, and the State of a shared Node is canonical rather than the State actually reached.
+ */
+public class TicTacToeNode implements ConcurrentNode<TicTacToe> {
 
     /**
      * @return true if this node is a leaf node (in which case no further exploration is possible).
@@ -42,24 +65,180 @@ public class TicTacToeNode implements Node<TicTacToe> {
     }
 
     /**
-     * Method to add a child to this Node.
+     * @param i the index of a child.
+     * @return the i-th child of this Node.
+     */
+    @Override
+    public Node<TicTacToe> child(int i) {
+        return children.get(i);
+    }
+
+    /**
+     * @param i the index of a child.
+     * @return the Move which leads from this Node to its i-th child (null if the child was added without a Move).
+     */
+    @Override
+    public Move<TicTacToe> move(int i) {
+        return moves.get(i);
+    }
+
+    /**
+     * Method to add a child to this Node, without recording the Move which leads to it.
      *
      * @param state the State for the new chile.
      */
     public void addChild(State<TicTacToe> state) {
-        children.add(new TicTacToeNode(state));
+        addChild(null, state);
+    }
+
+    /**
+     * Method to add a child to this Node, recording the Move on the edge.
+     * If there is a TranspositionTable, the child is shared with any other parent which leads to the same state.
+     *
+     * @param move  the Move which leads to the child.
+     * @param state the State for the new child.
+     */
+    @Override
+    public void addChild(Move<TicTacToe> move, State<TicTacToe> state) {
+        if (table == null) children.add(new TicTacToeNode(state));
+        else {
+            // the table may map several moves (e.g. symmetric ones) to the same Node: keep just one edge (the first).
+            Node<TicTacToe> child = table.lookup(state, s -> new TicTacToeNode(s, table));
+            if (children.contains(child)) return;
+            children.add(child);
+        }
+        moves.add(move);
+    }
+
+    /**
+     * Method which adds the immediate children of this Node.
+     */
+    @Override
+    public synchronized void explore() {
+        if (inSnapshot()) loadChildren();
+        else ConcurrentNode.super.explore();
+        if (table != null) edgePlayouts = new int[children.size()];
+        expanded = true;
+    }
+
+    /**
+     * @return true if this Node was loaded from a snapshot in which it had been expanded.
+     */
+    private boolean inSnapshot() {
+        return snapshot != null && snapshot.childCount(record) > 0 && children.isEmpty();
+    }
+
+    /**
+     * Method to add the children of this Node from its snapshot, with their statistics (instead of exploring).
+     */
+    private void loadChildren() {
+        int first = snapshot.firstChild(record);
+        for (int c = first; c < first + snapshot.childCount(record); c++) {
+            Move<TicTacToe> move = snapshot.move(state, c);
+            children.add(new TicTacToeNode(state.next(move), null, snapshot, c));
+            moves.add(move);
+        }
+    }
+
+    /**
+     * Method to create the root of a tree loaded (lazily) from a snapshot.
+     *
+     * @param snapshot a snapshot of a tree of TicTacToeNodes (see MCTS.saveSnapshot).
+     * @param state    the State of the root of the snapshot.
+     * @return a TicTacToeNode with the statistics of the snapshot's root.
+     */
+    public static TicTacToeNode fromSnapshot(TreeSnapshot<TicTacToe> snapshot, State<TicTacToe> state) {
+        snapshot.checkRoot(state);
+        return new TicTacToeNode(state, null, snapshot, 0);
+    }
+
+    /**
+     * Method to open a snapshot file and to create the root of its tree.
+     *
+     * @param file  a file written by MCTS.saveSnapshot.
+     * @param state the State of the root of the snapshot.
+     * @return a TicTacToeNode with the statistics of the snapshot's root.
+     * @throws IOException if the snapshot cannot be read (or is corrupt).
+     */
+    public static TicTacToeNode fromSnapshot(Path file, State<TicTacToe> state) throws IOException {
+        return fromSnapshot(TreeSnapshot.open(file, MCTS.MOVE_CODEC), state);
+    }
+
+    /**
+     * @return the TranspositionTable of this Node, or null if this Node belongs to a tree.
+     */
+    public TranspositionTable<TicTacToe> table() {
+        return table;
+    }
+
+    /**
+     * Method to get the number of playouts which went from this Node to its i-th child.
+     * In a tree, that is simply the child's playouts; in a DAG, it is recorded on the edge.
+     *
+     * @param i the index of a child.
+     * @return the number of playouts through the edge.
+     */
+    @Override
+    public int edgePlayouts(int i) {
+        return table == null ? children.get(i).playouts() : (int) EDGE_PLAYOUTS.getVolatile(edgePlayouts, i);
+    }
+
+    /**
+     * Method to record playouts which went from this Node to its i-th child (atomically, since the threads of
+     * a tree-parallel search may record the same edge).
+     * This has no effect in a tree (the child's own statistics suffice).
+     *
+     * @param i        the index of a child.
+     * @param playouts the number of playouts.
+     */
+    @Override
+    public void recordEdgePlayouts(int i, int playouts) {
+        if (table != null) EDGE_PLAYOUTS.getAndAdd(edgePlayouts, i, playouts);
+    }
+
+    /**
+     * @return true if the children of this Node have been added.
+     */
+    public boolean expanded() {
+        return expanded;
+    }
+
+    /**
+     * Method which adds the immediate children of this Node exactly once.
+     * Unlike explore, the statistics of this Node are left alone, since other threads may be updating them.
+     *
+     * @param random the random source of the calling thread (which orders the children).
+     * @return true if it was this call which did the expansion.
+     */
+    public boolean exploreOnce(RandomGenerator random) {
+        if (expanded) return false;
+        synchronized (this) {
+            if (expanded || isLeaf()) return false;
+            if (inSnapshot()) loadChildren();
+            else for (Iterator<Move<TicTacToe>> it = state.moveIterator(state.player(), random); it.hasNext(); ) {
+                Move<TicTacToe> move = it.next();
+                addChild(move, state.next(move));
+            }
+            if (table != null) edgePlayouts = new int[children.size()];
+            expanded = true;
+            return true;
+        }
     }
 
     /**
      * This method sets the number of wins and playouts according to the children states.
+     * In a DAG, the children's statistics also count playouts which came through other parents,
+     * so the statistics of this Node (which are recorded along the paths through it) are left alone.
      */
     public void backPropagate() {
-        playouts = 0;
-        wins = 0;
+        if (table != null) return;
+        int wins = 0, playouts = 0;
         for (Node<TicTacToe> child : children) {
             wins += child.wins();
             playouts += child.playouts();
         }
+        this.wins = wins;
+        this.playouts = playouts;
     }
 
     /**
@@ -69,8 +248,55 @@ public class TicTacToeNode implements Node<TicTacToe> {
         return wins;
     }
 
+    /**
+     * @return the proven value of this Node (a terminal Node is proven when it is created).
+     */
+    @Override
+    public Proof proof() {
+        return proof;
+    }
+
+    /**
+     * Method to prove this Node from the values of its children.
+     *
+     * @return true if it was this call which proved the Node.
+     */
+    @Override
+    public boolean solve() {
+        return proof == Proof.UNKNOWN && prove(Proof.solve(children));
+    }
+
+    /**
+     * Method to prove this Node from an exact evaluation of its state.
+     *
+     * @param proof the value of this Node (UNKNOWN proves nothing).
+     * @return true if it was this call which proved the Node.
+     */
+    @Override
+    public boolean prove(Proof proof) {
+        if (this.proof != Proof.UNKNOWN || proof == Proof.UNKNOWN) return false;
+        this.proof = proof;
+        return true;
+    }
+
     public void recordPlayout() {
-        playouts++;
+        PLAYOUTS.getAndAdd(this, 1);
+    }
+
+    /**
+     * @param virtualLoss the number of (so far, losing) playouts to be added.
+     */
+    public void addVirtualLoss(int virtualLoss) {
+        PLAYOUTS.getAndAdd(this, virtualLoss);
+    }
+
+    /**
+     * @param winner      0 or 1 for X/O win, or -1 for draw.
+     * @param virtualLoss the virtual loss which was added when this Node was selected.
+     */
+    public void recordResult(int winner, int virtualLoss) {
+        PLAYOUTS.getAndAdd(this, 1 - virtualLoss);
+        recordWin(winner);
     }
 
     /**
@@ -80,31 +306,65 @@ public class TicTacToeNode implements Node<TicTacToe> {
         return playouts;
     }
 
+    /**
+     * Add statistics gathered elsewhere (e.g. by another tree searched from the same state) to this Node.
+     *
+     * @param wins     the score to be added.
+     * @param playouts the number of playouts to be added.
+     */
+    public void recordStatistics(int wins, int playouts) {
+        WINS.getAndAdd(this, wins);
+        PLAYOUTS.getAndAdd(this, playouts);
+    }
+
     /**
      * @param winner 0 or 1 for X/O win, or -1 for draw.
      */
     public void recordWin(int winner) {
         if (winner < 0) {
             // draw
-            wins += 1;
+            WINS.getAndAdd(this, 1);
         } else {
             // the player who *just* moved into this node:
             int mover = 1 - state().player();
             if (winner == mover) {
                 // that mover got the win
-                wins += 2;
+                WINS.getAndAdd(this, 2);
             }
             // else: loss → +0
         }
     }
 
-    public TicTacToeNode(State<TicTacToe> state) {
+    /**
+     * Constructor for a Node whose children may be shared with other parents.
+     *
+     * @param state the State of this Node.
+     * @param table the TranspositionTable in which children are looked up (null for a tree).
+     */
+    public TicTacToeNode(State<TicTacToe> state, TranspositionTable<TicTacToe> table) {
+        this(state, table, null, -1);
+    }
+
+    private TicTacToeNode(State<TicTacToe> state, TranspositionTable<TicTacToe> table, TreeSnapshot<TicTacToe> snapshot, int record) {
         this.state = state;
+        this.table = table;
+        this.snapshot = snapshot;
+        this.record = record;
         children = new ArrayList<>();
+        moves = new ArrayList<>();
         initializeNodeData();
+        if (snapshot != null) {
+            wins = snapshot.wins(record);
+            playouts = snapshot.playouts(record);
+        }
+    }
+
+    public TicTacToeNode(State<TicTacToe> state) {
+        this(state, null);
     }
 
     private void initializeNodeData() {
+        proof = isLeaf() ? Proof.terminal(state) : Proof.UNKNOWN;
         if (isLeaf()) {
             playouts = 1;
             Optional<Integer> winner = state.winner();
@@ -117,7 +377,28 @@ public class TicTacToeNode implements Node<TicTacToe> {
 
     private final State<TicTacToe> state;
     private final ArrayList<Node<TicTacToe>> children;
+    private final ArrayList<Move<TicTacToe>> moves;           // moves.get(i) leads to children.get(i)
+    private final TranspositionTable<TicTacToe> table;
+    private final TreeSnapshot<TicTacToe> snapshot;           // the snapshot this Node was loaded from (or null)
+    private final int record;                                  // the index of this Node in the snapshot
+    private int[] edgePlayouts;                                // (published by the volatile write of expanded)
+
+    private volatile boolean expanded;
+    private volatile Proof proof;
+    private volatile int wins;
+    private volatile int playouts;
 
-    private int wins;
-    private int playouts;
+    private static final VarHandle WINS;
+    private static final VarHandle PLAYOUTS;
+    private static final VarHandle EDGE_PLAYOUTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            WINS = lookup.findVarHandle(TicTacToeNode.class, "wins", int.class);
+            PLAYOUTS = lookup.findVarHandle(TicTacToeNode.class, "playouts", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 }
\ No newline at end of file
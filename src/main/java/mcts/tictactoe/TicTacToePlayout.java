@@ -0,0 +1,101 @@
+package mcts.tictactoe;
+
+import mcts.core.Move;
+import mcts.core.Playout;
+import mcts.core.State;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Class to implement an allocation-free Playout for TicTacToe, working directly on a Position bitboard.
+ * A move is encoded as the index (3 * row + column) of the cell to be played.
+ */
+class TicTacToePlayout implements Playout<TicTacToe> {
+
+    /**
+     * Method to copy the given State into this Playout.
+     *
+     * @param state  a TicTacToeState.
+     * @param random the random source of the choice of moves.
+     */
+    public void reset(State<TicTacToe> state, RandomGenerator random) {
+        Position position = ((TicTacToe.TicTacToeState) state).position();
+        board = position.board();
+        count = position.count();
+        last = position.last;
+        won = count > 4 && last >= 0 && Position.threeInARow(Position.stones(board, last));
+        this.random = random;
+    }
+
+    /**
+     * @return true if the board is full or if the last player has three in a row.
+     */
+    public boolean isTerminal() {
+        return won || count == 9;
+    }
+
+    /**
+     * @return the player to move (X if nobody has moved yet).
+     */
+    public int player() {
+        return last == TicTacToe.X ? TicTacToe.O : TicTacToe.X;
+    }
+
+    /**
+     * @return the index of a random empty cell.
+     */
+    public int randomMove() {
+        int empties = Position.empties(board);
+        // clear the lowest r empty cells, then take the next one.
+        for (int r = random.nextInt(Integer.bitCount(empties)); r > 0; r--) empties &= empties - 1;
+        return Integer.numberOfTrailingZeros(empties);
+    }
+
+    /**
+     * @param move the index of an empty cell.
+     */
+    public void play(int move) {
+        last = player();
+        board = Position.place(board, last, move);
+        count++;
+        won = count > 4 && Position.threeInARow(Position.stones(board, last));
+    }
+
+    /**
+     * @return the number of empty cells (zero if the position is won).
+     */
+    public int moveCount() {
+        return won ? 0 : 9 - count;
+    }
+
+    /**
+     * @param buffer an array to receive the indices of the empty cells, in increasing order.
+     */
+    public void moves(int[] buffer) {
+        if (won) return;
+        int n = 0;
+        for (int empties = Position.empties(board); empties != 0; empties &= empties - 1)
+            buffer[n++] = Integer.numberOfTrailingZeros(empties);
+    }
+
+    /**
+     * @param move the index of an empty cell.
+     * @return the TicTacToeMove for the player to move.
+     */
+    public Move<TicTacToe> decode(int move) {
+        return new TicTacToe.TicTacToeMove(player(), move / 3, move % 3);
+    }
+
+    /**
+     * @return the last player if they have three in a row, else -1.
+     */
+    public int winner() {
+        return won ? last : -1;
+    }
+
+    private int board;
+    private int count;
+    private int last;
+    private boolean won;
+    private RandomGenerator random;
+}
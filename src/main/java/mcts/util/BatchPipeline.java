@@ -0,0 +1,275 @@
+package mcts.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class to analyze a stream of positions, one per line, on a pool of workers, writing one JSON object per line
+ * (NDJSON) in the order of the input.
+ * <p>
+ * A reader thread parses nothing: it submits each (non-blank) line to the pool and queues its Future, and the
+ * calling thread writes the results of the Futures in turn. The queue is bounded, so the reader blocks
+ * (back-pressure) as soon as {@code capacity} lines are queued: however large the input, at most
+ * {@code capacity + 2} lines and their results (those queued, the one being written, and the one waiting to be
+ * queued) are held in memory, and the workers are kept busy as long as the writer keeps up.
+ * <p>
+ * Each result holds the number of the line, the values of the Analyzer, and the time taken by the analysis
+ * (in nanoseconds); a line which the Analyzer rejects (with an IllegalArgumentException) yields its error message
+ * instead. Any other exception of the Analyzer is a failure of the run.
+ */
+public class BatchPipeline {
+
+    /**
+     * The analysis of a line (called from the workers' threads).
+     */
+    @FunctionalInterface
+    public interface Analyzer {
+        /**
+         * @param line a line of the input (not blank).
+         * @return the values of the result, by name (numbers, booleans, strings, Maps, Iterables or int arrays).
+         * @throws IllegalArgumentException if the line is not a valid position.
+         */
+        Map<String, Object> analyze(String line);
+    }
+
+    /**
+     * The totals of a run.
+     *
+     * @param positions the number of lines analyzed (or rejected).
+     * @param errors    the number of lines rejected.
+     * @param nanos     the elapsed time of the run.
+     */
+    public record Totals(long positions, long errors, long nanos) {
+        /**
+         * @return the number of positions per second.
+         */
+        public double throughput() {
+            return positions / (nanos / 1e9);
+        }
+    }
+
+    /**
+     * Method to analyze every line of the input, and to write the results to the output.
+     * The output is flushed, but neither the input nor the output is closed.
+     *
+     * @param input    the input, one position per line (blank lines are skipped, but counted).
+     * @param output   the output, one JSON object per line.
+     * @param analyzer the analysis of a line.
+     * @return the totals of the run.
+     * @throws IOException if the input cannot be read or the output cannot be written.
+     */
+    public Totals run(BufferedReader input, Writer output, Analyzer analyzer) throws IOException {
+        long t0 = System.nanoTime();
+        BlockingQueue<Future<Result>> pending = new ArrayBlockingQueue<>(capacity);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Thread reader = new Thread(() -> read(input, analyzer, pool, pending), "batch-reader");
+        reader.setDaemon(true);
+        long positions = 0, errors = 0;
+        try {
+            reader.start();
+            for (Future<Result> future = pending.take(); future != END; future = pending.take()) {
+                Result result = future.get();
+                if (result.error()) errors++;
+                output.write(result.json());
+                output.write('\n');
+                positions++;
+            }
+            output.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("BatchPipeline: interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new RuntimeException("BatchPipeline: analysis failed", e.getCause());
+        } finally {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+        return new Totals(positions, errors, System.nanoTime() - t0);
+    }
+
+    /**
+     * Method to open the input of a batch.
+     *
+     * @param name the path of a file, or "-" for the standard input.
+     * @return a BufferedReader.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static BufferedReader input(String name) throws IOException {
+        return name.equals("-") ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)) :
+                Files.newBufferedReader(Path.of(name));
+    }
+
+    /**
+     * Method to open the output of a batch.
+     *
+     * @param name the path of a file (its parent directories are created if need be), or "-" for the standard output.
+     * @return a (buffered) Writer.
+     * @throws IOException if the file cannot be created.
+     */
+    public static Writer output(String name) throws IOException {
+        if (name.equals("-")) return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        Path file = Path.of(name);
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        return Files.newBufferedWriter(file);
+    }
+
+    /**
+     * Method (of the reader thread) to submit the lines of the input, blocking while the queue is full,
+     * and then to queue END (or a failed Future, if the input cannot be read).
+     */
+    private static void read(BufferedReader input, Analyzer analyzer, ExecutorService pool, BlockingQueue<Future<Result>> pending) {
+        try {
+            try {
+                long number = 0;
+                for (String line = input.readLine(); line != null; line = input.readLine()) {
+                    long n = ++number;
+                    if (line.isBlank()) continue;
+                    String text = line.strip();
+                    pending.put(pool.submit(() -> analyze(n, text, analyzer)));
+                }
+            } catch (IOException e) {
+                pending.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+            }
+            pending.put(END);
+        } catch (InterruptedException e) {
+            // the writer has given up
+        }
+    }
+
+    /**
+     * The result of a line, as JSON, and whether the line was rejected.
+     */
+    private record Result(String json, boolean error) {
+    }
+
+    private static Result analyze(long number, String line, Analyzer analyzer) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("line", number);
+        boolean error = false;
+        long t0 = System.nanoTime();
+        try {
+            result.putAll(analyzer.analyze(line));
+        } catch (IllegalArgumentException e) {
+            result.put("input", line);
+            result.put("error", String.valueOf(e.getMessage()));
+            error = true;
+        }
+        result.put("nanos", System.nanoTime() - t0);
+        return new Result(json(result), error);
+    }
+
+    /**
+     * Method to write a value as JSON.
+     *
+     * @param value null, a Number, a Boolean, a Map (with String keys), an Iterable, an int array, or anything else
+     *              (written as the String of its toString()).
+     * @return the JSON text.
+     */
+    public static String json(Object value) {
+        StringBuilder builder = new StringBuilder();
+        appendJson(builder, value);
+        return builder.toString();
+    }
+
+    private static void appendJson(StringBuilder builder, Object value) {
+        if (value == null) builder.append("null");
+        else if (value instanceof Double d) builder.append(d.isNaN() || d.isInfinite() ? "null" : String.format(Locale.ROOT, "%.4f", d));
+        else if (value instanceof Number || value instanceof Boolean) builder.append(value);
+        else if (value instanceof Map<?, ?> map) {
+            builder.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) builder.append(',');
+                first = false;
+                appendString(builder, String.valueOf(entry.getKey()));
+                builder.append(':');
+                appendJson(builder, entry.getValue());
+            }
+            builder.append('}');
+        } else if (value instanceof Iterable<?> iterable) {
+            builder.append('[');
+            boolean first = true;
+            for (Object element : iterable) {
+                if (!first) builder.append(',');
+                first = false;
+                appendJson(builder, element);
+            }
+            builder.append(']');
+        } else if (value instanceof int[] array) {
+            builder.append('[');
+            for (int i = 0; i < array.length; i++) builder.append(i > 0 ? "," : "").append(array[i]);
+            builder.append(']');
+        } else appendString(builder, value.toString());
+    }
+
+    private static void appendString(StringBuilder builder, String s) {
+        builder.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+                    else builder.append(c);
+                }
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param workers  the number of threads which analyze the lines.
+     * @param capacity the number of queued lines (submitted, but not yet written) beyond which the reader waits.
+     */
+    public BatchPipeline(int workers, int capacity) {
+        if (workers < 1 || capacity < 1)
+            throw new RuntimeException("BatchPipeline: workers and capacity must be positive: " + workers + ", " + capacity);
+        this.workers = workers;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Constructor for a pipeline with one worker per available processor, and CAPACITY_PER_WORKER lines in flight
+     * per worker.
+     */
+    public BatchPipeline() {
+        this(Runtime.getRuntime().availableProcessors(),
+                CAPACITY_PER_WORKER * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The default number of lines in flight per worker (enough to keep the workers busy while the writer waits
+     * for a slow line).
+     */
+    public static final int CAPACITY_PER_WORKER = 4;
+
+    private static final Future<Result> END = CompletableFuture.completedFuture(null);
+
+    private final int workers;
+    private final int capacity;
+}
@@ -0,0 +1,215 @@
+package mcts.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Class to run a grid of benchmark settings (for example, budgets × exploration constants) in parallel.
+ * Each cell of the grid runs a number of independent trials (games) on a work-stealing pool; each trial gets
+ * its own seed, derived from the seed of the grid and from the (cell, trial) indices, so that the results do not
+ * depend on the number of threads or on the order in which the trials are run.
+ * <p>
+ * As soon as all the trials of a cell are done, the row which summarizes them is printed (unless the grid is quiet)
+ * and appended to a CSV file and to a JSON Lines file (one JSON object per row), named after the grid.
+ */
+public class BenchmarkGrid {
+
+    /**
+     * A trial of a setting.
+     *
+     * @param <S> the type of the settings.
+     * @param <R> the type of the result of a trial.
+     */
+    @FunctionalInterface
+    public interface Trial<S, R> {
+        /**
+         * @param setting the setting of the cell.
+         * @param seed    the seed of this trial (to be used for all its random choices).
+         * @return the result of the trial.
+         */
+        R run(S setting, long seed);
+    }
+
+    /**
+     * The summary of the trials of a cell.
+     *
+     * @param <S> the type of the settings.
+     * @param <R> the type of the result of a trial.
+     */
+    @FunctionalInterface
+    public interface Summary<S, R> {
+        /**
+         * @param setting the setting of the cell.
+         * @param results the results of its trials, in the order of the trial indices.
+         * @return the values of the row of the cell (one per column).
+         */
+        Object[] row(S setting, List<R> results);
+    }
+
+    /**
+     * Method to run the trials of every setting, and to write the row of each cell as soon as it is complete.
+     *
+     * @param settings the settings (cells) of the grid.
+     * @param trials   the number of trials per setting.
+     * @param trial    the function which runs a trial.
+     * @param summary  the function which summarizes the trials of a cell as a row.
+     * @param columns  the names of the columns.
+     * @param <S>      the type of the settings.
+     * @param <R>      the type of the result of a trial.
+     * @return the rows, in the order of the settings.
+     */
+    public <S, R> List<Object[]> run(List<S> settings, int trials, Trial<S, R> trial, Summary<S, R> summary, String... columns) {
+        List<CompletableFuture<Object[]>> rows = new ArrayList<>();
+        try (ForkJoinPool pool = new ForkJoinPool(threads); Output output = new Output(columns)) {
+            for (int cell = 0; cell < settings.size(); cell++) {
+                S setting = settings.get(cell);
+                List<CompletableFuture<R>> results = new ArrayList<>();
+                for (int t = 0; t < trials; t++) {
+                    long trialSeed = seed(cell, t);
+                    results.add(CompletableFuture.supplyAsync(() -> trial.run(setting, trialSeed), pool));
+                }
+                rows.add(CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0]))
+                        .thenApply(done -> summary.row(setting, results.stream().map(CompletableFuture::join).toList()))
+                        .thenApply(output::write));
+            }
+            CompletableFuture.allOf(rows.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("BenchmarkGrid " + name + ": a trial failed", e.getCause());
+        } catch (IOException e) {
+            throw new RuntimeException("BenchmarkGrid " + name + ": cannot write the results", e);
+        }
+        return rows.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Method to derive the seed of a trial.
+     *
+     * @param cell  the index of the setting.
+     * @param trial the index of the trial.
+     * @return the seed of the trial.
+     */
+    public long seed(int cell, int trial) {
+        return Zobrist.mix(seed ^ Zobrist.key(cell, trial));
+    }
+
+    /**
+     * The destinations of the rows: the console (if the grid echoes its rows) and (unless the directory is null)
+     * the CSV and JSON Lines files.
+     */
+    private class Output implements AutoCloseable {
+
+        Output(String[] columns) throws IOException {
+            this.columns = columns;
+            if (echo) System.out.println(String.join("\t", columns));
+            if (directory == null) {
+                csv = null;
+                json = null;
+            } else {
+                Files.createDirectories(directory);
+                csv = Files.newBufferedWriter(directory.resolve(name + ".csv"));
+                json = Files.newBufferedWriter(directory.resolve(name + ".jsonl"));
+                csv.write(Arrays.stream(columns).map(Output::csvValue).collect(Collectors.joining(",")));
+                csv.newLine();
+                csv.flush();
+            }
+        }
+
+        synchronized Object[] write(Object[] row) {
+            if (echo) System.out.println(Arrays.stream(row).map(Output::text).collect(Collectors.joining("\t")));
+            if (csv == null) return row;
+            try {
+                csv.write(Arrays.stream(row).map(Output::csvValue).collect(Collectors.joining(",")));
+                csv.newLine();
+                csv.flush();
+                StringBuilder object = new StringBuilder("{");
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) object.append(',');
+                    object.append(jsonString(columns[i])).append(':').append(jsonValue(row[i]));
+                }
+                json.write(object.append('}').toString());
+                json.newLine();
+                json.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("BenchmarkGrid " + name + ": cannot write the results", e);
+            }
+            return row;
+        }
+
+        public void close() throws IOException {
+            if (csv != null) csv.close();
+            if (json != null) json.close();
+        }
+
+        private static String text(Object value) {
+            return value instanceof Double d ? String.format(Locale.ROOT, "%.3f", d) : String.valueOf(value);
+        }
+
+        private static String csvValue(Object value) {
+            String text = text(value);
+            return text.contains(",") || text.contains("\"") ? '"' + text.replace("\"", "\"\"") + '"' : text;
+        }
+
+        private static String jsonValue(Object value) {
+            if (value instanceof Double d) return d.isNaN() || d.isInfinite() ? "null" : text(d);
+            if (value instanceof Number || value instanceof Boolean) return String.valueOf(value);
+            return jsonString(String.valueOf(value));
+        }
+
+        private static String jsonString(String s) {
+            return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+        }
+
+        private final String[] columns;
+        private final BufferedWriter csv;
+        private final BufferedWriter json;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name      the name of the grid (and of its files).
+     * @param seed      the seed from which the seeds of the trials are derived.
+     * @param threads   the number of threads of the pool.
+     * @param directory the directory of the CSV and JSON Lines files (null to write no files).
+     * @param echo      true to print the rows to the console as well.
+     */
+    public BenchmarkGrid(String name, long seed, int threads, Path directory, boolean echo) {
+        this.name = name;
+        this.seed = seed;
+        this.threads = threads;
+        this.directory = directory;
+        this.echo = echo;
+    }
+
+    /**
+     * Constructor for a grid which uses all the available processors, writes its files to DIRECTORY and prints
+     * its rows.
+     *
+     * @param name the name of the grid (and of its files).
+     * @param seed the seed from which the seeds of the trials are derived.
+     */
+    public BenchmarkGrid(String name, long seed) {
+        this(name, seed, Runtime.getRuntime().availableProcessors(), DIRECTORY, true);
+    }
+
+    /**
+     * The default directory of the result files.
+     */
+    public static final Path DIRECTORY = Path.of("target", "benchmarks");
+
+    private final String name;
+    private final long seed;
+    private final int threads;
+    private final Path directory;
+    private final boolean echo;
+}
@@ -0,0 +1,87 @@
+package mcts.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class to record latencies from any number of threads, and to report their percentiles (e.g. p50 and p99).
+ * <p>
+ * The latencies are counted in buckets of microseconds, on a log-linear scale: each power of two is split into
+ * SUB_BUCKETS buckets of equal width, so that a percentile is reported within 1/SUB_BUCKETS (about 6%) of the exact
+ * value, whatever the range of the latencies, in a fixed amount of memory (a few kilobytes).
+ * Recording is one atomic increment.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Method to record a latency.
+     *
+     * @param nanos the latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(0, nanos / 1_000)));
+    }
+
+    /**
+     * @return the number of latencies recorded.
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Method to estimate a percentile of the latencies recorded.
+     *
+     * @param percentile the percentile, between 0 and 100 (e.g. 50 for the median, 99 for p99).
+     * @return the upper bound (in microseconds) of the bucket which holds the percentile, or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(snapshot.length - 1);
+    }
+
+    /**
+     * Method to forget the latencies recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+    }
+
+    /**
+     * @param micros a latency in microseconds (not negative).
+     * @return the index of its bucket.
+     */
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int power = 63 - Long.numberOfLeadingZeros(micros);         // at least SUB_BITS
+        int sub = (int) (micros >>> (power - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (power - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @param bucket the index of a bucket.
+     * @return the largest latency (in microseconds) of the bucket.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int power = (bucket - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (power - SUB_BITS);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+
+    static final int SUB_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (64 - SUB_BITS) * SUB_BUCKETS);
+}
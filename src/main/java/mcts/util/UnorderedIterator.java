@@ -1,6 +1,7 @@
 package mcts.util;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * Class to implement an Iterator of T based on a Collection or Array of T.
@@ -18,23 +19,25 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @return {@code true} if the iteration has more elements
      */
     public boolean hasNext() {
-        return !list.isEmpty();
+        return remaining > 0;
     }
 
     /**
      * Returns the next element in the iteration.
+     * This is one step of a lazy Fisher-Yates shuffle: a random element is chosen from those remaining
+     * and its slot is filled by the last remaining element, so each step is O(1).
      *
      * @return the next element in the iteration
      * @throws NoSuchElementException if the iteration has no more elements
      */
     public T next() {
-        if (list.isEmpty()) throw new NoSuchElementException();
-        int i = random.nextInt(list.size());
-        try {
-            return list.remove(i);
-        } catch (UnsupportedOperationException e) {
-            throw new RuntimeException("UnorderedIterator: cannot remove element " + i + " from list of type: " + list.getClass());
-        }
+        if (remaining == 0) throw new NoSuchElementException();
+        int i = random.nextInt(remaining);
+        @SuppressWarnings("unchecked")
+        T result = (T) elements[i];
+        elements[i] = elements[--remaining];
+        elements[remaining] = null;
+        return result;
     }
 
     /**
@@ -46,8 +49,8 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param <X>        the type of elements in the collection and the iterator
      * @return a new UnorderedIterator with deterministic iteration order based on the provided random source
      */
-    public static <X> UnorderedIterator<X> createDeterministic(Collection<X> collection, Random random) {
-        return new UnorderedIterator<>(copyCollection(collection), random);
+    public static <X> UnorderedIterator<X> createDeterministic(Collection<X> collection, RandomGenerator random) {
+        return new UnorderedIterator<>(random, copyCollection(collection));
     }
 
     /**
@@ -60,7 +63,7 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @return a new UnorderedIterator with deterministic iteration order based on the given seed
      */
     public static <X> UnorderedIterator<X> createDeterministic(Collection<X> collection, long seed) {
-        return createDeterministic(collection, new Random(seed));
+        return createDeterministic(collection, new SplittableRandom(seed));
     }
 
     /**
@@ -69,8 +72,8 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param collection the collection of T over which to iterate.
      * @param random     an explicit random source.
      */
-    public UnorderedIterator(Collection<T> collection, Random random) {
-        this(copyCollection(collection), random);
+    public UnorderedIterator(Collection<T> collection, RandomGenerator random) {
+        this(random, copyCollection(collection));
     }
 
     /**
@@ -79,7 +82,7 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param collection the collection of T over which to iterate.
      */
     public UnorderedIterator(Collection<T> collection) {
-        this(collection, new Random());
+        this(collection, new SplittableRandom());
     }
 
     /**
@@ -88,8 +91,8 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param array  an array of T.
      * @param random an explicit random source.
      */
-    public UnorderedIterator(T[] array, Random random) {
-        this(copyCollection(Arrays.asList(array)), random);
+    public UnorderedIterator(T[] array, RandomGenerator random) {
+        this(random, Arrays.copyOf(array, array.length, Object[].class));
     }
 
     /**
@@ -98,54 +101,53 @@ public class UnorderedIterator<T> implements Iterator<T> {
      * @param array an array of T.
      */
     public UnorderedIterator(T[] array) {
-        this(array, new Random());
+        this(array, new SplittableRandom());
     }
 
     /**
      * Primary (private) constructor.
      *
-     * @param list   a mutable list of T which will be mutated, ending as empty.
-     * @param random a Random source.
+     * @param random   a random source.
+     * @param elements an array of T which will be mutated (it must not be shared with anyone else).
      */
-    private UnorderedIterator(List<T> list, Random random) {
-        this.list = list;
+    private UnorderedIterator(RandomGenerator random, Object[] elements) {
+        this.elements = elements;
+        this.remaining = elements.length;
         this.random = random;
     }
 
     /**
-     * Creates a copy of the provided collection.
-     * If the input collection is an instance of List,
-     * a copy is ade with the same size and elements as the input.
-     * Otherwise, a new List containing the elements of the collection is returned.
+     * Creates a copy of the elements of the provided collection.
+     * Exactly one copy is made, whatever the type of the collection.
      *
-     * @param <X>        the type of elements in the collection
      * @param collection the collection to be copied
-     * @return a new List containing the elements of the specified collection
+     * @return a new array containing the elements of the specified collection
      */
-    private static <X> List<X> copyCollection(Collection<X> collection) {
-        if (collection instanceof ArrayList) {
-            List<X> result = new ArrayList<>(collection);
-            Collections.copy(result, (List<X>) collection);
-            return result;
-        } else return new ArrayList<>(collection);
+    private static Object[] copyCollection(Collection<?> collection) {
+        return collection.toArray();
     }
 
     /**
-     * A mutable list of elements of type T used internally to manage the iteration order.
-     * This list represents the current state of elements available in the iterator.
-     * Elements are removed from this list as they are iterated over.
-     * The list is intended to be modified dynamically during the iteration process.
+     * An array of elements of type T used internally to manage the iteration order.
+     * The elements which have not yet been returned occupy the first <code>remaining</code> slots (in no particular order).
      */
-    private final List<T> list;
+    private final Object[] elements;
 
     /**
-     * An instance of Random used to determine the order of iteration in this UnorderedIterator.
-     * The Random instance ensures that the iteration order is either explicitly controlled
+     * The number of elements which have not yet been returned.
+     */
+    private int remaining;
+
+    /**
+     * The random source used to determine the order of iteration in this UnorderedIterator.
+     * The random source ensures that the iteration order is either explicitly controlled
      * (when provided as a parameter to a constructor) or consistent with a default seed if not specified.
+     * Any RandomGenerator may be used (e.g. a SplittableRandom, which is faster than a Random since it is not
+     * thread-safe, or one split off for the calling thread).
      * <p>
      * This field is immutable and is intended to provide randomization functionality
      * across various constructors and methods where deterministic or non-deterministic iteration
-     * is required based on a Random source.
+     * is required based on a random source.
      */
-    private final Random random;
-}
\ No newline at end of file
+    private final RandomGenerator random;
+}
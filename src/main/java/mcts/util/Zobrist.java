@@ -0,0 +1,49 @@
+package mcts.util;
+
+/**
+ * Utility class for Zobrist hashing.
+ * A State is hashed by XOR-ing together one random 64-bit key per feature (e.g. "X has a stone on cell 4",
+ * or "pile 2 has 7 tokens"), so that a move can update the hash in O(1) by XOR-ing out the features it removes
+ * and XOR-ing in the features it adds.
+ * <p>
+ * Rather than being stored in tables, the keys are derived from the features by the SplitMix64 finalizer,
+ * so there is no bound on the number of features.
+ */
+public class Zobrist {
+
+    /**
+     * Method to yield the key of a feature, given as a pair of numbers.
+     * The same pair always yields the same key.
+     *
+     * @param kind  the kind (or index) of the feature.
+     * @param value the value of the feature.
+     * @return a pseudo-random 64-bit key.
+     */
+    public static long key(long kind, long value) {
+        return mix(mix(kind + GOLDEN_GAMMA) + value);
+    }
+
+    /**
+     * The SplitMix64 finalizer: a bijective mixing function of 64 bits.
+     *
+     * @param z a long.
+     * @return the mixed long.
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Method to fold a 64-bit key into an int, for use as a hashCode.
+     *
+     * @param key a 64-bit key.
+     * @return an int.
+     */
+    public static int fold(long key) {
+        return (int) (key ^ (key >>> 32));
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+}
@@ -0,0 +1,44 @@
+package mcts.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EarlyStopTest {
+
+    @Test
+    public void none() {
+        assertFalse(EarlyStop.NONE.decided(new int[]{200, 0}, new int[]{100, 0}, 2, 0));
+    }
+
+    @Test
+    public void visitLead() {
+        int[] wins = {0, 0, 0};
+        int[] visits = {50, 20, 10};
+        assertTrue(EarlyStop.VISIT_LEAD.decided(wins, visits, 3, 29));
+        assertFalse(EarlyStop.VISIT_LEAD.decided(wins, visits, 3, 30));
+        // a single move is always decided
+        assertTrue(EarlyStop.VISIT_LEAD.decided(wins, visits, 1, 1_000));
+        assertFalse(EarlyStop.VISIT_LEAD.decided(wins, visits, 0, 0));
+    }
+
+    @Test
+    public void confidenceBound() {
+        // means 0.9 and 0.1, with enough visits for the intervals to be disjoint
+        assertTrue(EarlyStop.CONFIDENCE_BOUND.decided(new int[]{1_800, 20}, new int[]{1_000, 100}, 2, 0));
+        // too few visits
+        assertFalse(EarlyStop.CONFIDENCE_BOUND.decided(new int[]{18, 2}, new int[]{10, 10}, 2, 0));
+        // an unvisited child may be better
+        assertFalse(EarlyStop.CONFIDENCE_BOUND.decided(new int[]{1_800, 0}, new int[]{1_000, 0}, 2, 0));
+    }
+
+    @Test
+    public void confidenceBoundWithMeans() {
+        assertTrue(EarlyStop.CONFIDENCE_BOUND.decided(new double[]{0.9, 0.1}, new int[]{1_000, 100}, 2, 0));
+        // a child shared with other parents: 1,100 points over its own 1,000 playouts, but 100 visits from the root.
+        // Its mean of 0.55 is no better than 0.5...
+        assertFalse(EarlyStop.CONFIDENCE_BOUND.decided(new double[]{0.55, 0.5}, new int[]{100, 90}, 2, 0));
+        // ...whereas its points over the visits alone (a "mean" of 5.5) would stop the search
+        assertTrue(EarlyStop.CONFIDENCE_BOUND.decided(new int[]{1_100, 90}, new int[]{100, 90}, 2, 0));
+    }
+}
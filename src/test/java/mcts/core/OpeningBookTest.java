@@ -0,0 +1,71 @@
+package mcts.core;
+
+import mcts.tictactoe.MCTS;
+import mcts.tictactoe.TicTacToe;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void positions() {
+        List<State<TicTacToe>> starts = List.of(new TicTacToe(0L).start());
+        assertEquals(1, OpeningBook.positions(starts, 0).size());
+        assertEquals(1 + 9, OpeningBook.positions(starts, 1).size());
+        assertEquals(1 + 9 + 72, OpeningBook.positions(starts, 2).size());
+        // X-O-X reaches each of the 9 * 8 * 7 / 2 positions by two move orders
+        assertEquals(1 + 9 + 72 + 252, OpeningBook.positions(starts, 3).size());
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        List<State<TicTacToe>> starts = List.of(new TicTacToe(0L).start());
+        Path file = directory.resolve("tictactoe.book");
+        // a "search" which plays the first legal move
+        int size = OpeningBook.build(starts, 2, OpeningBookTest::firstMove, MCTS.MOVE_CODEC, file, 2);
+        assertEquals(82, size);
+        assertEquals(OpeningBook.HEADER + OpeningBook.ENTRY * size, Files.size(file));
+
+        OpeningBook<TicTacToe> book = OpeningBook.open(file, MCTS.MOVE_CODEC);
+        assertEquals(size, book.size());
+        for (State<TicTacToe> state : OpeningBook.positions(starts, 2))
+            assertEquals(MCTS.MOVE_CODEC.encode(firstMove(state)), MCTS.MOVE_CODEC.encode(book.move(state)));
+        // a position beyond the depth of the book is not in it
+        State<TicTacToe> deeper = OpeningBook.positions(starts, 3).get(size);
+        assertNull(book.move(deeper));
+    }
+
+    @Test
+    public void detectsCorruption() throws IOException {
+        Path file = directory.resolve("tictactoe.book");
+        OpeningBook.build(List.of(new TicTacToe(0L).start()), 1, OpeningBookTest::firstMove, MCTS.MOVE_CODEC, file, 1);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 12_345), OpeningBook.HEADER + 8);
+        }
+        IOException e = assertThrows(IOException.class, () -> OpeningBook.open(file, MCTS.MOVE_CODEC));
+        assertTrue(e.getMessage().contains("CRC32"), e.getMessage());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, OpeningBook.VERSION + 1), 4);
+        }
+        e = assertThrows(IOException.class, () -> OpeningBook.open(file, MCTS.MOVE_CODEC));
+        assertTrue(e.getMessage().contains("version"), e.getMessage());
+    }
+
+    private static Move<TicTacToe> firstMove(State<TicTacToe> state) {
+        return state.moves(state.player()).iterator().next();
+    }
+}
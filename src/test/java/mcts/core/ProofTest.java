@@ -0,0 +1,31 @@
+package mcts.core;
+
+import mcts.tictactoe.TicTacToe;
+import mcts.tictactoe.TicTacToeNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProofTest {
+
+    @Test
+    public void solve() {
+        assertEquals(Proof.UNKNOWN, Proof.solve(List.of()));
+        // one winning child is enough
+        assertEquals(Proof.LOSS, Proof.solve(List.of(node(Proof.UNKNOWN), node(Proof.WIN))));
+        assertEquals(Proof.UNKNOWN, Proof.solve(List.of(node(Proof.LOSS), node(Proof.UNKNOWN))));
+        assertEquals(Proof.DRAW, Proof.solve(List.of(node(Proof.LOSS), node(Proof.DRAW))));
+        assertEquals(Proof.WIN, Proof.solve(List.of(node(Proof.LOSS), node(Proof.LOSS))));
+    }
+
+    private static Node<TicTacToe> node(Proof proof) {
+        return new TicTacToeNode(new TicTacToe(0L).start()) {
+            @Override
+            public Proof proof() {
+                return proof;
+            }
+        };
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class RandomStateTest {
 
@@ -55,4 +57,25 @@ public class RandomStateTest {
         boolean expected = new Random(0L).nextBoolean();
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void split() {
+        // splitting is deterministic, and the split source is independent of (not a copy of) the original
+        RandomState a = new RandomState(1000, 0L), b = new RandomState(1000, 0L);
+        RandomState splitA = a.split(), splitB = b.split();
+        long value = splitA.longValue();
+        assertEquals(value, splitB.longValue());
+        assertEquals(a.longValue(), b.longValue());
+        assertNotEquals(value, new RandomState(1000, 0L).split().split().longValue());
+    }
+
+    @Test
+    public void splitSplittableGenerator() {
+        RandomGenerator first = RandomState.split(new SplittableRandom(42L));
+        RandomGenerator second = RandomState.split(new SplittableRandom(42L));
+        for (int i = 0; i < 10; i++) assertEquals(first.nextLong(), second.nextLong());
+        SplittableRandom parent = new SplittableRandom(42L);
+        RandomGenerator child = RandomState.split(parent);
+        assertNotEquals(parent.nextLong(), child.nextLong());
+    }
+}
@@ -0,0 +1,36 @@
+package mcts.core;
+
+import mcts.tictactoe.TicTacToe;
+import mcts.tictactoe.TicTacToeNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchProfilerTest {
+
+    @Test
+    public void releasedRecordersAreSummed() {
+        SearchProfiler profiler = new SearchProfiler();
+        profiler.recorder().selection(profiler.recorder().start(), 3);
+        assertEquals(1, profiler.recorders());
+        profiler.release();
+        assertEquals(0, profiler.recorders());
+        profiler.recorder().selection(profiler.recorder().start(), 5);
+        assertEquals(2, profiler.snapshot().iterations());
+        assertEquals(4.0, profiler.snapshot().averageSelectionDepth());
+        profiler.reset();
+        assertEquals(SearchMetrics.EMPTY, profiler.snapshot());
+    }
+
+    @Test
+    public void reusedAcrossSearches() {
+        SearchProfiler profiler = new SearchProfiler();
+        for (int search = 1; search <= 10; search++) {
+            TicTacToeNode root = new TicTacToeNode(new TicTacToe((long) search).start());
+            new TreeParallelSearch<>(root, Math.sqrt(2), TreeParallelSearch.VIRTUAL_LOSS, profiler).run(1_000, 4);
+            assertEquals(1_000L * search, profiler.snapshot().iterations());
+            // the Recorders of the threads of each search's pool are released when the search ends
+            assertEquals(0, profiler.recorders());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package mcts.core;
+
+import mcts.tictactoe.TicTacToe;
+import mcts.tictactoe.TicTacToeNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeParallelSearchTest {
+
+    @Test
+    public void selectUCTUsesEdgePlayouts() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).start(), new TranspositionTable<>());
+        root.explore();
+        TreeParallelSearch<TicTacToe> search = new TreeParallelSearch<>(root, Math.sqrt(2), TreeParallelSearch.VIRTUAL_LOSS);
+        // every child has the same mean, and has been visited 20 times through the root
+        for (int i = 0; i < root.children().size(); i++) {
+            ((TicTacToeNode) root.child(i)).recordStatistics(20, 20);
+            if (i != 4) root.recordEdgePlayouts(i, 20);
+        }
+        root.recordStatistics(160, 160);
+        // ...but the centre has also been visited through other parents, and never through the root
+        ((TicTacToeNode) root.child(4)).recordStatistics(1_000, 1_000);
+        assertEquals(4, search.selectUCT(root));
+        // once it has been visited through the root, it still has the fewest edge playouts (though the most playouts)
+        root.recordEdgePlayouts(4, 10);
+        root.recordStatistics(10, 10);
+        assertEquals(4, search.selectUCT(root));
+    }
+}
@@ -0,0 +1,132 @@
+package mcts.core;
+
+import mcts.tictactoe.MCTS;
+import mcts.tictactoe.TicTacToe;
+import mcts.tictactoe.TicTacToeNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void roundTrip() throws IOException {
+        State<TicTacToe> start = new TicTacToe(0L).start();
+        TicTacToeNode root = new TicTacToeNode(start);
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(5_000);
+        Path file = directory.resolve("tree.snapshot");
+        int nodes = mcts.saveSnapshot(file);
+        assertEquals(TreeSnapshot.HEADER + TreeSnapshot.RECORD * nodes, Files.size(file));
+
+        TreeSnapshot<TicTacToe> snapshot = TreeSnapshot.open(file, MCTS.MOVE_CODEC);
+        assertEquals(nodes, snapshot.size());
+        TicTacToeNode loaded = TicTacToeNode.fromSnapshot(snapshot, new TicTacToe(1L).start());
+        assertEquals(root.wins(), loaded.wins());
+        assertEquals(root.playouts(), loaded.playouts());
+        // the children are loaded when the node is first expanded
+        assertTrue(loaded.children().isEmpty());
+        loaded.explore();
+        assertSameTree(root, loaded);
+
+        // the warm search continues from the loaded statistics and moves
+        MCTS warm = new MCTS(loaded, Math.sqrt(2));
+        assertEquals(MCTS.MOVE_CODEC.encode(mcts.bestMove()), MCTS.MOVE_CODEC.encode(warm.bestMove()));
+        warm.runSearch(1_000);
+        assertEquals(root.playouts() + 1_000, loaded.playouts());
+    }
+
+    private static void assertSameTree(TicTacToeNode expected, TicTacToeNode actual) {
+        assertEquals(expected.wins(), actual.wins());
+        assertEquals(expected.playouts(), actual.playouts());
+        if (expected.children().isEmpty() || expected.isLeaf()) return;
+        if (actual.children().isEmpty()) actual.explore();
+        assertEquals(expected.children().size(), actual.children().size());
+        for (int i = 0; i < expected.children().size(); i++) {
+            assertEquals(expected.child(i).state(), actual.child(i).state());
+            assertEquals(MCTS.MOVE_CODEC.encode(expected.move(i)), MCTS.MOVE_CODEC.encode(actual.move(i)));
+            assertSameTree((TicTacToeNode) expected.child(i), (TicTacToeNode) actual.child(i));
+        }
+    }
+
+    @Test
+    public void rejectsOtherRoots() throws IOException {
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).start()), Math.sqrt(2));
+        mcts.runSearch(100);
+        Path file = directory.resolve("tree.snapshot");
+        mcts.saveSnapshot(file);
+        State<TicTacToe> other = new TicTacToe(0L).start().next(mcts.bestMove());
+        assertThrows(RuntimeException.class, () -> TicTacToeNode.fromSnapshot(file, other));
+    }
+
+    @Test
+    public void rejectsSharedNodes() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).start(), new TranspositionTable<>());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(1_000);
+        assertThrows(RuntimeException.class, () -> mcts.saveSnapshot(directory.resolve("dag.snapshot")));
+    }
+
+    @Test
+    public void failedWriteKeepsPreviousSnapshot() throws IOException {
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).start()), Math.sqrt(2));
+        mcts.runSearch(1_000);
+        Path file = directory.resolve("tree.snapshot");
+        mcts.saveSnapshot(file);
+        byte[] saved = Files.readAllBytes(file);
+        mcts.runSearch(1_000);
+        TreeSnapshot.MoveCodec<TicTacToe> failing = new TreeSnapshot.MoveCodec<>() {
+            @Override
+            public int encode(Move<TicTacToe> move) {
+                if (++encoded > 20) throw new RuntimeException("cannot encode " + move);
+                return MCTS.MOVE_CODEC.encode(move);
+            }
+
+            @Override
+            public Move<TicTacToe> decode(State<TicTacToe> state, int code) {
+                return MCTS.MOVE_CODEC.decode(state, code);
+            }
+
+            private int encoded;
+        };
+        assertThrows(RuntimeException.class, () -> TreeSnapshot.write(mcts.root(), failing, file));
+        assertArrayEquals(saved, Files.readAllBytes(file));
+        // ...and leaves no temporary file behind
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void detectsCorruption() throws IOException {
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).start()), Math.sqrt(2));
+        mcts.runSearch(1_000);
+        Path file = directory.resolve("tree.snapshot");
+        mcts.saveSnapshot(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 12_345), TreeSnapshot.HEADER + 4);
+        }
+        IOException e = assertThrows(IOException.class, () -> TreeSnapshot.open(file, MCTS.MOVE_CODEC));
+        assertTrue(e.getMessage().contains("CRC32"), e.getMessage());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, TreeSnapshot.VERSION + 1), 4);
+        }
+        e = assertThrows(IOException.class, () -> TreeSnapshot.open(file, MCTS.MOVE_CODEC));
+        assertTrue(e.getMessage().contains("version"), e.getMessage());
+
+        Files.write(file, new byte[TreeSnapshot.HEADER - 1]);
+        assertThrows(IOException.class, () -> TreeSnapshot.open(file, MCTS.MOVE_CODEC));
+    }
+}
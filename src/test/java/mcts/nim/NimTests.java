@@ -2,12 +2,25 @@ package mcts.nim;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import mcts.core.EarlyStop;
+import mcts.core.NodeArena;
+import mcts.core.OpeningBook;
+import mcts.core.Playout;
+import mcts.core.Proof;
 import mcts.core.State;
 import mcts.core.Move;
 import mcts.core.Node;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -129,4 +142,280 @@ public class NimTests {
         Move<NimGame> m = mcts.bestMove();
         assertNotNull(m);
     }
+
+    @Test
+    public void testMCTSBestMoveFromEdges() {
+        NimNode root = new NimNode(game.start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.runSearch(2_000);
+        for (int i = 0; i < root.children().size(); i++)
+            assertEquals(root.child(i).state(), game.start().next(root.move(i)));
+        assertEquals(mcts.principalVariation().get(0), mcts.bestMove());
+        // the principal variation is a legal sequence of moves
+        State<NimGame> s = game.start();
+        for (Move<NimGame> m : mcts.principalVariation()) {
+            assertTrue(s.moves(s.player()).contains(m));
+            s = s.next(m);
+        }
+    }
+
+    @Test
+    public void testMCTSSolver() {
+        NimNode root = new NimNode(game.start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.setSolver(true);
+        int done = mcts.runSearch(1_000_000);
+        assertTrue(done < 1_000_000, "iterations: " + done);
+        // the nim-sum of {3,4,5} is not 0, so the root is a loss for the player who "moved" to it
+        assertEquals(Proof.LOSS, root.proof());
+        NimMove m = (NimMove) mcts.bestMove();
+        assertEquals(0, m.getPileIndex());
+        assertEquals(2, m.getRemoveCount());
+        // and it is the only move proven to win
+        assertEquals(1, root.children().stream().filter(c -> c.proof() == Proof.WIN).count());
+    }
+
+    @Test
+    public void testNimOracle() {
+        State<NimGame> s = game.start();
+        assertTrue(NimOracle.isWin(s));
+        assertEquals(s.player(), new NimOracle().winner(s));
+        assertEquals(List.of(new NimMove(s.player(), 0, 2)), NimOracle.winningMoves(s));
+        // after the winning move, the nim-sum is 0 and the opponent loses
+        State<NimGame> t = s.next(new NimMove(s.player(), 0, 2));
+        assertFalse(NimOracle.isWin(t));
+        assertEquals(s.player(), new NimOracle().winner(t));
+        assertTrue(NimOracle.winningMoves(t).isEmpty());
+        // the empty position is lost for the player to move
+        State<NimGame> empty = new NimGame(0, 0).start();
+        assertEquals(1 - empty.player(), new NimOracle().winner(empty));
+    }
+
+    @Test
+    public void testMCTSLeafEvaluator() {
+        // without rollouts, the search proves {1000, 2000, 3000} in one visit of each child (at most)
+        State<NimGame> s = new NimGame(1000, 2000, 3000).start();
+        NimNode root = new NimNode(s);
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.setLeafEvaluator(new NimOracle());
+        mcts.setSolver(true);
+        int done = mcts.runSearch(100_000);
+        assertTrue(done <= 6_000, "iterations: " + done);
+        assertEquals(Proof.LOSS, root.proof());
+        assertEquals(NimOracle.winningMoves(s), List.of(mcts.bestMove()));
+
+        // and, without the solver, its statistics still find the winning move of {3,4,5}
+        NimMCTS plain = new NimMCTS(new NimNode(game.start()), Math.sqrt(2));
+        plain.setLeafEvaluator(new NimOracle());
+        plain.runSearch(1_000);
+        assertEquals(NimOracle.winningMoves(game.start()), List.of(plain.bestMove()));
+    }
+
+    @Test
+    public void testOpeningBook(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("nim.book");
+        int[][] starts = {{1, 2, 4}, {2, 3}};
+        assertEquals(1 + 7 + 1 + 5, NimBook.build(file, starts, 1, 20_000, 2));
+        OpeningBook<NimGame> book = NimBook.open(file);
+        // the searches of the book are proven, so they find a winning move wherever there is one
+        for (int[] piles : starts) {
+            State<NimGame> start = new NimGame(piles).start();
+            for (Move<NimGame> m : start.moves(start.player())) {
+                State<NimGame> s = start.next(m);
+                if (NimOracle.isWin(s)) assertTrue(NimOracle.winningMoves(s).contains(book.move(s)), s.toString());
+            }
+            assertTrue(NimOracle.winningMoves(start).contains(book.move(start)), start.toString());
+        }
+
+        State<NimGame> start = new NimGame(1, 2, 4).start();
+        NimMCTS mcts = new NimMCTS(new NimNode(start), Math.sqrt(2));
+        mcts.setOpeningBook(book);
+        assertEquals(0, mcts.runSearch(5_000));
+        assertEquals(book.move(start), mcts.bestMove());
+        assertNull(book.move(new NimGame(3, 4, 5).start()));
+    }
+
+    @Test
+    public void testBatchAnalysis() {
+        Map<String, Object> result = NimBatch.analyze("1, 2", 2_000);
+        assertArrayEquals(new int[]{1, 2}, (int[]) result.get("piles"));
+        assertEquals(2_000, result.get("iterations"));
+        // the only winning move takes 1 from pile 1
+        assertArrayEquals(new int[]{1, 1}, (int[]) result.get("move"));
+        assertEquals(3, ((List<?>) result.get("visits")).size());
+        assertEquals(true, NimBatch.analyze("0 0", 2_000).get("terminal"));
+        assertThrows(IllegalArgumentException.class, () -> NimBatch.analyze("1 -2", 2_000));
+        assertThrows(IllegalArgumentException.class, () -> NimBatch.analyze("1 x", 2_000));
+    }
+
+    @Test
+    public void testSnapshot(@TempDir Path directory) throws IOException {
+        NimNode root = new NimNode(game.start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.runSearch(2_000);
+        Path file = directory.resolve("nim.snapshot");
+        mcts.saveSnapshot(file);
+
+        NimNode loaded = NimNode.fromSnapshot(file, game.start());
+        assertEquals(root.playouts(), loaded.playouts());
+        loaded.explore();
+        NimMCTS warm = new NimMCTS(loaded, Math.sqrt(2));
+        assertEquals(mcts.bestMove(), warm.bestMove());
+        for (int i = 0; i < root.children().size(); i++) {
+            assertEquals(root.move(i), loaded.move(i));
+            assertEquals(root.child(i).wins(), loaded.child(i).wins());
+            assertEquals(root.child(i).playouts(), loaded.child(i).playouts());
+        }
+        warm.runSearch(1_000);
+        assertEquals(root.playouts() + 1_000, loaded.playouts());
+    }
+
+    @Test
+    public void testMCTSParallelSearch() {
+        // from {1,2,4} the only winning move is to take 1 from pile 2 (nim-sum becomes 0)
+        NimNode root = new NimNode(new NimGame(new Random(0L), 1, 2, 4).start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.runParallelSearch(8_000, 4);
+        assertEquals(7, root.children().size());
+        NimMove m = (NimMove) mcts.bestMove();
+        assertEquals(game.opener(), m.player());
+        assertEquals(2, m.getPileIndex());
+        assertEquals(1, m.getRemoveCount());
+    }
+
+    @Test
+    public void testMCTSConcurrentSearch() {
+        NimNode root = new NimNode(game.start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.runConcurrentSearch(4_000, 4);
+        assertEquals(4_000, root.playouts());
+        assertEquals(12, root.children().size());
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void testMCTSEarlyStop() {
+        // piles {1, 0, 0}: a single move, decided as soon as the rule is checked
+        NimNode root = new NimNode(new NimState(game, new int[]{1, 0, 0}, 1));
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.setEarlyStop(EarlyStop.VISIT_LEAD);
+        assertEquals(NimMCTS.STOP_CHECK_INTERVAL, mcts.runSearch(10_000));
+        assertEquals(1, ((NimMove) mcts.bestMove()).getRemoveCount());
+    }
+
+    @Test
+    public void testMCTSTimeLimit() {
+        NimNode root = new NimNode(game.start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        int iterations = mcts.runSearch(Duration.ofMillis(20));
+        assertTrue(iterations >= NimMCTS.CLOCK_CHECK_INTERVAL);
+        assertEquals(iterations, root.playouts());
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void testMCTSTimeLimitAtTerminalRoot() {
+        NimMCTS mcts = new NimMCTS(new NimNode(new NimGame(0, 0, 0).start()), Math.sqrt(2));
+        long t0 = System.nanoTime();
+        assertEquals(NimMCTS.CLOCK_CHECK_INTERVAL, mcts.runSearch(Duration.ofSeconds(10)));
+        assertTrue(System.nanoTime() - t0 < 5_000_000_000L);
+    }
+
+    @Test
+    public void testMCTSAdvance() {
+        NimNode root = new NimNode(game.start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.runSearch(4_000);
+        Move<NimGame> best = mcts.bestMove();
+        State<NimGame> next = game.start().next(best);
+        int carried = mcts.advance(best);
+        assertEquals(next, mcts.root().state());
+        assertEquals(mcts.root().playouts(), carried);
+        assertTrue(carried > 0);
+        assertTrue(root.children().contains(mcts.root()));
+    }
+
+    @Test
+    public void testMCTSNodeArena() {
+        NodeArena arena = new NodeArena();
+        NimMCTS mcts = new NimMCTS(game.start(), arena, Math.sqrt(2));
+        mcts.runSearch(4_000);
+        assertEquals(4_000, arena.visits()[0]);
+        assertEquals(12, arena.childCount()[0]);
+        NimMove m = (NimMove) mcts.bestMove();
+        assertEquals(game.start().player(), m.player());
+        assertTrue(m.getRemoveCount() >= 1 && m.getRemoveCount() <= 3 + m.getPileIndex());
+    }
+
+    @Test
+    public void testPlayoutMoves() {
+        State<NimGame> s = game.start();
+        Playout<NimGame> playout = s.playout().orElseThrow();
+        playout.reset(s);
+        int[] moves = new int[playout.moveCount()];
+        playout.moves(moves);
+        assertEquals(s.moves(s.player()).size(), moves.length);
+        for (int move : moves) assertNotNull(s.next(playout.decode(move)));
+    }
+
+    @Test
+    public void testPlayout() {
+        State<NimGame> s = game.start();
+        Playout<NimGame> playout = s.playout().orElseThrow();
+        playout.reset(s);
+        assertEquals(s.player(), playout.player());
+        int[] counts = new int[3];
+        for (int i = 0; i < 1_200; i++) {
+            int move = playout.randomMove();
+            int pile = move >>> NimPlayout.PILE_SHIFT, removeCount = move & NimPlayout.COUNT_MASK;
+            assertTrue(removeCount >= 1 && removeCount <= 3 + pile, "illegal move: " + move);
+            counts[pile]++;
+        }
+        // moves are uniform, so pile 2 (5 moves) should be chosen more often than pile 0 (3 moves)
+        assertTrue(counts[2] > counts[0]);
+        playout.play(NimPlayout.encode(0, 3));
+        playout.play(NimPlayout.encode(1, 4));
+        playout.play(NimPlayout.encode(2, 5));
+        assertTrue(playout.isTerminal());
+        assertEquals(0, playout.winner());
+        int winner = playout.simulate(s);
+        assertTrue(winner == 0 || winner == 1);
+    }
+
+    @Test
+    public void testPlayoutEncodingLimits() {
+        assertTrue(new NimGame(NimPlayout.COUNT_MASK, 1).start().playout().isPresent());
+        assertTrue(new NimGame(NimPlayout.COUNT_MASK + 1, 1).start().playout().isEmpty());
+        int[] piles = new int[NimPlayout.MAX_PILES + 1];
+        Arrays.fill(piles, 1);
+        assertTrue(new NimGame(Arrays.copyOf(piles, NimPlayout.MAX_PILES)).start().playout().isPresent());
+        NimGame many = new NimGame(new Random(0L), piles);
+        assertTrue(many.start().playout().isEmpty());
+        // the search falls back to playouts through the States
+        NimNode root = new NimNode(many.start());
+        NimMCTS mcts = new NimMCTS(root, Math.sqrt(2));
+        mcts.runSearch(100);
+        assertEquals(100, root.playouts());
+        assertEquals(piles.length, root.children().size());
+    }
+
+    @Test
+    public void testZobristKey() {
+        State<NimGame> s = game.start();
+        State<NimGame> a = s.next(new NimMove(0, 0, 1)).next(new NimMove(1, 2, 2));
+        State<NimGame> b = s.next(new NimMove(0, 2, 2)).next(new NimMove(1, 0, 1));
+        State<NimGame> fresh = new NimState(game, new int[]{2, 4, 3}, 1);
+        assertEquals(a, b);
+        assertEquals(a.zobristKey(), b.zobristKey());
+        assertEquals(fresh.zobristKey(), a.zobristKey());
+        assertEquals(fresh.hashCode(), a.hashCode());
+        // same piles, other player to move
+        State<NimGame> other = new NimState(game, new int[]{2, 4, 3}, 0);
+        assertNotEquals(other.zobristKey(), a.zobristKey());
+        assertNotEquals(other, a);
+        // large piles cost no more than small ones
+        NimGame big = new NimGame(1_000, 2_000, 3_000);
+        State<NimGame> t = big.start().next(new NimMove(0, 1, 1_999));
+        assertEquals(new NimState(big, new int[]{1_000, 1, 3_000}, 0).zobristKey(), t.zobristKey());
+    }
 }
@@ -0,0 +1,96 @@
+package mcts.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveServerTest {
+
+    @BeforeEach
+    public void start() throws IOException {
+        server = new MoveServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, 100);
+        base = URI.create("http://localhost:" + server.port());
+    }
+
+    @AfterEach
+    public void stop() {
+        server.close();
+    }
+
+    @Test
+    public void ticTacToeMove() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/tictactoe/move?position=XX./OO./...&millis=50");
+        assertEquals(200, response.statusCode(), response.body());
+        // X wins at once
+        assertTrue(response.body().contains("\"move\":[0,2]"), response.body());
+        assertTrue(response.body().contains("\"queueNanos\":"), response.body());
+    }
+
+    @Test
+    public void nimMove() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/nim/move?piles=1,2&millis=50");
+        assertEquals(200, response.statusCode(), response.body());
+        // the only winning move: leave 1 and 1
+        assertTrue(response.body().contains("\"move\":[1,1]"), response.body());
+    }
+
+    @Test
+    public void badRequests() throws IOException, InterruptedException {
+        assertEquals(400, get("/tictactoe/move?position=XXX/OOO/XXX&millis=10").statusCode());
+        assertEquals(400, get("/tictactoe/move?millis=10").statusCode());
+        assertEquals(400, get("/nim/move?piles=1,x").statusCode());
+        assertEquals(400, get("/nim/move?piles=1,2&millis=-1").statusCode());
+        assertEquals(0, server.latencies().count());
+        assertTrue(get("/stats").body().contains("\"errors\":4"));
+    }
+
+    @Test
+    public void stats() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) assertEquals(200, get("/nim/move?piles=3,4,5&millis=5").statusCode());
+        HttpResponse<String> response = get("/stats");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"requests\":3,\"errors\":0,\"p50Micros\":"), response.body());
+        assertTrue(server.latencies().percentile(50) >= 5_000);
+    }
+
+    @Test
+    public void loadGeneratorReportsFailures() {
+        // nothing listens on the port of a server which has been closed
+        server.close();
+        LoadGenerator.Report report = LoadGenerator.run(base, "nim", 2, 3, 5, 0L);
+        assertEquals(0, report.games());
+        assertEquals(6, report.errors());
+        assertNotNull(report.firstError());
+    }
+
+    @Test
+    public void loadGenerator() {
+        LoadGenerator.Report report = LoadGenerator.run(base, "tictactoe", 20, 2, 5, 0L);
+        assertEquals(0, report.errors(), report.firstError());
+        assertNull(report.firstError());
+        assertEquals(40, report.games());
+        assertEquals(report.requests(), report.latencies().count());
+        assertEquals(report.requests(), server.latencies().count());
+        report = LoadGenerator.run(base, "nim", 20, 2, 5, 0L);
+        assertEquals(0, report.errors(), report.firstError());
+        assertEquals(40, report.games());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(base.resolve(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private MoveServer server;
+    private URI base;
+}
@@ -1,5 +1,463 @@
 package mcts.tictactoe;
 
+import mcts.core.EarlyStop;
+import mcts.core.LeafEvaluator;
+import mcts.core.Move;
+import mcts.core.Node;
+import mcts.core.NodeArena;
+import mcts.core.OpeningBook;
+import mcts.core.Proof;
+import mcts.core.RolloutEvent;
+import mcts.core.SearchEvent;
+import mcts.core.SearchMetrics;
+import mcts.core.SearchProfiler;
+import mcts.core.State;
+import mcts.core.TranspositionTable;
+import mcts.util.BatchPipeline;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class MCTSTest {
 
-}
\ No newline at end of file
+    @Test
+    public void runParallelSearchFindsWin() {
+        // X to play and win at (0,2)
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position));
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runParallelSearch(2_000, 4);
+        TicTacToe.TicTacToeMove move = mcts.bestMove();
+        assertArrayEquals(new int[]{0, 2}, move.move());
+        assertEquals(TicTacToe.X, move.player());
+    }
+
+    @Test
+    public void runParallelSearchMergesRootChildren() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runParallelSearch(1_000, 3);
+        assertEquals(9, root.children().size());
+        int total = 0;
+        for (Node<TicTacToe> child : root.children()) total += child.playouts();
+        // each worker's first iteration expands its root without a playout
+        assertTrue(total >= 1_000 - 3, "merged playouts: " + total);
+        assertEquals(total, root.playouts());
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void runConcurrentSearchFindsWin() {
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position));
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runConcurrentSearch(2_000, 4);
+        assertArrayEquals(new int[]{0, 2}, mcts.bestMove().move());
+    }
+
+    @Test
+    public void runConcurrentSearchRemovesVirtualLoss() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState());
+        new MCTS(root, Math.sqrt(2)).runConcurrentSearch(5_000, 8);
+        // every iteration adds exactly one playout to the root once its virtual loss is removed
+        assertEquals(5_000, root.playouts());
+        assertTrue(root.expanded());
+        assertEquals(9, root.children().size());
+    }
+
+    @Test
+    public void runSearchWithTranspositions() {
+        TranspositionTable<TicTacToe> table = new TranspositionTable<>();
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(), table);
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(50_000);
+        // there are only 5,478 reachable positions, including the empty board (which is not in the table)
+        assertTrue(table.size() <= 5_477, "nodes: " + table.size());
+        assertEquals(50_000, root.playouts());
+        int edges = 0;
+        for (int i = 0; i < root.children().size(); i++) edges += root.edgePlayouts(i);
+        assertEquals(root.playouts(), edges);
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void runSearchWithTranspositionsFindsWin() {
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position), new TranspositionTable<>());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(2_000);
+        assertArrayEquals(new int[]{0, 2}, mcts.bestMove().move());
+    }
+
+    @Test
+    public void runConcurrentSearchWithTranspositionsFindsWin() {
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        for (long seed = 0; seed < 10; seed++) {
+            TicTacToeNode root = new TicTacToeNode(new TicTacToe(seed).new TicTacToeState(position), new TranspositionTable<>());
+            MCTS mcts = new MCTS(root, Math.sqrt(2));
+            mcts.runConcurrentSearch(5_000, 4);
+            // every iteration goes through one edge of the root
+            int edges = 0;
+            for (int i = 0; i < root.children().size(); i++) edges += root.edgePlayouts(i);
+            assertEquals(5_000, edges);
+            assertArrayEquals(new int[]{0, 2}, mcts.bestMove().move(), "seed " + seed);
+        }
+    }
+
+    @Test
+    public void runSearchWithSymmetries() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(), TicTacToe.symmetryTable());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(10_000);
+        // corner, edge and centre
+        assertEquals(3, root.children().size());
+        TicTacToe.TicTacToeMove move = mcts.bestMove();
+        assertEquals(TicTacToe.X, move.player());
+    }
+
+    @Test
+    public void searchesAreDeterministicPerSeed() {
+        assertEquals(rootVisits(7L, false), rootVisits(7L, false));
+        assertEquals(rootVisits(7L, true), rootVisits(7L, true));
+        assertNotEquals(rootVisits(7L, false), rootVisits(8L, false));
+    }
+
+    private static List<Integer> rootVisits(long seed, boolean parallel) {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(seed).new TicTacToeState());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        if (parallel) mcts.runParallelSearch(4_000, 4);
+        else mcts.runSearch(4_000);
+        return root.children().stream().map(Node::playouts).toList();
+    }
+
+    @Test
+    public void solverStopsOnceTheRootIsProven() {
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position));
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.setSolver(true);
+        int done = mcts.runSearch(10_000);
+        assertTrue(done < 100, "iterations: " + done);
+        assertEquals(Proof.LOSS, root.proof());
+        assertArrayEquals(new int[]{0, 2}, mcts.bestMove().move());
+        assertEquals(0, mcts.runSearch(10_000));
+    }
+
+    @Test
+    public void solverProvesTheStartADraw() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(), TicTacToe.symmetryTable());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.setSolver(true);
+        int done = mcts.runSearch(1_000_000);
+        assertTrue(done < 1_000_000, "iterations: " + done);
+        assertEquals(Proof.DRAW, root.proof());
+        // no child of the root loses for X
+        for (Node<TicTacToe> child : root.children()) assertEquals(Proof.DRAW, child.proof());
+    }
+
+    @Test
+    public void leafEvaluator() {
+        // an evaluator which knows nothing changes nothing
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(7L).new TicTacToeState());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        int[] calls = {0};
+        mcts.setLeafEvaluator(state -> {
+            calls[0]++;
+            return LeafEvaluator.UNKNOWN;
+        });
+        mcts.runSearch(4_000);
+        assertEquals(rootVisits(7L, false), root.children().stream().map(Node::playouts).toList());
+        assertTrue(calls[0] >= 4_000, "calls: " + calls[0]);
+
+        // an evaluator which knows the terminal positions: X's win at (0,2) proves the root without a rollout there
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position));
+        mcts = new MCTS(root, Math.sqrt(2));
+        mcts.setLeafEvaluator(state -> state.isTerminal() ? state.winner().orElse(-1) : LeafEvaluator.UNKNOWN);
+        mcts.setSolver(true);
+        assertTrue(mcts.runSearch(1_000) < 100);
+        assertEquals(Proof.LOSS, root.proof());
+        assertArrayEquals(new int[]{0, 2}, mcts.bestMove().move());
+    }
+
+    @Test
+    public void principalVariation() {
+        // X wins at (0,2) at once
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position)), Math.sqrt(2));
+        assertTrue(mcts.principalVariation().isEmpty());
+        mcts.runSearch(2_000);
+        List<TicTacToe.TicTacToeMove> pv = mcts.principalVariation();
+        assertEquals(1, pv.size());
+        assertArrayEquals(mcts.bestMove().move(), pv.get(0).move());
+        // from the start (in a DAG), the variation is a legal sequence of moves
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(), new TranspositionTable<>());
+        MCTS start = new MCTS(root, Math.sqrt(2));
+        start.runSearch(10_000);
+        pv = start.principalVariation();
+        assertTrue(pv.size() > 1);
+        State<TicTacToe> state = root.state();
+        for (TicTacToe.TicTacToeMove move : pv) {
+            assertEquals(state.player(), move.player());
+            state = state.next(move);
+        }
+    }
+
+    @Test
+    public void runSearchWithSymmetriesFindsWin() {
+        // X wins at (2,2); the winning child is stored in its canonical orientation
+        Position position = Position.parsePosition("O O .\n. . .\nX X .", TicTacToe.O);
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position), TicTacToe.symmetryTable());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(2_000);
+        assertArrayEquals(new int[]{2, 2}, mcts.bestMove().move());
+        mcts.runParallelSearch(2_000, 2);
+        assertArrayEquals(new int[]{2, 2}, mcts.bestMove().move());
+    }
+
+    @Test
+    public void runSearchWithNodeArenaFindsWin() {
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        NodeArena arena = new NodeArena(16);
+        MCTS mcts = new MCTS(new TicTacToe(0L).new TicTacToeState(position), arena, Math.sqrt(2));
+        mcts.runSearch(2_000);
+        TicTacToe.TicTacToeMove move = mcts.bestMove();
+        assertArrayEquals(new int[]{0, 2}, move.move());
+        assertEquals(TicTacToe.X, move.player());
+        assertEquals(2_000, arena.visits()[0]);
+    }
+
+    @Test
+    public void nodeArenaIsReusedBetweenSearches() {
+        NodeArena arena = new NodeArena(16);
+        new MCTS(new TicTacToe(0L).new TicTacToeState(), arena, Math.sqrt(2)).runSearch(5_000);
+        int capacity = arena.capacity();
+        int[] visits = arena.visits();
+        assertTrue(arena.size() > 1_000, "nodes: " + arena.size());
+        assertTrue(arena.bytesPerNode() >= NodeArena.BYTES_PER_NODE);
+        MCTS mcts = new MCTS(new TicTacToe(1L).new TicTacToeState(), arena, Math.sqrt(2));
+        assertEquals(1, arena.size());
+        mcts.runSearch(1_000);
+        assertEquals(capacity, arena.capacity());
+        assertSame(visits, arena.visits());
+        assertEquals(9, arena.childCount()[0]);
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void advanceKeepsSubtree() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(5_000);
+        TicTacToe.TicTacToeMove move = mcts.bestMove();
+        Node<TicTacToe> expected = null;
+        for (Node<TicTacToe> child : root.children())
+            if (child.state().equals(root.state().next(move))) expected = child;
+        int carried = mcts.advance(move);
+        assertSame(expected, mcts.root());
+        assertEquals(expected.playouts(), carried);
+        assertTrue(carried > 0);
+        // the opponent's reply
+        Node<TicTacToe> reply = mcts.root().children().iterator().next();
+        TicTacToe.TicTacToeState state = (TicTacToe.TicTacToeState) mcts.root().state();
+        for (Move<TicTacToe> m : state.moves(state.player()))
+            if (state.next(m).equals(reply.state())) assertEquals(reply.playouts(), mcts.advance(m));
+        assertSame(reply, mcts.root());
+        mcts.runSearch(1_000);
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void advanceReleasesTranspositions() {
+        TranspositionTable<TicTacToe> table = new TranspositionTable<>();
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(), table);
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.runSearch(5_000);
+        int before = table.size();
+        mcts.advance(mcts.bestMove());
+        assertTrue(table.size() < before, "table size: " + table.size() + " (was " + before + ")");
+        mcts.runSearch(1_000);
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void advanceUnexploredMove() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        assertEquals(0, mcts.advance(new TicTacToe.TicTacToeMove(TicTacToe.X, 1, 1)));
+        assertEquals(TicTacToe.O, mcts.root().state().player());
+    }
+
+    @Test
+    public void runSearchWithTimeLimit() {
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position));
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        long t0 = System.nanoTime();
+        int iterations = mcts.runSearch(Duration.ofMillis(20));
+        long elapsed = System.nanoTime() - t0;
+        assertTrue(elapsed >= 20_000_000L, "elapsed: " + elapsed);
+        assertEquals(0, iterations % MCTS.CLOCK_CHECK_INTERVAL);
+        // (exploring the root also counts the playouts with which its terminal children are created)
+        assertTrue(root.playouts() >= iterations);
+        assertArrayEquals(new int[]{0, 2}, mcts.bestMove().move());
+    }
+
+    @Test
+    public void runSearchWithZeroTimeLimit() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        assertEquals(MCTS.CLOCK_CHECK_INTERVAL, mcts.runSearch(Duration.ZERO));
+        assertNotNull(mcts.bestMove());
+    }
+
+    @Test
+    public void runSearchWithTimeLimitAtTerminalRoot() {
+        // X has won: there is nothing to search, however long the time limit
+        Position position = Position.parsePosition("X X X\nO O .\n. . .", TicTacToe.X);
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position)), Math.sqrt(2));
+        long t0 = System.nanoTime();
+        assertEquals(MCTS.CLOCK_CHECK_INTERVAL, mcts.runSearch(Duration.ofSeconds(10)));
+        assertTrue(System.nanoTime() - t0 < 5_000_000_000L);
+    }
+
+    @Test
+    public void runSearchStopsEarly() {
+        // X to play and win at (0,2)
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        for (EarlyStop rule : new EarlyStop[]{EarlyStop.VISIT_LEAD, EarlyStop.CONFIDENCE_BOUND}) {
+            TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position));
+            MCTS mcts = new MCTS(root, Math.sqrt(2));
+            mcts.setEarlyStop(rule);
+            int iterations = mcts.runSearch(100_000);
+            assertTrue(iterations < 100_000, rule + ": " + iterations);
+            assertEquals(0, iterations % MCTS.STOP_CHECK_INTERVAL);
+            assertArrayEquals(new int[]{0, 2}, mcts.bestMove().move());
+        }
+    }
+
+    @Test
+    public void openingBook(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tictactoe.book");
+        assertEquals(82, TicTacToeBook.build(file, 2, 20_000, 2));
+        OpeningBook<TicTacToe> book = TicTacToeBook.open(file);
+        Tablebase tablebase = Tablebase.openOrGenerate(directory.resolve("tictactoe.tablebase"));
+        // the searches of the book are proven, so their moves keep the value of each position
+        for (State<TicTacToe> state : OpeningBook.positions(List.of(new TicTacToe(0L).start()), 2))
+            assertEquals(tablebase.winner(state), tablebase.winner(state.next(book.move(state))), state.toString());
+
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).start()), Math.sqrt(2));
+        mcts.setOpeningBook(book);
+        assertEquals(0, mcts.runSearch(100_000));
+        assertEquals(0, mcts.runSearch(Duration.ofSeconds(10)));
+        TicTacToe.TicTacToeMove move = mcts.bestMove();
+        assertEquals(MCTS.MOVE_CODEC.encode(book.move(mcts.root().state())), MCTS.MOVE_CODEC.encode(move));
+        // beyond the depth of the book, the engine searches
+        for (int ply = 0; ply < 3; ply++) {
+            mcts.advance(move);
+            move = (TicTacToe.TicTacToeMove) mcts.root().state().moves(mcts.root().state().player()).iterator().next();
+        }
+        assertEquals(1_000, mcts.runSearch(1_000));
+    }
+
+    @Test
+    public void batchAnalysis() {
+        Map<String, Object> result = TicTacToeBatch.analyze("XX./OO./...", 2_000);
+        assertEquals("XX./OO./...", result.get("position"));
+        assertEquals(2_000, result.get("iterations"));
+        assertArrayEquals(new int[]{0, 2}, (int[]) result.get("move"));
+        assertEquals(5, ((List<?>) result.get("visits")).size());
+        // the analysis of a position does not depend on the run
+        assertEquals(BatchPipeline.json(result), BatchPipeline.json(TicTacToeBatch.analyze("X X ./O O ./. . .", 2_000))
+                .replace("X X ./O O ./. . .", "XX./OO./..."));
+
+        assertEquals(true, TicTacToeBatch.analyze("XXX/OO./...", 2_000).get("terminal"));
+        assertThrows(IllegalArgumentException.class, () -> TicTacToeBatch.analyze("XX./.../...", 2_000));
+        assertThrows(IllegalArgumentException.class, () -> TicTacToeBatch.analyze("XX./OO.", 2_000));
+        assertThrows(IllegalArgumentException.class, () -> TicTacToeBatch.analyze("XX./OO./..?", 2_000));
+    }
+
+    @Test
+    public void runSearchWithoutEarlyStop() {
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).new TicTacToeState()), Math.sqrt(2));
+        assertEquals(1_000, mcts.runSearch(1_000));
+    }
+
+    @Test
+    public void profilerRecordsPhases() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).new TicTacToeState());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        SearchProfiler profiler = new SearchProfiler();
+        mcts.setProfiler(profiler);
+        mcts.runSearch(2_000);
+        SearchMetrics metrics = profiler.snapshot();
+        assertEquals(2_000, metrics.iterations());
+        assertTrue(metrics.expansions() > 0 && metrics.expansions() < 2_000);
+        // every node but the root was created by an expansion
+        int nodes = 0;
+        Deque<Node<TicTacToe>> stack = new ArrayDeque<>(List.of(root));
+        while (!stack.isEmpty()) {
+            nodes++;
+            stack.addAll(stack.pop().children());
+        }
+        assertEquals(nodes - 1, metrics.nodesCreated());
+        assertTrue(metrics.averageSelectionDepth() > 1);
+        assertTrue(metrics.averageRolloutLength() > 0 && metrics.averageRolloutLength() < 9);
+        assertTrue(metrics.simulationNanos() > 0 && metrics.totalNanos() > metrics.simulationNanos());
+        profiler.reset();
+        assertEquals(SearchMetrics.EMPTY, profiler.snapshot());
+    }
+
+    @Test
+    public void profilerSumsThreads() {
+        SearchProfiler profiler = new SearchProfiler();
+        MCTS concurrent = new MCTS(new TicTacToeNode(new TicTacToe(0L).new TicTacToeState()), Math.sqrt(2));
+        concurrent.setProfiler(profiler);
+        concurrent.runConcurrentSearch(5_000, 4);
+        assertEquals(5_000, profiler.snapshot().iterations());
+        MCTS parallel = new MCTS(new TicTacToeNode(new TicTacToe(1L).new TicTacToeState()), Math.sqrt(2));
+        parallel.setProfiler(profiler);
+        parallel.runParallelSearch(3_000, 3);
+        assertEquals(8_000, profiler.snapshot().iterations());
+    }
+
+    @Test
+    public void flightRecorderEvents(@TempDir Path directory) throws IOException {
+        // X to play and win at (0,2)
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        MCTS mcts = new MCTS(new TicTacToeNode(new TicTacToe(0L).new TicTacToeState(position)), Math.sqrt(2));
+        Path file = directory.resolve("search.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(SearchEvent.NAME);
+            recording.enable(RolloutEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            mcts.runSearch(1_000);
+            mcts.runConcurrentSearch(1_000, 2);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> searches = events.stream().filter(e -> e.getEventType().getName().equals(SearchEvent.NAME)).toList();
+        assertEquals(List.of("sequential", "tree-parallel"), searches.stream().map(e -> e.getString("mode")).toList());
+        for (RecordedEvent search : searches) {
+            assertEquals(MCTS.GAME, search.getString("game"));
+            assertEquals(1_000, search.getLong("budget"));
+            assertEquals(1_000, search.getLong("iterations"));
+            assertEquals(mcts.bestMove().toString(), search.getString("move"));
+        }
+        assertEquals(mcts.nodesCreated(), searches.get(0).getLong("nodes") + searches.get(1).getLong("nodes"));
+        assertEquals(2_000, events.stream().filter(e -> e.getEventType().getName().equals(RolloutEvent.NAME)).count());
+    }
+}
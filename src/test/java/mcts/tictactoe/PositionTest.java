@@ -297,4 +297,55 @@ public class PositionTest {
         Position c = a.move(O, 0, 1);
         assertNotEquals(a, c);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Rotate 90° anticlockwise")
+    public void testRotateOnce() {
+        Position p = Position.parsePosition("X O .\n. . .\n. . .", blank);
+        assertEquals(". . .\nO . .\nX . .", p.rotate().render());
+    }
+
+    @Test
+    @DisplayName("Each of the eight lines is a win")
+    public void testAllLines() {
+        String[] grids = {
+                "X X X\n. . .\n. . .", ". . .\nX X X\n. . .", ". . .\n. . .\nX X X",
+                "X . .\nX . .\nX . .", ". X .\n. X .\n. X .", ". . X\n. . X\n. . X",
+                "X . .\n. X .\n. . X", ". . X\n. X .\nX . ."
+        };
+        for (String grid : grids) {
+            assertTrue(Position.parsePosition(grid, X).threeInARow(), grid);
+            assertFalse(Position.parsePosition(grid, O).threeInARow(), grid);
+        }
+    }
+
+    @Test
+    @DisplayName("Symmetric positions have the same canonical form")
+    public void testCanonical() {
+        Position p = Position.parsePosition("X O .\n. . .\n. . .", O);
+        Position q = Position.parsePosition(". . .\n. . .\n. O X", O);
+        Position r = Position.parsePosition("X . .\nO . .\n. . .", O);
+        Position t = Position.parsePosition(". X .\n. . .\n. O .", O);
+        assertEquals(p.canonical(), q.canonical());
+        assertEquals(p.canonical(), r.canonical());
+        assertEquals(p.canonical(), p.rotate().canonical());
+        assertEquals(p.canonical(), p.reflect(1).canonical());
+        assertNotEquals(p.canonical(), t.canonical());
+        assertEquals(p.canonical(), p.canonical().canonical());
+    }
+
+    @Test
+    @DisplayName("Zobrist key is updated incrementally and independent of move order")
+    public void testZobrist() {
+        Position start = Position.parsePosition(". . .\n. . .\n. . .", blank);
+        Position a = start.move(X, 0, 0).move(O, 1, 1).move(X, 2, 2);
+        Position b = start.move(X, 2, 2).move(O, 1, 1).move(X, 0, 0);
+        Position parsed = Position.parsePosition("X . .\n. O .\n. . X", X);
+        assertEquals(a.zobrist(), b.zobrist());
+        assertEquals(parsed.zobrist(), a.zobrist());
+        assertEquals(parsed.hashCode(), a.hashCode());
+        assertNotEquals(start.zobrist(), a.zobrist());
+        assertNotEquals(a.zobrist(), start.move(X, 0, 0).move(O, 2, 2).move(X, 1, 1).zobrist());
+        assertEquals(a.rotate().rotate().rotate().rotate().zobrist(), a.zobrist());
+    }
+}
@@ -0,0 +1,112 @@
+package mcts.tictactoe;
+
+import mcts.core.LeafEvaluator;
+import mcts.core.Proof;
+import mcts.core.State;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTest {
+
+    @TempDir
+    static Path directory;
+
+    static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        Path file = directory.resolve("tictactoe.tablebase");
+        // the well-known number of positions reachable in a game of TicTacToe
+        assertEquals(5_478, Tablebase.generate(file));
+        assertEquals(Tablebase.HEADER + Tablebase.SIZE, Files.size(file));
+        tablebase = Tablebase.open(file);
+    }
+
+    @Test
+    public void code() {
+        assertEquals(0, TicTacToe.startingPosition().code());
+        // X (2) in cell 0 and O (1) in cell 1
+        assertEquals(2 + 3, Position.parsePosition("X O .\n. . .\n. . .", TicTacToe.O).code());
+        assertEquals(Tablebase.SIZE - 1, Position.parsePosition("X X X\nX X X\nX X X", TicTacToe.X).code());
+    }
+
+    @Test
+    public void start() {
+        Position start = TicTacToe.startingPosition();
+        assertTrue(tablebase.contains(start));
+        assertEquals(-1, tablebase.winner(start));
+        assertTrue(tablebase.bestMove(start) >= 0);
+    }
+
+    @Test
+    public void wins() {
+        // X to play and win at (0,2), at once rather than later
+        Position position = Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O);
+        assertEquals(TicTacToe.X, tablebase.winner(position));
+        assertEquals(2, tablebase.bestMove(position));
+        // O loses to the fork at (1,1) anyway, but blocking at (0,2) loses the most slowly
+        position = Position.parsePosition("X X .\nO . .\n. . .", TicTacToe.X);
+        assertEquals(TicTacToe.X, tablebase.winner(position));
+        assertEquals(2, tablebase.bestMove(position));
+        // a fork: X wins whatever O does
+        position = Position.parsePosition("X . .\n. O .\n. . X", TicTacToe.X);
+        assertEquals(-1, tablebase.winner(position));
+        position = Position.parsePosition("X . O\n. . .\nX . .", TicTacToe.X);
+        assertEquals(TicTacToe.X, tablebase.winner(position));
+    }
+
+    @Test
+    public void terminalAndUnreachable() {
+        Position won = Position.parsePosition("X X X\nO O .\n. . .", TicTacToe.X);
+        assertEquals(TicTacToe.X, tablebase.winner(won));
+        assertEquals(-1, tablebase.bestMove(won));
+        // both players have three in a row
+        Position unreachable = Position.parsePosition("X X X\nO O O\n. . .", TicTacToe.O);
+        assertFalse(tablebase.contains(unreachable));
+        assertEquals(LeafEvaluator.UNKNOWN, tablebase.winner(unreachable));
+        assertEquals(-1, tablebase.bestMove(unreachable));
+    }
+
+    @Test
+    public void perfectPlayDraws() {
+        State<TicTacToe> state = new TicTacToe(0L).start();
+        while (!state.isTerminal()) state = state.next(tablebase.bestMove(state));
+        assertTrue(state.winner().isEmpty());
+        assertNull(tablebase.bestMove(state));
+    }
+
+    @Test
+    public void leafEvaluator() {
+        TicTacToeNode root = new TicTacToeNode(new TicTacToe(0L).start());
+        MCTS mcts = new MCTS(root, Math.sqrt(2));
+        mcts.setLeafEvaluator(tablebase);
+        mcts.setSolver(true);
+        // each child of the root is evaluated (and proven) once
+        assertEquals(9, mcts.runSearch(1_000));
+        assertEquals(Proof.DRAW, root.proof());
+    }
+
+    @Test
+    public void rejectsOtherFiles(@TempDir Path other) throws IOException {
+        Path file = other.resolve("other");
+        Files.write(file, new byte[Tablebase.HEADER + Tablebase.SIZE]);
+        assertThrows(IOException.class, () -> Tablebase.open(file));
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> Tablebase.open(file));
+    }
+
+    @Test
+    public void openOrGenerate(@TempDir Path other) throws IOException {
+        Path file = other.resolve("sub").resolve("tictactoe.tablebase");
+        Tablebase generated = Tablebase.openOrGenerate(file);
+        assertEquals(-1, generated.winner(TicTacToe.startingPosition()));
+        assertTrue(Files.exists(file));
+    }
+}
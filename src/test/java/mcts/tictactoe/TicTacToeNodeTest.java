@@ -1,5 +1,9 @@
 package mcts.tictactoe;
 
+import mcts.core.Node;
+import mcts.core.Proof;
+import mcts.core.State;
+import mcts.core.TranspositionTable;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,7 +40,59 @@ public class TicTacToeNodeTest {
 
     @Test
     public void addChild() {
-        // no tests yet
+        TicTacToe game = new TicTacToe(0L);
+        TicTacToeNode node = new TicTacToeNode(game.new TicTacToeState());
+        node.addChild(game.new TicTacToeState(Position.parsePosition("X . .\n. . .\n. . .", TicTacToe.X)));
+        assertEquals(1, node.children().size());
+        assertFalse(node.child(0).isLeaf());
+    }
+
+    @Test
+    public void addChildShared() {
+        // two positions which lead to the same position when X plays (1,0) and (0,0) respectively
+        TranspositionTable<TicTacToe> table = new TranspositionTable<>();
+        TicTacToe game = new TicTacToe(0L);
+        TicTacToeNode a = new TicTacToeNode(game.new TicTacToeState(Position.parsePosition("X O .\n. . .\n. . .", TicTacToe.O)), table);
+        TicTacToeNode b = new TicTacToeNode(game.new TicTacToeState(Position.parsePosition(". O .\nX . .\n. . .", TicTacToe.O)), table);
+        a.explore();
+        b.explore();
+        assertEquals(7, a.children().size());
+        assertEquals(7, b.children().size());
+        // 7 + 7 children, one of which is shared
+        assertEquals(13, table.size());
+        Node<TicTacToe> shared = table.lookup(game.new TicTacToeState(Position.parsePosition("X O .\nX . .\n. . .", TicTacToe.X)), s -> null);
+        assertTrue(a.children().contains(shared));
+        assertTrue(b.children().contains(shared));
+        assertEquals(0, a.playouts());
+        // each parent records its own move to the shared child
+        assertArrayEquals(new int[]{1, 0}, ((TicTacToe.TicTacToeMove) a.move(a.children().stream().toList().indexOf(shared))).move());
+        assertArrayEquals(new int[]{0, 0}, ((TicTacToe.TicTacToeMove) b.move(b.children().stream().toList().indexOf(shared))).move());
+    }
+
+    @Test
+    public void move() {
+        TicTacToe game = new TicTacToe(0L);
+        State<TicTacToe> state = game.new TicTacToeState();
+        TicTacToeNode node = new TicTacToeNode(state);
+        node.explore();
+        for (int i = 0; i < node.children().size(); i++)
+            assertEquals(node.child(i).state(), state.next(node.move(i)));
+    }
+
+    @Test
+    public void proof() {
+        TicTacToe game = new TicTacToe(0L);
+        // X has just won
+        assertEquals(Proof.WIN, new TicTacToeNode(game.new TicTacToeState(Position.parsePosition("X X X\nO O .\n. . .", TicTacToe.X))).proof());
+        assertEquals(Proof.DRAW, new TicTacToeNode(game.new TicTacToeState(Position.parsePosition("X O X\nX O O\nO X X", TicTacToe.X))).proof());
+        TicTacToeNode node = new TicTacToeNode(game.new TicTacToeState(Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O)));
+        assertEquals(Proof.UNKNOWN, node.proof());
+        assertFalse(node.solve());
+        // once expanded, X's win at (0,2) proves the node a loss for O
+        node.explore();
+        assertTrue(node.solve());
+        assertEquals(Proof.LOSS, node.proof());
+        assertFalse(node.solve());
     }
 
     @Test
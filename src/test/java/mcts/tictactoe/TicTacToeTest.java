@@ -1,5 +1,6 @@
 package mcts.tictactoe;
 
+import mcts.core.Playout;
 import mcts.core.State;
 
 import org.junit.jupiter.api.DisplayName;
@@ -22,4 +23,29 @@ public class TicTacToeTest {
         if (winner.isPresent()) assertEquals(Integer.valueOf(TicTacToe.X), winner.get());
         else fail("no winner");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void playout() {
+        TicTacToe target = new TicTacToe(0L);
+        // X to play: X wins by playing (0,2); otherwise O can win by playing (1,2).
+        State<TicTacToe> state = target.new TicTacToeState(Position.parsePosition("X X .\nO O .\n. . .", TicTacToe.O));
+        Playout<TicTacToe> playout = state.playout().orElseThrow();
+        playout.reset(state);
+        assertFalse(playout.isTerminal());
+        assertEquals(TicTacToe.X, playout.player());
+        playout.play(2);
+        assertTrue(playout.isTerminal());
+        assertEquals(TicTacToe.X, playout.winner());
+        playout.reset(state);
+        playout.play(6);
+        assertFalse(playout.isTerminal());
+        assertEquals(TicTacToe.O, playout.player());
+        playout.play(5);
+        assertTrue(playout.isTerminal());
+        assertEquals(TicTacToe.O, playout.winner());
+        for (int i = 0; i < 100; i++) {
+            int winner = playout.simulate(state);
+            assertTrue(winner >= -1 && winner <= 1);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package mcts.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPipelineTest {
+
+    @Test
+    public void resultsInInputOrder() throws IOException {
+        StringWriter output = new StringWriter();
+        BatchPipeline.Totals totals = new BatchPipeline(4, 8).run(new BufferedReader(new StringReader("3\n1\n\n4\n1\n5\n9\n2\n6\n")),
+                output, line -> {
+                    int n = Integer.parseInt(line);
+                    sleep(n);   // later lines may finish first
+                    return Map.of("square", n * n);
+                });
+        assertEquals(new BatchPipeline.Totals(8, 0, totals.nanos()), totals);
+        List<String> lines = output.toString().lines().toList();
+        assertEquals(8, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"line\":1,\"square\":9,\"nanos\":"), lines.get(0));
+        // the blank line 3 is skipped, but counted
+        assertTrue(lines.get(2).startsWith("{\"line\":4,\"square\":16,"), lines.get(2));
+        assertTrue(lines.get(7).startsWith("{\"line\":9,\"square\":36,"), lines.get(7));
+    }
+
+    @Test
+    public void rejectedLines() throws IOException {
+        StringWriter output = new StringWriter();
+        BatchPipeline.Totals totals = new BatchPipeline(2, 2).run(new BufferedReader(new StringReader("1\nx\n2")), output,
+                line -> Map.of("value", Integer.parseInt(line)));
+        assertEquals(3, totals.positions());
+        assertEquals(1, totals.errors());
+        List<String> lines = output.toString().lines().toList();
+        assertTrue(lines.get(1).startsWith("{\"line\":2,\"input\":\"x\",\"error\":\"For input string: \\\"x\\\"\",\"nanos\":"),
+                lines.get(1));
+        assertTrue(lines.get(2).startsWith("{\"line\":3,\"value\":2,"), lines.get(2));
+    }
+
+    @Test
+    public void failedAnalysis() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new BatchPipeline(2, 2).run(
+                new BufferedReader(new StringReader("1\n2\n3")), new StringWriter(), line -> {
+                    if (line.equals("2")) throw new IllegalStateException("bug");
+                    return Map.of();
+                }));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    public void backPressure() throws IOException, InterruptedException {
+        final int LINES = 100_000, CAPACITY = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger maxStarted = new AtomicInteger();
+        Thread releaser = new Thread(() -> {
+            try {
+                // while line 1 is stuck, the reader cannot run ahead of the writer by more than the capacity
+                Thread.sleep(200);
+                maxStarted.set(started.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            release.countDown();
+        });
+        releaser.start();
+        StringWriter output = new StringWriter();
+        BatchPipeline.Totals totals = new BatchPipeline(2, CAPACITY).run(new BufferedReader(new Lines(LINES)), output, line -> {
+            started.incrementAndGet();
+            if (line.equals("1")) await(release);
+            return Map.of();
+        });
+        releaser.join();
+        assertTrue(maxStarted.get() >= 1 && maxStarted.get() <= CAPACITY + 2, "started: " + maxStarted.get());
+        assertEquals(LINES, totals.positions());
+        List<String> lines = output.toString().lines().toList();
+        assertEquals(LINES, lines.size());
+        for (int i = 0; i < LINES; i += 9_999) assertTrue(lines.get(i).startsWith("{\"line\":" + (i + 1) + ","), lines.get(i));
+    }
+
+    @Test
+    public void readErrors() {
+        Reader failing = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("disk on fire");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        IOException e = assertThrows(IOException.class,
+                () -> new BatchPipeline(1, 1).run(new BufferedReader(failing), new StringWriter(), line -> Map.of()));
+        assertEquals("disk on fire", e.getMessage());
+    }
+
+    @Test
+    public void json() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("move", new int[]{0, 2});
+        value.put("visits", List.of(Map.of("n", 3), Map.of("n", 4)));
+        value.put("value", 0.5);
+        value.put("none", null);
+        value.put("text", "a \"b\"\n");
+        assertEquals("{\"move\":[0,2],\"visits\":[{\"n\":3},{\"n\":4}],\"value\":0.5000,\"none\":null,\"text\":\"a \\\"b\\\"\\n\"}",
+                BatchPipeline.json(value));
+    }
+
+    /**
+     * The lines "1", "2", ..., generated as they are read.
+     */
+    private static class Lines extends Reader {
+        Lines(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (pending.isEmpty()) {
+                if (next > count) return -1;
+                pending = next++ + "\n";
+            }
+            int n = Math.min(length, pending.length());
+            pending.getChars(0, n, buffer, offset);
+            pending = pending.substring(n);
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private final int count;
+        private int next = 1;
+        private String pending = "";
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package mcts.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BenchmarkGridTest {
+
+    @Test
+    public void reproducibleForAnyNumberOfThreads() {
+        List<Integer> settings = List.of(10, 20, 30, 40);
+        List<Object[]> one = run(new BenchmarkGrid("test", 42L, 1, null, false), settings);
+        List<Object[]> four = run(new BenchmarkGrid("test", 42L, 4, null, false), settings);
+        assertEquals(settings.size(), one.size());
+        for (int i = 0; i < settings.size(); i++) {
+            assertEquals(settings.get(i), one.get(i)[0]);
+            assertArrayEquals(one.get(i), four.get(i));
+        }
+        List<Object[]> other = run(new BenchmarkGrid("test", 43L, 4, null, false), settings);
+        assertNotEquals(one.get(0)[1], other.get(0)[1]);
+    }
+
+    @Test
+    public void seeds() {
+        BenchmarkGrid grid = new BenchmarkGrid("test", 42L, 1, null, false);
+        assertEquals(grid.seed(1, 2), grid.seed(1, 2));
+        assertNotEquals(grid.seed(1, 2), grid.seed(2, 1));
+        assertNotEquals(grid.seed(0, 0), new BenchmarkGrid("test", 43L, 1, null, false).seed(0, 0));
+    }
+
+    @Test
+    public void writesCsvAndJson(@TempDir Path directory) throws IOException {
+        run(new BenchmarkGrid("grid", 42L, 2, directory, false), List.of(1, 2));
+        List<String> csv = Files.readAllLines(directory.resolve("grid.csv"));
+        List<String> json = Files.readAllLines(directory.resolve("grid.jsonl"));
+        assertEquals(3, csv.size());
+        assertEquals("Setting,Sum,Label", csv.get(0));
+        assertEquals(2, json.size());
+        for (String line : json) assertTrue(line.matches("\\{\"Setting\":\\d+,\"Sum\":-?\\d+,\"Label\":\"a,\\\\\"b\\\\\"\"}"), line);
+        assertTrue(csv.get(1).endsWith(",\"a,\"\"b\"\"\""), csv.get(1));
+    }
+
+    private static List<Object[]> run(BenchmarkGrid grid, List<Integer> settings) {
+        return grid.run(settings, 50,
+                (setting, seed) -> new Random(seed).nextInt(setting),
+                (setting, results) -> {
+                    long sum = 0;
+                    for (int i = 0; i < results.size(); i++) sum = 31 * sum + results.get(i); // order-sensitive
+                    return new Object[]{setting, sum, "a,\"b\""};
+                },
+                "Setting", "Sum", "Label");
+    }
+}
@@ -0,0 +1,39 @@
+package mcts.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets() {
+        for (long micros = 0; micros < 1_000_000; micros += 1 + micros / 7) {
+            int bucket = LatencyHistogram.bucket(micros);
+            assertTrue(micros <= LatencyHistogram.upperBound(bucket), "" + micros);
+            if (bucket > 0) assertTrue(micros > LatencyHistogram.upperBound(bucket - 1), "" + micros);
+            // within 1/16 of the latency
+            assertTrue(LatencyHistogram.upperBound(bucket) - micros <= micros / LatencyHistogram.SUB_BUCKETS, "" + micros);
+        }
+        assertEquals(15, LatencyHistogram.bucket(15));
+        assertEquals(16, LatencyHistogram.bucket(16));
+        assertEquals(33, LatencyHistogram.upperBound(LatencyHistogram.bucket(32)));
+        LatencyHistogram.bucket(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(50));
+        for (int i = 1; i <= 100; i++) histogram.record(i * 1_000_000L);     // 1 to 100 ms
+        assertEquals(100, histogram.count());
+        assertEquals(50_000, histogram.percentile(50), 50_000 / 16);
+        assertEquals(99_000, histogram.percentile(99), 99_000 / 16);
+        assertEquals(1_000, histogram.percentile(0), 1_000 / 16);
+        assertTrue(histogram.percentile(100) >= 100_000);
+        histogram.record(-5);
+        assertEquals(0, histogram.percentile(0));
+        histogram.reset();
+        assertEquals(0, histogram.count());
+    }
+}
@@ -0,0 +1,53 @@
+package mcts.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnorderedIteratorTest {
+
+    @Test
+    public void createDeterministic() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) list.add(i);
+        List<Integer> first = drain(UnorderedIterator.createDeterministic(list, 42L));
+        List<Integer> second = drain(UnorderedIterator.createDeterministic(list, 42L));
+        assertEquals(first, second);
+        assertNotEquals(list, first);
+    }
+
+    @Test
+    public void permutation() {
+        Set<String> set = new HashSet<>(Arrays.asList("a", "b", "c", "d", "e"));
+        List<String> result = drain(new UnorderedIterator<>(set, new Random(0L)));
+        assertEquals(5, result.size());
+        assertEquals(set, new HashSet<>(result));
+    }
+
+    @Test
+    public void sourceNotModified() {
+        String[] array = {"a", "b", "c"};
+        List<String> list = new ArrayList<>(Arrays.asList(array));
+        drain(new UnorderedIterator<>(array, new Random(0L)));
+        drain(UnorderedIterator.createDeterministic(list, 0L));
+        assertArrayEquals(new String[]{"a", "b", "c"}, array);
+        assertEquals(Arrays.asList(array), list);
+    }
+
+    @Test
+    public void exhausted() {
+        UnorderedIterator<String> iterator = new UnorderedIterator<>(new String[]{"a"}, new Random(0L));
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    private static <X> List<X> drain(Iterator<X> iterator) {
+        List<X> result = new ArrayList<>();
+        while (iterator.hasNext()) result.add(iterator.next());
+        return result;
+    }
+}